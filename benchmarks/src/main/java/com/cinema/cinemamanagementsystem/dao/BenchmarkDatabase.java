@@ -0,0 +1,138 @@
+package com.cinema.cinemamanagementsystem.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Встроенная H2 (MODE=MySQL) с тестовыми данными для бенчмарков.
+ * Системные свойства cinema.db.* выставляются до первого обращения к DatabaseConnection,
+ * поэтому пул приложения подключается к H2 вместо MySQL.
+ */
+public final class BenchmarkDatabase {
+
+    public static final int HALL_ID = 1;
+    public static final int SHOWTIME_ID = 1;
+    public static final int ROWS = 15;
+    public static final int SEATS_PER_ROW = 20;
+    public static final int PAYMENT_METHODS = 3;
+    public static final int PAYMENTS = 20_000;
+    public static final LocalDateTime PERIOD_START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    public static final LocalDateTime PERIOD_END = PERIOD_START.plusDays(30);
+
+    private static boolean initialized;
+
+    static {
+        System.setProperty("cinema.db.url",
+                "jdbc:h2:mem:cinema;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE");
+        System.setProperty("cinema.db.user", "sa");
+        System.setProperty("cinema.db.password", "");
+        System.setProperty("cinema.db.driver", "org.h2.Driver");
+    }
+
+    private BenchmarkDatabase() {}
+
+    public static synchronized void init() throws SQLException, IOException {
+        if (initialized) {
+            return;
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            createSchema(conn);
+            seed(conn);
+        }
+        initialized = true;
+    }
+
+    private static void createSchema(Connection conn) throws SQLException, IOException {
+        String script;
+        try (InputStream in = BenchmarkDatabase.class.getResourceAsStream("/benchmark-schema.sql")) {
+            if (in == null) {
+                throw new IOException("benchmark-schema.sql не найден");
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : script.replaceAll("(?m)^--.*$", "").split(";")) {
+                if (!sql.isBlank()) {
+                    stmt.execute(sql);
+                }
+            }
+        }
+    }
+
+    private static void seed(Connection conn) throws SQLException {
+        Random random = new Random(42);
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO film_genre (name) VALUES ('Драма')");
+            stmt.execute("INSERT INTO film (title, genre_id, duration, description) VALUES ('Интерстеллар', 1, 169, '')");
+            stmt.execute("INSERT INTO hall (name) VALUES ('Зал №1 (IMAX)')");
+            stmt.execute("INSERT INTO seat_category (name, color) VALUES ('Стандарт', '#3498db'), ('VIP', '#f39c12')");
+            stmt.execute("INSERT INTO price_rule (name, coefficient) VALUES ('Вечерний', 1.20)");
+            stmt.execute("INSERT INTO showtime (film_id, hall_id, date_time, base_price, rule_id) " +
+                    "VALUES (1, " + HALL_ID + ", TIMESTAMP '2024-01-15 19:00:00', 350.00, 1)");
+            stmt.execute("INSERT INTO users (username) VALUES ('cashier')");
+            stmt.execute("INSERT INTO ticket_status (status_id, name) VALUES (1, 'Оплачен'), (2, 'Забронирован'), (3, 'Возврат')");
+            stmt.execute("INSERT INTO payment_method (method_id, name) VALUES (1, 'Банковская карта'), (2, 'Наличные'), (3, 'СБП')");
+            stmt.execute("INSERT INTO customer (name, phone, email, registered, created_at) " +
+                    "VALUES ('Иван Петров', '+79161234567', 'ivan@example.com', TRUE, CURRENT_TIMESTAMP)");
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO seat (hall_id, seat_row, seat_number, category_id) VALUES (?, ?, ?, ?)")) {
+            for (int row = 1; row <= ROWS; row++) {
+                for (int number = 1; number <= SEATS_PER_ROW; number++) {
+                    pstmt.setInt(1, HALL_ID);
+                    pstmt.setInt(2, row);
+                    pstmt.setInt(3, number);
+                    pstmt.setInt(4, row > ROWS - 3 ? 2 : 1);
+                    pstmt.addBatch();
+                }
+            }
+            pstmt.executeBatch();
+        }
+
+        // Каждому платежу — свой билет; ~5% платежей — возвраты с отрицательной суммой
+        try (PreparedStatement ticketStmt = conn.prepareStatement(
+                "INSERT INTO ticket (showtime_id, seat_id, customer_id, user_id, status_id, created_at) " +
+                        "VALUES (?, ?, 1, 1, ?, ?)");
+             PreparedStatement paymentStmt = conn.prepareStatement(
+                     "INSERT INTO payment (ticket_id, user_id, amount, method_id, payment_time) VALUES (?, 1, ?, ?, ?)")) {
+
+            long periodSeconds = Duration.between(PERIOD_START, PERIOD_END).getSeconds();
+            for (int i = 1; i <= PAYMENTS; i++) {
+                boolean refund = random.nextInt(100) < 5;
+                Timestamp time = Timestamp.valueOf(PERIOD_START.plusSeconds((long) (random.nextDouble() * periodSeconds)));
+
+                ticketStmt.setInt(1, SHOWTIME_ID);
+                ticketStmt.setInt(2, 1 + random.nextInt(ROWS * SEATS_PER_ROW));
+                ticketStmt.setInt(3, refund ? 3 : 1);
+                ticketStmt.setTimestamp(4, time);
+                ticketStmt.addBatch();
+
+                paymentStmt.setInt(1, i);
+                paymentStmt.setDouble(2, refund ? -420.0 : 420.0);
+                paymentStmt.setInt(3, 1 + random.nextInt(PAYMENT_METHODS));
+                paymentStmt.setTimestamp(4, time);
+                paymentStmt.addBatch();
+
+                if (i % 1000 == 0) {
+                    ticketStmt.executeBatch();
+                    paymentStmt.executeBatch();
+                }
+            }
+            ticketStmt.executeBatch();
+            paymentStmt.executeBatch();
+        }
+    }
+}
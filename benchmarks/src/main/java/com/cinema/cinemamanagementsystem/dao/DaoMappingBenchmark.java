@@ -0,0 +1,156 @@
+package com.cinema.cinemamanagementsystem.dao;
+
+import com.cinema.cinemamanagementsystem.models.Hall;
+import com.cinema.cinemamanagementsystem.models.PriceRule;
+import com.cinema.cinemamanagementsystem.models.SeatCategory;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг строк ResultSet в модели: TicketDAO.mapResultSetToSummary и CustomerDAO.mapResultSetToCustomer.
+ * Строки лежат в памяти (SimpleResultSet), так что меряется только маппинг, без БД.
+ * customerWithoutAggregates — путь без visit_count/total_spent, где маппер ловит SQLException.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoMappingBenchmark {
+
+    @Param({"300"})
+    private int rows;
+
+    private final TicketDAO ticketDAO = new TicketDAO(new ReferenceDataCache(DaoMappingBenchmark::referenceData));
+    private final CustomerDAO customerDAO = new CustomerDAO();
+
+    private SimpleResultSet tickets;
+    private SimpleResultSet customers;
+    private SimpleResultSet customersWithoutAggregates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tickets = ticketRows(rows);
+        customers = customerRows(rows, true);
+        customersWithoutAggregates = customerRows(rows, false);
+    }
+
+    @Benchmark
+    public void ticket(Blackhole bh) throws SQLException {
+        tickets.beforeFirst();
+        while (tickets.next()) {
+            bh.consume(ticketDAO.mapResultSetToSummary(tickets));
+        }
+    }
+
+    @Benchmark
+    public void customerWithAggregates(Blackhole bh) throws SQLException {
+        customers.beforeFirst();
+        while (customers.next()) {
+            bh.consume(customerDAO.mapResultSetToCustomer(customers));
+        }
+    }
+
+    @Benchmark
+    public void customerWithoutAggregates(Blackhole bh) throws SQLException {
+        customersWithoutAggregates.beforeFirst();
+        while (customersWithoutAggregates.next()) {
+            bh.consume(customerDAO.mapResultSetToCustomer(customersWithoutAggregates));
+        }
+    }
+
+    // Те же колонки, что отдает запрос getActiveBookings/getCustomerTickets (SUMMARY_COLUMNS)
+    private static SimpleResultSet ticketRows(int count) {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.setAutoClose(false);
+        rs.addColumn("ticket_id", Types.INTEGER, 10, 0);
+        rs.addColumn("showtime_id", Types.INTEGER, 10, 0);
+        rs.addColumn("seat_id", Types.INTEGER, 10, 0);
+        rs.addColumn("status_id", Types.INTEGER, 10, 0);
+        rs.addColumn("created_at", Types.TIMESTAMP, 0, 0);
+        rs.addColumn("seat_row", Types.INTEGER, 10, 0);
+        rs.addColumn("seat_number", Types.INTEGER, 10, 0);
+        rs.addColumn("seat_category_id", Types.INTEGER, 10, 0);
+        rs.addColumn("film_title", Types.VARCHAR, 255, 0);
+        rs.addColumn("date_time", Types.TIMESTAMP, 0, 0);
+        rs.addColumn("customer_name", Types.VARCHAR, 255, 0);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp start = Timestamp.valueOf(LocalDateTime.now().plusHours(3));
+        for (int i = 1; i <= count; i++) {
+            rs.addRow(i, 1, i, i % 2 == 0 ? 1 : 2, now,
+                    1 + i / 20, 1 + i % 20, 1,
+                    "Фильм", start, "Клиент " + i);
+        }
+        return rs;
+    }
+
+    // Справочники, которые мапперу билетов отдает ReferenceDataCache
+    private static ReferenceDataCache.Snapshot referenceData() {
+        SeatCategory standard = new SeatCategory();
+        standard.setCategoryId(1);
+        standard.setName("Стандарт");
+
+        Map<Integer, String> statuses = new HashMap<>();
+        statuses.put(1, "Оплачен");
+        statuses.put(2, "Забронирован");
+        statuses.put(3, "Возврат");
+
+        return new ReferenceDataCache.Snapshot(
+                Map.of(1, standard),
+                Map.of(1, new Hall(1, "Зал №1 (IMAX)")),
+                Map.of(),
+                Map.of(),
+                Map.of(1, new PriceRule(1, "Вечерний", 1.2)),
+                statuses,
+                List.of());
+    }
+
+    private static SimpleResultSet customerRows(int count, boolean withAggregates) {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.setAutoClose(false);
+        rs.addColumn("customer_id", Types.INTEGER, 10, 0);
+        rs.addColumn("name", Types.VARCHAR, 255, 0);
+        rs.addColumn("phone", Types.VARCHAR, 20, 0);
+        rs.addColumn("email", Types.VARCHAR, 255, 0);
+        rs.addColumn("registered", Types.BOOLEAN, 1, 0);
+        rs.addColumn("created_at", Types.TIMESTAMP, 0, 0);
+        if (withAggregates) {
+            rs.addColumn("visit_count", Types.INTEGER, 10, 0);
+            rs.addColumn("total_spent", Types.DOUBLE, 10, 2);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 1; i <= count; i++) {
+            if (withAggregates) {
+                rs.addRow(i, "Клиент " + i, "+7916" + (1000000 + i), "client" + i + "@example.com", true, now,
+                        i % 10, i * 350.0);
+            } else {
+                rs.addRow(i, "Клиент " + i, "+7916" + (1000000 + i), "client" + i + "@example.com", true, now);
+            }
+        }
+        return rs;
+    }
+}
@@ -0,0 +1,42 @@
+package com.cinema.cinemamanagementsystem.dao;
+
+import com.cinema.cinemamanagementsystem.models.Seat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ShowtimeDAO.getSeatsForShowtime на зале из 300 мест: запрос к H2 и маппинг строк в Seat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShowtimeDaoBenchmark {
+
+    private ShowtimeDAO showtimeDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.init();
+        showtimeDAO = new ShowtimeDAO();
+    }
+
+    @Benchmark
+    public List<Seat> seatsForShowtime() {
+        return showtimeDAO.getSeatsForShowtime(BenchmarkDatabase.SHOWTIME_ID);
+    }
+}
@@ -0,0 +1,54 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import com.cinema.cinemamanagementsystem.dao.BenchmarkDatabase;
+import com.cinema.cinemamanagementsystem.models.Payment;
+import com.cinema.cinemamanagementsystem.models.PaymentMethodStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PaymentService.getPaymentMethodsStatistics за месяц с 20 000 платежей (читает sales_daily_rollup,
+ * агрегаты дочитываются при первом вызове) и однопроходная агрегация того же периода, уже загруженного в память.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentStatisticsBenchmark {
+
+    private PaymentService paymentService;
+    private List<Payment> loadedPayments;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.init();
+        paymentService = new PaymentService();
+        loadedPayments = paymentService.getPaymentsByPeriod(
+                BenchmarkDatabase.PERIOD_START, BenchmarkDatabase.PERIOD_END);
+    }
+
+    @Benchmark
+    public String paymentMethodsStatistics() {
+        return paymentService.getPaymentMethodsStatistics(
+                BenchmarkDatabase.PERIOD_START, BenchmarkDatabase.PERIOD_END);
+    }
+
+    @Benchmark
+    public List<PaymentMethodStats> aggregateLoadedPayments() {
+        return PaymentAggregator.aggregate(loadedPayments);
+    }
+}
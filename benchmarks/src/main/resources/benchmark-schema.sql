@@ -0,0 +1,125 @@
+-- Упрощенная схема cinema_booking для бенчмарков на H2 (MODE=MySQL).
+-- Содержит только таблицы и колонки, к которым обращаются DAO в горячих путях.
+
+CREATE TABLE film_genre (
+    genre_id INT AUTO_INCREMENT PRIMARY KEY,
+    name     VARCHAR(100) NOT NULL
+);
+
+CREATE TABLE film (
+    film_id     INT AUTO_INCREMENT PRIMARY KEY,
+    title       VARCHAR(255) NOT NULL,
+    genre_id    INT,
+    duration    INT NOT NULL,
+    description TEXT
+);
+
+CREATE TABLE hall (
+    hall_id           INT AUTO_INCREMENT PRIMARY KEY,
+    name              VARCHAR(100) NOT NULL,
+    price_coefficient DECIMAL(4, 2) NOT NULL DEFAULT 1.00
+);
+
+CREATE TABLE seat_category (
+    category_id       INT AUTO_INCREMENT PRIMARY KEY,
+    name              VARCHAR(100) NOT NULL,
+    color             VARCHAR(7),
+    price_coefficient DECIMAL(4, 2) NOT NULL DEFAULT 1.00
+);
+
+CREATE TABLE seat (
+    seat_id     INT AUTO_INCREMENT PRIMARY KEY,
+    hall_id     INT NOT NULL,
+    seat_row    INT NOT NULL,
+    seat_number INT NOT NULL,
+    category_id INT NOT NULL
+);
+CREATE INDEX idx_seat_hall ON seat (hall_id);
+
+CREATE TABLE price_rule (
+    rule_id     INT AUTO_INCREMENT PRIMARY KEY,
+    name        VARCHAR(100) NOT NULL,
+    coefficient DECIMAL(4, 2) NOT NULL
+);
+
+CREATE TABLE price_time_rule (
+    time_rule_id INT AUTO_INCREMENT PRIMARY KEY,
+    name         VARCHAR(100) NOT NULL,
+    start_time   TIME NOT NULL,
+    end_time     TIME NOT NULL,
+    coefficient  DECIMAL(4, 2) NOT NULL,
+    active       BOOLEAN NOT NULL DEFAULT TRUE
+);
+
+CREATE TABLE showtime (
+    showtime_id INT AUTO_INCREMENT PRIMARY KEY,
+    film_id     INT NOT NULL,
+    hall_id     INT NOT NULL,
+    date_time   TIMESTAMP NOT NULL,
+    base_price  DECIMAL(10, 2) NOT NULL,
+    rule_id     INT
+);
+
+CREATE TABLE users (
+    user_id  INT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(100) NOT NULL
+);
+
+CREATE TABLE ticket_status (
+    status_id INT PRIMARY KEY,
+    name      VARCHAR(50) NOT NULL
+);
+
+CREATE TABLE customer (
+    customer_id INT AUTO_INCREMENT PRIMARY KEY,
+    name        VARCHAR(255) NOT NULL,
+    phone       VARCHAR(20),
+    email       VARCHAR(255),
+    registered  BOOLEAN,
+    created_at  TIMESTAMP NOT NULL
+);
+
+CREATE TABLE ticket (
+    ticket_id   INT AUTO_INCREMENT PRIMARY KEY,
+    showtime_id INT NOT NULL,
+    seat_id     INT NOT NULL,
+    customer_id INT,
+    user_id     INT NOT NULL,
+    status_id   INT NOT NULL,
+    created_at  TIMESTAMP NOT NULL
+);
+CREATE INDEX idx_ticket_showtime ON ticket (showtime_id);
+
+CREATE TABLE payment_method (
+    method_id INT PRIMARY KEY,
+    name      VARCHAR(50) NOT NULL
+);
+
+CREATE TABLE payment (
+    payment_id   INT AUTO_INCREMENT PRIMARY KEY,
+    ticket_id    INT NOT NULL,
+    user_id      INT NOT NULL,
+    amount       DECIMAL(10, 2) NOT NULL,
+    method_id    INT NOT NULL,
+    payment_time TIMESTAMP NOT NULL,
+    recorded_at  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_payment_time ON payment (payment_time);
+
+CREATE TABLE sales_daily_rollup (
+    sale_date      DATE NOT NULL,
+    film_id        INT NOT NULL,
+    hall_id        INT NOT NULL,
+    method_id      INT NOT NULL,
+    payment_count  INT NOT NULL DEFAULT 0,
+    payment_amount DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    refund_count   INT NOT NULL DEFAULT 0,
+    refund_amount  DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (sale_date, film_id, hall_id, method_id)
+);
+
+CREATE TABLE rollup_watermark (
+    rollup_name     VARCHAR(50) PRIMARY KEY,
+    last_payment_id INT NOT NULL DEFAULT 0
+);
+INSERT INTO rollup_watermark (rollup_name, last_payment_id) VALUES ('sales_daily', 0);
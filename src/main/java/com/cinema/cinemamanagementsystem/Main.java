@@ -1,6 +1,14 @@
 package com.cinema.cinemamanagementsystem;
 
 import com.cinema.cinemamanagementsystem.controllers.LoginController;
+import com.cinema.cinemamanagementsystem.dao.CustomerDAO;
+import com.cinema.cinemamanagementsystem.dao.DatabaseConnection;
+import com.cinema.cinemamanagementsystem.dao.ReferenceDataCache;
+import com.cinema.cinemamanagementsystem.dao.SalesRollupDAO;
+import com.cinema.cinemamanagementsystem.services.BookingExpiryScheduler;
+import com.cinema.cinemamanagementsystem.services.OccupancyFeed;
+import com.cinema.cinemamanagementsystem.services.SalesRollupJob;
+import com.cinema.cinemamanagementsystem.services.UiTaskExecutor;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -10,6 +18,7 @@ import javafx.stage.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 public class Main extends Application {
@@ -19,6 +28,8 @@ public class Main extends Application {
     public void start(Stage primaryStage) {
         try {
             logger.info("Запуск системы управления кинотеатром");
+            // Справочники грузятся, пока открыто окно входа
+            ReferenceDataCache.getInstance().prefetch();
 
             // Загружаем окно авторизации
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/cinema/cinemamanagementsystem/login.fxml"));
@@ -41,6 +52,9 @@ public class Main extends Application {
             primaryStage.setMinHeight(600);
             primaryStage.show();
 
+            // Истекшие брони снимаются, даже если ни одна касса не открыта
+            BookingExpiryScheduler.getInstance().start();
+
             logger.info("Приложение успешно запущено");
 
         } catch (Exception e) {
@@ -52,8 +66,13 @@ public class Main extends Application {
     @Override
     public void stop() {
         logger.info("Завершение работы приложения");
+        // Останавливаем фоновые задачи UI
+        UiTaskExecutor.getInstance().shutdown();
+        OccupancyFeed.getInstance().stop();
+        BookingExpiryScheduler.getInstance().stop();
+        SalesRollupJob.getInstance().stop();
         // Закрываем соединения с БД
-        com.cinema.cinemamanagementsystem.dao.DatabaseConnection.closeDataSource();
+        DatabaseConnection.closeDataSource();
     }
 
     private void showErrorAlert(String title, String message) {
@@ -69,6 +88,23 @@ public class Main extends Application {
         // Инициализируем логгер
         System.setProperty("logback.configurationFile", "logback.xml");
 
+        // Обслуживание БД без запуска интерфейса
+        if (Arrays.asList(args).contains("--rebuild-customer-stats")) {
+            int customers = new CustomerDAO().rebuildCustomerStats();
+            logger.info("Статистика клиентов пересчитана: {} клиентов", customers);
+            DatabaseConnection.closeDataSource();
+            System.exit(customers < 0 ? 1 : 0);
+        }
+        if (Arrays.asList(args).contains("--rebuild-sales-rollup")) {
+            SalesRollupDAO rollupDAO = new SalesRollupDAO();
+            int payments = rollupDAO.resetRollup()
+                    ? SalesRollupJob.getInstance().catchUp()
+                    : -1;
+            logger.info("Агрегаты продаж пересчитаны: {} платежей", payments);
+            DatabaseConnection.closeDataSource();
+            System.exit(payments < 0 ? 1 : 0);
+        }
+
         // Запускаем JavaFX приложение
         launch(args);
     }
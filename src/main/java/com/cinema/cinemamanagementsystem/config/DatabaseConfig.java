@@ -1,16 +1,21 @@
 package com.cinema.cinemamanagementsystem.config;
 
 public class DatabaseConfig {
-    public static final String URL = "jdbc:mysql://localhost:3306/cinema_booking";
-    public static final String USER = "root";
-    public static final String PASSWORD = "1111";
-    public static final String DRIVER = "com.mysql.cj.jdbc.Driver";
+    // Параметры подключения можно переопределить системными свойствами (-Dcinema.db.url=...),
+    // например для прогона бенчмарков на встроенной H2
+    public static final String URL = System.getProperty("cinema.db.url", "jdbc:mysql://localhost:3306/cinema_booking");
+    public static final String USER = System.getProperty("cinema.db.user", "root");
+    public static final String PASSWORD = System.getProperty("cinema.db.password", "1111");
+    public static final String DRIVER = System.getProperty("cinema.db.driver", "com.mysql.cj.jdbc.Driver");
 
     // Настройки пула соединений
     public static final int MAX_POOL_SIZE = 10;
     public static final int MIN_IDLE = 5;
     public static final int CONNECTION_TIMEOUT = 30000;
 
+    // Выгрузки: строк за одно обращение к серверному курсору
+    public static final int EXPORT_FETCH_SIZE = 1000;
+
     // Константы бизнес-логики
     public static final int BOOKING_TIMEOUT_MINUTES = 30;
     public static final double BOOKING_SURCHARGE_RATE = 0.15;
@@ -3,6 +3,8 @@ package com.cinema.cinemamanagementsystem.controllers;
 import com.cinema.cinemamanagementsystem.dao.*;
 import com.cinema.cinemamanagementsystem.models.*;
 import com.cinema.cinemamanagementsystem.services.BookingService;
+import com.cinema.cinemamanagementsystem.services.ReportService;
+import com.cinema.cinemamanagementsystem.services.UiTaskExecutor;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -18,6 +20,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ResourceBundle;
 import java.util.Objects;
+import java.util.stream.Collectors;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Priority;
 import javafx.beans.property.SimpleStringProperty;
@@ -86,6 +89,9 @@ public class AdminController implements Initializable {
     private final FilmDAO filmDAO = new FilmDAO();
     private final ShowtimeDAO showtimeDAO = new ShowtimeDAO();
     private final BookingService bookingService = new BookingService();
+    private final ReportService reportService = new ReportService();
+    private final UiTaskExecutor uiTasks = UiTaskExecutor.getInstance();
+    private final ReferenceDataCache referenceData = ReferenceDataCache.getInstance();
 
     private ObservableList<Film> filmsList = FXCollections.observableArrayList();
     private ObservableList<Showtime> showtimesList = FXCollections.observableArrayList();
@@ -179,28 +185,27 @@ public class AdminController implements Initializable {
     }
 
     private void loadFilms() {
-        filmsList.setAll(filmDAO.getAllFilms());
+        uiTasks.submit("admin.films", filmDAO::getAllFilms, filmsList::setAll);
     }
 
     private void loadShowtimes() {
-        showtimesList.setAll(showtimeDAO.getAllShowtimes());
+        uiTasks.submit("admin.showtimes", showtimeDAO::getAllShowtimes, showtimesList::setAll);
     }
 
     private void loadHalls() {
-        hallComboBox.getItems().clear();
-        hallComboBox.getItems().addAll("Зал №1 (IMAX)", "Зал №2 (3D)", "Зал №3 (Dolby Atmos)", "Зал №4 (Premium)");
+        uiTasks.submit("admin.halls", referenceData::getHalls, halls -> hallComboBox.getItems().setAll(
+                halls.values().stream().map(Hall::getName).collect(Collectors.toList())));
     }
 
     private void loadFilmsForComboBox() {
-        filmComboBox.getItems().clear();
-        filmComboBox.getItems().addAll(filmDAO.getAllFilms());
+        uiTasks.submit("admin.filmCombo", filmDAO::getAllFilms, films -> filmComboBox.getItems().setAll(films));
     }
 
     private void searchFilms(String searchText) {
         if (searchText == null || searchText.trim().isEmpty()) {
             loadFilms();
         } else {
-            filmsList.setAll(filmDAO.searchFilms(searchText));
+            uiTasks.submit("admin.films", () -> filmDAO.searchFilms(searchText), filmsList::setAll);
         }
     }
 
@@ -214,7 +219,7 @@ public class AdminController implements Initializable {
         titleField.setPromptText("Название фильма");
 
         ComboBox<String> genreCombo = new ComboBox<>();
-        genreCombo.getItems().addAll("Фантастика", "Драма", "Боевик", "Комедия", "Ужасы");
+        referenceData.getGenres().values().forEach(genre -> genreCombo.getItems().add(genre.getName()));
         genreCombo.setPromptText("Выберите жанр");
 
         TextField durationField = new TextField();
@@ -278,14 +283,14 @@ public class AdminController implements Initializable {
             return null;
         });
 
-        dialog.showAndWait().ifPresent(film -> {
-            if (filmDAO.addFilm(film)) {
+        dialog.showAndWait().ifPresent(film -> uiTasks.submit(() -> filmDAO.addFilm(film), added -> {
+            if (added) {
                 showAlert("Успех", "Фильм успешно добавлен", Alert.AlertType.INFORMATION);
                 loadFilms();
             } else {
                 showAlert("Ошибка", "Не удалось добавить фильм", Alert.AlertType.ERROR);
             }
-        });
+        }));
     }
 
     private void editSelectedFilm() {
@@ -311,12 +316,14 @@ public class AdminController implements Initializable {
 
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                if (filmDAO.deleteFilm(selected.getFilmId())) {
-                    showAlert("Успех", "Фильм успешно удален", Alert.AlertType.INFORMATION);
-                    loadFilms();
-                } else {
-                    showAlert("Ошибка", "Не удалось удалить фильм", Alert.AlertType.ERROR);
-                }
+                uiTasks.submit(() -> filmDAO.deleteFilm(selected.getFilmId()), deleted -> {
+                    if (deleted) {
+                        showAlert("Успех", "Фильм успешно удален", Alert.AlertType.INFORMATION);
+                        loadFilms();
+                    } else {
+                        showAlert("Ошибка", "Не удалось удалить фильм", Alert.AlertType.ERROR);
+                    }
+                });
             }
         });
     }
@@ -344,11 +351,6 @@ public class AdminController implements Initializable {
             LocalDateTime endTime = dateTime.plusMinutes(selectedFilm.getDuration() + 15);
             int hallId = getHallIdFromName(hall);
 
-            if (showtimeDAO.hasTimeConflict(hallId, dateTime, endTime, null)) {
-                showAlert("Ошибка", "В этом зале уже есть сеанс в выбранное время", Alert.AlertType.ERROR);
-                return;
-            }
-
             // Создаем сеанс
             Showtime showtime = new Showtime();
             showtime.setFilmId(selectedFilm.getFilmId());
@@ -357,13 +359,20 @@ public class AdminController implements Initializable {
             showtime.setBasePrice(Double.parseDouble(basePriceField.getText()));
             // Здесь нужно определить rule_id по времени
 
-            if (showtimeDAO.addShowtime(showtime)) {
-                showAlert("Успех", "Сеанс успешно добавлен", Alert.AlertType.INFORMATION);
-                loadShowtimes();
-                clearShowtimeForm();
-            } else {
-                showAlert("Ошибка", "Не удалось добавить сеанс", Alert.AlertType.ERROR);
-            }
+            uiTasks.submit(() -> {
+                if (showtimeDAO.hasTimeConflict(hallId, dateTime, endTime, null)) {
+                    throw new IllegalStateException("В этом зале уже есть сеанс в выбранное время");
+                }
+                return showtimeDAO.addShowtime(showtime);
+            }, added -> {
+                if (added) {
+                    showAlert("Успех", "Сеанс успешно добавлен", Alert.AlertType.INFORMATION);
+                    loadShowtimes();
+                    clearShowtimeForm();
+                } else {
+                    showAlert("Ошибка", "Не удалось добавить сеанс", Alert.AlertType.ERROR);
+                }
+            }, e -> showAlert("Ошибка", e.getMessage(), Alert.AlertType.ERROR));
 
         } catch (Exception e) {
             logger.error("Ошибка при добавлении сеанса: {}", e.getMessage());
@@ -372,13 +381,11 @@ public class AdminController implements Initializable {
     }
 
     private int getHallIdFromName(String hallName) {
-        switch (hallName) {
-            case "Зал №1 (IMAX)": return 1;
-            case "Зал №2 (3D)": return 2;
-            case "Зал №3 (Dolby Atmos)": return 3;
-            case "Зал №4 (Premium)": return 4;
-            default: return 1;
-        }
+        return referenceData.getHalls().values().stream()
+                .filter(hall -> hall.getName().equals(hallName))
+                .mapToInt(Hall::getHallId)
+                .findFirst()
+                .orElse(1);
     }
 
     private void clearShowtimeForm() {
@@ -424,9 +431,16 @@ public class AdminController implements Initializable {
     }
 
     private void generateSalesReport(java.time.LocalDate startDate, java.time.LocalDate endDate) {
-        // Реализация отчета по продажам
         totalRevenueLabel.setText("Общая выручка: рассчитывается...");
         totalTicketsLabel.setText("Продано билетов: рассчитывается...");
+
+        // Итоги — из дневных агрегатов продаж
+        uiTasks.submit("admin.report", () -> reportService.generateSalesReport(
+                startDate.atStartOfDay(), endDate.atTime(23, 59, 59)), report -> {
+            totalRevenueLabel.setText(String.format("Общая выручка: %.2f руб.",
+                    (double) report.getOrDefault("totalRevenue", 0.0)));
+            totalTicketsLabel.setText("Продано билетов: " + report.getOrDefault("ticketsSold", 0L));
+        }, e -> showAlert("Ошибка", "Не удалось сгенерировать отчет: " + e.getMessage(), Alert.AlertType.ERROR));
     }
 
     private void generateFilmPopularityReport(java.time.LocalDate startDate, java.time.LocalDate endDate) {
@@ -2,7 +2,14 @@ package com.cinema.cinemamanagementsystem.controllers;
 
 import com.cinema.cinemamanagementsystem.dao.*;
 import com.cinema.cinemamanagementsystem.models.*;
+import com.cinema.cinemamanagementsystem.services.BookingExpiryScheduler;
 import com.cinema.cinemamanagementsystem.services.BookingService;
+import com.cinema.cinemamanagementsystem.services.CustomerSearchIndex;
+import com.cinema.cinemamanagementsystem.services.OccupancyFeed;
+import com.cinema.cinemamanagementsystem.services.PricingEngine;
+import com.cinema.cinemamanagementsystem.services.SeatAvailabilityIndex;
+import com.cinema.cinemamanagementsystem.services.ShowtimeScheduleCache;
+import com.cinema.cinemamanagementsystem.services.UiTaskExecutor;
 import com.cinema.cinemamanagementsystem.config.DatabaseConfig;
 import javafx.geometry.Pos;
 import javafx.geometry.HPos;
@@ -26,6 +33,7 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.TilePane;
 import javafx.stage.Stage;
 import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
 import javafx.animation.Timeline;
 import javafx.util.Duration;
 import javafx.scene.Parent;
@@ -36,6 +44,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +52,8 @@ import org.slf4j.LoggerFactory;
 public class CashierController implements Initializable {
 
     private static final Logger logger = LoggerFactory.getLogger(CashierController.class);
+    private static final int CUSTOMER_PAGE_SIZE = 100;
+    private static final int CUSTOMER_SEARCH_LIMIT = 50;
 
     // UI элементы
     @FXML private TabPane mainTabPane;
@@ -68,13 +79,13 @@ public class CashierController implements Initializable {
     @FXML private Label totalSelectedLabel;
 
     // Вкладка БРОНИРОВАНИЯ
-    @FXML private TableView<Ticket> bookingsTable;
-    @FXML private TableColumn<Ticket, Integer> bookingIdColumn;
-    @FXML private TableColumn<Ticket, String> bookingFilmColumn;
-    @FXML private TableColumn<Ticket, String> bookingTimeColumn;
-    @FXML private TableColumn<Ticket, String> bookingSeatColumn;
-    @FXML private TableColumn<Ticket, String> bookingCustomerColumn;
-    @FXML private TableColumn<Ticket, String> bookingStatusColumn;
+    @FXML private TableView<TicketSummary> bookingsTable;
+    @FXML private TableColumn<TicketSummary, Integer> bookingIdColumn;
+    @FXML private TableColumn<TicketSummary, String> bookingFilmColumn;
+    @FXML private TableColumn<TicketSummary, String> bookingTimeColumn;
+    @FXML private TableColumn<TicketSummary, String> bookingSeatColumn;
+    @FXML private TableColumn<TicketSummary, String> bookingCustomerColumn;
+    @FXML private TableColumn<TicketSummary, String> bookingStatusColumn;
     @FXML private Button confirmBookingButton;
     @FXML private Button cancelBookingButton;
 
@@ -97,14 +108,30 @@ public class CashierController implements Initializable {
     private final ShowtimeDAO showtimeDAO = new ShowtimeDAO();
     private final CustomerDAO customerDAO = new CustomerDAO();
     private final TicketDAO ticketDAO = new TicketDAO();
-    private final SeatCategoryDAO seatCategoryDAO = new SeatCategoryDAO();
+    private final ReferenceDataCache referenceData = ReferenceDataCache.getInstance();
     private final BookingService bookingService = new BookingService();
+    private final SeatAvailabilityIndex seatIndex = SeatAvailabilityIndex.getInstance();
+    private final PricingEngine pricing = PricingEngine.getInstance();
+    private final ShowtimeScheduleCache scheduleCache = new ShowtimeScheduleCache();
+    private final UiTaskExecutor uiTasks = UiTaskExecutor.getInstance();
+    private final CustomerSearchIndex customerSearch = CustomerSearchIndex.getInstance();
+    private final OccupancyFeed occupancyFeed = OccupancyFeed.getInstance();
+    private final Consumer<Set<Integer>> occupancyListener = this::onOccupancyChanged;
+    private final BookingExpiryScheduler expiryScheduler = BookingExpiryScheduler.getInstance();
+    private final Consumer<Set<Integer>> expiryListener = this::onBookingsExpired;
 
     // Данные
-    private Map<Integer, SeatCategory> categoryMap;
-    private ObservableList<Showtime> allShowtimesList = FXCollections.observableArrayList();
-    private ObservableList<Ticket> bookingsList = FXCollections.observableArrayList();
+    private Set<LocalDate> showtimeDates = Collections.emptySet();
+    private HallLayout currentLayout;
+    // Снимок занятости открытой схемы: проверки и счетчики в потоке JavaFX читают его, а не индекс (без БД)
+    private BitSet currentTaken;
+    private PriceTable currentPrices;
+    private SeatMapView seatMap;
+    private ObservableList<TicketSummary> bookingsList = FXCollections.observableArrayList();
     private ObservableList<Customer> customersList = FXCollections.observableArrayList();
+    private final PauseTransition customerSearchDebounce = new PauseTransition(Duration.millis(250));
+    private final PagedObservableList<Customer> customerPages =
+            new PagedObservableList<>(customerDAO::pageCustomers, CUSTOMER_PAGE_SIZE);
 
     // Текущие выборы
     private LocalDate selectedDate;
@@ -124,6 +151,8 @@ public class CashierController implements Initializable {
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        seatMap = new SeatMapView(seatGrid);
+        seatMap.setOnSeatToggle(this::toggleSeatSelection);
         setupSellingTab();
         setupBookingsTab();
         setupCustomersTab();
@@ -137,14 +166,29 @@ public class CashierController implements Initializable {
             welcomeLabel.setText("Кассир: " + currentUser.getFullName());
         }
 
-        categoryMap = seatCategoryDAO.getAllCategories();
+        uiTasks.submit(referenceData::getSeatCategories, categories -> {
+            seatMap.setCategories(categories);
+            if (selectedShowtime != null) {
+                renderSeats();
+            }
+        });
+        loadShowtimeDates();
 
-        // Загружаем данные
-        loadAllShowtimes();
+        // Продажи с других касс приходят дельтами из журнала изменений
+        occupancyFeed.addListener(occupancyListener);
+        expiryScheduler.addListener(expiryListener);
+
+        // Загружаем данные (расписание подгружается по дням при выборе даты)
         loadActiveBookings();
         loadCustomers();
         loadPaymentMethods();
 
+        // Индекс имен для поиска клиентов строится в фоне, пока кассир не начал вводить
+        uiTasks.submit(() -> {
+            customerSearch.warmUp();
+            return null;
+        }, ignored -> { });
+
         // Устанавливаем сегодняшнюю дату
         selectedDate = LocalDate.now();
         datePicker.setValue(selectedDate);
@@ -216,7 +260,7 @@ public class CashierController implements Initializable {
         bookingSeatColumn.setCellValueFactory(new PropertyValueFactory<>("seatInfo"));
         bookingCustomerColumn.setCellValueFactory(new PropertyValueFactory<>("customerName"));
         bookingStatusColumn.setCellValueFactory(cell -> {
-            Ticket t = cell.getValue();
+            TicketSummary t = cell.getValue();
             LocalDateTime expiry = t.getCreatedAt().plusMinutes(DatabaseConfig.BOOKING_TIMEOUT_MINUTES);
             long left = java.time.Duration.between(LocalDateTime.now(), expiry).toMinutes();
             return new SimpleStringProperty(
@@ -236,9 +280,22 @@ public class CashierController implements Initializable {
         customerVisitsColumn.setCellValueFactory(new PropertyValueFactory<>("visitCount"));
         customerTotalColumn.setCellValueFactory(new PropertyValueFactory<>("totalSpent"));
 
-        customersTable.setItems(customersList);
+        customersTable.setItems(customerPages);
+        // Постраничный список не сортируется (порядок задает keyset-запрос) — клик по заголовку
+        // откатывается; результаты поиска сортируются как обычно
+        customersTable.setSortPolicy(table -> !(table.getItems() instanceof PagedObservableList)
+                && TableView.DEFAULT_SORT_POLICY.call(table));
+        customerPages.setOnError(e -> {
+            if (customerPages.isEmpty()) {
+                showAlert("Ошибка", "Не удалось загрузить список клиентов", Alert.AlertType.ERROR);
+            }
+        });
         searchCustomerButton.setOnAction(e -> searchCustomers());
         customerSearchField.setOnAction(e -> searchCustomers());
+
+        // Поиск по мере ввода: запрос уходит после паузы в наборе, предыдущий отменяется
+        customerSearchDebounce.setOnFinished(e -> searchCustomers());
+        customerSearchField.textProperty().addListener((obs, oldV, newV) -> customerSearchDebounce.playFromStart());
     }
 
     private void setupRefundsTab() {
@@ -247,36 +304,48 @@ public class CashierController implements Initializable {
 
     // ===================== ЗАГРУЗКА ДАННЫХ =====================
 
-    private void loadAllShowtimes() {
-        allShowtimesList.setAll(showtimeDAO.getFutureShowtimes());
+    private void loadFilmsForDate(LocalDate date) {
+        uiTasks.submit("cashier.films", () -> loadDaySchedule(date),
+                schedule -> showFilmsForDate(date, schedule),
+                e -> showAlert("Ошибка", "Не удалось загрузить расписание", Alert.AlertType.ERROR));
     }
 
-    private void loadFilmsForDate(LocalDate date) {
+    // Расписание дня и заполненность сеансов (выполняется в фоне)
+    private DaySchedule loadDaySchedule(LocalDate date) {
+        List<Showtime> showtimes = scheduleCache.getUpcomingShowtimes(date);
+        Map<Integer, ShowtimeOccupancy> occupancy = showtimes.isEmpty()
+                ? Collections.emptyMap()
+                : showtimeDAO.getOccupancySummary(date);
+        return new DaySchedule(showtimes, occupancy);
+    }
+
+    private void showFilmsForDate(LocalDate date, DaySchedule schedule) {
         filmsTilePane.getChildren().clear();
 
         // Используем Map для группировки фильмов по ID (чтобы избежать дублирования)
         Map<Integer, Film> uniqueFilms = new HashMap<>();
         Map<Integer, List<Showtime>> filmShowtimesMap = new HashMap<>();
 
-        // Собираем все сеансы на эту дату и группируем по фильмам
-        for (Showtime showtime : allShowtimesList) {
-            if (showtime.getDateTime().toLocalDate().equals(date)) {
-                int filmId = showtime.getFilmId();
-
-                // Создаем объект фильма только если его еще нет
-                if (!uniqueFilms.containsKey(filmId)) {
-                    Film film = new Film();
-                    film.setFilmId(filmId);
-                    film.setTitle(showtime.getFilmTitle());
-                    uniqueFilms.put(filmId, film);
-                }
+        // Собираем предстоящие сеансы на эту дату и группируем по фильмам
+        for (Showtime showtime : schedule.showtimes) {
+            int filmId = showtime.getFilmId();
 
-                // Добавляем сеанс в список сеансов этого фильма
-                filmShowtimesMap.computeIfAbsent(filmId, k -> new ArrayList<>())
-                        .add(showtime);
+            // Создаем объект фильма только если его еще нет
+            if (!uniqueFilms.containsKey(filmId)) {
+                Film film = new Film();
+                film.setFilmId(filmId);
+                film.setTitle(showtime.getFilmTitle());
+                uniqueFilms.put(filmId, film);
             }
+
+            // Добавляем сеанс в список сеансов этого фильма
+            filmShowtimesMap.computeIfAbsent(filmId, k -> new ArrayList<>())
+                    .add(showtime);
         }
 
+        // Свободные места по всем сеансам дня — один запрос на всю сетку
+        Map<Integer, ShowtimeOccupancy> occupancy = schedule.occupancy;
+
         // Создаем карточки для уникальных фильмов
         List<Film> films = uniqueFilms.values().stream()
                 .sorted(Comparator.comparing(Film::getTitle))
@@ -284,7 +353,7 @@ public class CashierController implements Initializable {
 
         for (Film film : films) {
             List<Showtime> filmShowtimes = filmShowtimesMap.get(film.getFilmId());
-            VBox filmCard = createFilmCard(film, date, filmShowtimes);
+            VBox filmCard = createFilmCard(film, date, filmShowtimes, occupancy);
             filmsTilePane.getChildren().add(filmCard);
         }
 
@@ -297,7 +366,8 @@ public class CashierController implements Initializable {
         }
     }
 
-    private VBox createFilmCard(Film film, LocalDate date, List<Showtime> filmShowtimesParam) {
+    private VBox createFilmCard(Film film, LocalDate date, List<Showtime> filmShowtimesParam,
+                                Map<Integer, ShowtimeOccupancy> occupancy) {
         VBox card = new VBox(10);
         card.setPadding(new Insets(15));
         card.setPrefWidth(200);
@@ -340,9 +410,8 @@ public class CashierController implements Initializable {
             Label hallLabel = new Label("Зал " + showtime.getHallName());
             hallLabel.setStyle("-fx-text-fill: #bdc3c7; -fx-font-size: 11;");
 
-            int totalSeats = showtimeDAO.getSeatsForShowtime(showtime.getShowtimeId()).size();
-            int takenSeats = showtimeDAO.getTakenSeats(showtime.getShowtimeId()).size();
-            int freeSeats = totalSeats - takenSeats;
+            ShowtimeOccupancy showtimeOccupancy = occupancy.get(showtime.getShowtimeId());
+            int freeSeats = showtimeOccupancy != null ? showtimeOccupancy.getFreeSeats() : 0;
 
             Label seatsLabel = new Label(freeSeats + " мест");
             String seatsStyle = freeSeats == 0 ? "-fx-text-fill: #e74c3c;" :
@@ -380,14 +449,11 @@ public class CashierController implements Initializable {
         selectedFilm.setFilmId(showtime.getFilmId());
         selectedFilm.setTitle(showtime.getFilmTitle());
 
-        // Обновляем информацию
-        updateShowtimeInfo();
-
         // Подсвечиваем выбранную карточку
         highlightSelectedFilmCard();
 
-        // Рисуем места
-        renderSeats();
+        // Без ленты изменений перечитываем занятость (места могли продать с другой кассы)
+        loadSeats(showtime, !occupancyFeed.isActive());
     }
 
     private void highlightSelectedFilmCard() {
@@ -409,216 +475,109 @@ public class CashierController implements Initializable {
     }
 
     private void loadActiveBookings() {
-        bookingsList.setAll(ticketDAO.getActiveBookings(false));
+        uiTasks.submit("cashier.bookings", () -> ticketDAO.getActiveBookings(false), bookingsList::setAll);
     }
 
     private void loadCustomers() {
-        customersList.setAll(customerDAO.getAllCustomers());
+        // Таблица открывается первой страницей, остальные подгружаются при прокрутке
+        uiTasks.cancel("cashier.customers");
+        customersTable.getSortOrder().clear();
+        customersTable.setItems(customerPages);
+        customerPages.reload();
+    }
+
+    private void loadShowtimeDates() {
+        uiTasks.submit("cashier.dates", scheduleCache::getShowtimeDates, dates -> showtimeDates = dates);
     }
 
     private void loadPaymentMethods() {
-        paymentMethodCombo.getItems().addAll("Банковская карта", "Наличные", "СБП");
-        paymentMethodCombo.setValue("Банковская карта");
+        uiTasks.submit(referenceData::getPaymentMethods, methods -> {
+            for (PaymentMethod method : methods.values()) {
+                paymentMethodCombo.getItems().add(method.getName());
+            }
+            if (!paymentMethodCombo.getItems().isEmpty()) {
+                paymentMethodCombo.setValue(paymentMethodCombo.getItems().get(0));
+            }
+        });
     }
 
     private boolean hasShowtimesOnDate(LocalDate date) {
-        return allShowtimesList.stream()
-                .anyMatch(st -> st.getDateTime().toLocalDate().equals(date));
+        return showtimeDates.contains(date);
     }
 
     // ===================== ОТРИСОВКА МЕСТ =====================
 
     private void renderSeats() {
         if (selectedShowtime == null) return;
+        loadSeats(selectedShowtime, false);
+    }
 
-        seatGrid.getChildren().clear();
+    // Схема зала берется из кэша, в фоне перечитывается только занятость; отрисовка — в потоке JavaFX
+    private void loadSeats(Showtime showtime, boolean refreshOccupancy) {
+        int showtimeId = showtime.getShowtimeId();
+        uiTasks.submit("cashier.seats", () -> {
+            if (refreshOccupancy) {
+                seatIndex.refresh(showtimeId);
+            }
+            return new SeatMapState(seatIndex.getLayout(showtimeId), seatIndex.getTakenSnapshot(showtimeId),
+                    pricing.getPriceTable(showtimeId));
+        }, state -> {
+            if (selectedShowtime != null && selectedShowtime.getShowtimeId() == showtimeId) {
+                currentPrices = state.prices;
+                drawSeats(state.layout, state.taken);
+                updateShowtimeInfo();
+            }
+        }, e -> showAlert("Ошибка", "Не удалось загрузить схему зала", Alert.AlertType.ERROR));
+    }
+
+    private void drawSeats(HallLayout layout, BitSet taken) {
         selectedSeatIds.clear();
         updateTotalSelected();
 
-        seatGrid.setGridLinesVisible(false);
-        seatGrid.getRowConstraints().clear();
-        seatGrid.getColumnConstraints().clear();
-
-        List<Seat> seats = showtimeDAO.getSeatsForShowtime(selectedShowtime.getShowtimeId());
-        List<Integer> takenSeats = showtimeDAO.getTakenSeats(selectedShowtime.getShowtimeId());
-
-        if (seats.isEmpty()) return;
-
-        // Фильтруем места: оставляем только свободные
-        List<Seat> availableSeats = seats.stream()
-                .filter(seat -> !takenSeats.contains(seat.getSeatId()))
-                .collect(Collectors.toList());
-
-        // Получаем уникальные ряды и колонки из доступных мест
-        List<Integer> availableRows = availableSeats.stream()
-                .map(Seat::getRow)
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
-
-        List<Integer> availableColumns = availableSeats.stream()
-                .map(Seat::getNumber)
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
-
-        if (availableSeats.isEmpty()) {
-            Label noSeatsLabel = new Label("Все места заняты");
-            noSeatsLabel.setStyle("-fx-font-size: 16px; -fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-            seatGrid.add(noSeatsLabel, 0, 0, 2, 1);
+        currentLayout = layout;
+        currentTaken = taken;
+        if (layout.isEmpty()) {
+            seatMap.clear();
             return;
         }
 
-        int maxRow = availableRows.size();
-        int maxCol = availableColumns.size();
-
-        // Создаем констрейнты для колонок
-        for (int i = 0; i <= maxCol + 1; i++) {
-            ColumnConstraints colConst = new ColumnConstraints();
-            colConst.setHalignment(HPos.CENTER);
-            colConst.setHgrow(Priority.SOMETIMES);
-            colConst.setMinWidth(35);
-            colConst.setPrefWidth(40);
-            colConst.setMaxWidth(45);
-            seatGrid.getColumnConstraints().add(colConst);
-        }
-
-        // Создаем констрейнты для строк
-        for (int i = 0; i <= maxRow + 2; i++) {
-            RowConstraints rowConst = new RowConstraints();
-            rowConst.setValignment(VPos.CENTER);
-            rowConst.setVgrow(Priority.SOMETIMES);
-            rowConst.setMinHeight(35);
-            rowConst.setPrefHeight(40);
-            rowConst.setMaxHeight(45);
-            seatGrid.getRowConstraints().add(rowConst);
-        }
-
-        // ЭКРАН
-        Label screenLabel = new Label("Э К Р А Н");
-        screenLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 16px; -fx-text-fill: white; " +
-                "-fx-padding: 8px; -fx-background-color: #2c3e50; " +
-                "-fx-background-radius: 5;");
-        screenLabel.setMaxWidth(Double.MAX_VALUE);
-        screenLabel.setAlignment(Pos.CENTER);
-        seatGrid.add(screenLabel, 1, 0, maxCol, 1);
-
-        // Подписи колонок (номера мест) - только для свободных мест
-        for (int i = 0; i < availableColumns.size(); i++) {
-            Label colLabel = new Label(String.valueOf(availableColumns.get(i)));
-            colLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: black; " +
-                    "-fx-font-size: 12px; -fx-padding: 2px;");
-            colLabel.setAlignment(Pos.CENTER);
-            seatGrid.add(colLabel, i + 1, 1);
-        }
-
-        // Подписи рядов - только для рядов со свободными местами
-        for (int i = 0; i < availableRows.size(); i++) {
-            Label rowLabel = new Label(String.valueOf(availableRows.get(i)));
-            rowLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: black; " +
-                    "-fx-font-size: 12px; -fx-padding: 2px;");
-            rowLabel.setAlignment(Pos.CENTER);
-            seatGrid.add(rowLabel, 0, i + 2);
-        }
-
-        // Создаем карту мест для быстрого доступа
-        Map<String, Seat> seatMap = new HashMap<>();
-        for (Seat seat : availableSeats) {
-            seatMap.put(seat.getRow() + "-" + seat.getNumber(), seat);
-        }
-
-        // Кнопки мест - ТОЛЬКО СВОБОДНЫЕ МЕСТА
-        for (int rowIdx = 0; rowIdx < availableRows.size(); rowIdx++) {
-            final int rowNum = availableRows.get(rowIdx);  // Добавить final
-
-            for (int colIdx = 0; colIdx < availableColumns.size(); colIdx++) {
-                final int colNum = availableColumns.get(colIdx);  // Добавить final
-
-                Seat seat = seatMap.get(rowNum + "-" + colNum);
-                if (seat == null) {
-                    // Если в этом ряду нет места с таким номером, оставляем пустую ячейку
-                    continue;
-                }
-
-                Button seatButton = new Button(String.valueOf(colNum));
-                seatButton.setPrefSize(38, 38);
-                seatButton.setMinSize(35, 35);
-                seatButton.setMaxSize(42, 42);
-
-                final boolean isSelected = selectedSeatIds.contains(seat.getSeatId());  // Добавить final
-
-                final SeatCategory category = categoryMap.get(seat.getCategoryId());  // Добавить final
-                final String color = (category != null && category.getColor() != null)  // Добавить final
-                        ? category.getColor() : "#7f8c8d";
-                final String categoryName = (category != null) ? category.getName() : "Стандарт";  // Добавить final
-
-                // Устанавливаем начальный стиль
-                updateSeatButtonStyle(seatButton, isSelected, color);
-
-                seatButton.setOnAction(e -> toggleSeatSelection(seat.getSeatId(), seatButton, color));
-                seatButton.setUserData(seat.getSeatId());
-
-                // Создаем Tooltip с информацией о месте
-                StringBuilder tooltipText = new StringBuilder();
-                tooltipText.append("Ряд: ").append(rowNum).append("\n");
-                tooltipText.append("Место: ").append(colNum).append("\n");
-                tooltipText.append("Категория: ").append(categoryName).append("\n");
-                tooltipText.append("Цена: ").append(String.format("%.2f руб.", selectedShowtime.getFinalPrice()));
-
-                Tooltip tooltip = new Tooltip(tooltipText.toString());
-                tooltip.setStyle("-fx-font-size: 12px; -fx-font-weight: normal;");
-                tooltip.setShowDelay(Duration.millis(300));
-                tooltip.setShowDuration(Duration.seconds(10));
-                Tooltip.install(seatButton, tooltip);
-
-                // Добавляем эффект при наведении
-                seatButton.setOnMouseEntered(e -> {
-                    String currentStyle = seatButton.getStyle();
-                    // Добавляем тень только если еще нет эффекта
-                    if (!currentStyle.contains("dropshadow")) {
-                        seatButton.setStyle(currentStyle +
-                                "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.3), 5, 0, 0, 0);");
-                    }
-                });
-
-                seatButton.setOnMouseExited(e -> {
-                    // Восстанавливаем оригинальный стиль в зависимости от состояния выбора
-                    boolean currentlySelected = selectedSeatIds.contains(seat.getSeatId());
-                    updateSeatButtonStyle(seatButton, currentlySelected, color);
-                });
+        // Узлы мест переиспользуются, меняется только состояние изменившихся мест
+        seatMap.show(layout, taken, new BitSet(), currentPrices);
+    }
 
-                GridPane.setHalignment(seatButton, HPos.CENTER);
-                GridPane.setValignment(seatButton, VPos.CENTER);
-                seatGrid.add(seatButton, colIdx + 1, rowIdx + 2);
-            }
+    // Занятость изменилась на других кассах: перекрашиваем открытую схему без запроса к БД
+    private void onOccupancyChanged(Set<Integer> showtimeIds) {
+        if (selectedShowtime == null || currentLayout == null
+                || !showtimeIds.contains(selectedShowtime.getShowtimeId())) {
+            return;
         }
 
-        seatGrid.setPadding(new Insets(15));
-        seatGrid.setHgap(5);
-        seatGrid.setVgap(5);
+        int showtimeId = selectedShowtime.getShowtimeId();
+        if (!seatIndex.isLoaded(showtimeId)) {
+            renderSeats();
+            return;
+        }
 
-        int preferredWidth = (maxCol + 1) * 40 + 30;
-        int preferredHeight = (maxRow + 2) * 40 + 30;
-        seatGrid.setPrefSize(preferredWidth, preferredHeight);
-    }
+        BitSet taken = seatIndex.getTakenSnapshot(showtimeId);
+        currentTaken = taken;
 
-    // Вспомогательный метод для обновления стиля кнопки места
-    private void updateSeatButtonStyle(Button seatButton, boolean isSelected, String color) {
-        if (isSelected) {
-            // ВЫБРАНО - РОЗОВЫЙ
-            seatButton.setStyle("-fx-background-color: #ff66b2; -fx-text-fill: white; " +
-                    "-fx-background-radius: 6; -fx-font-weight: bold; " +
-                    "-fx-border-color: #ff3385; -fx-border-width: 2;");
-        } else {
-            // СВОБОДНО - обычный цвет категории
-            seatButton.setStyle("-fx-background-color: " + color + "; -fx-text-fill: white; " +
-                    "-fx-background-radius: 6; -fx-font-weight: bold;");
+        // Места, которые успели занять на другой кассе, снимаем с выбора
+        selectedSeatIds.removeIf(seatId -> {
+            int ordinal = currentLayout.ordinalOf(seatId);
+            return ordinal < 0 || taken.get(ordinal);
+        });
+        BitSet selected = new BitSet();
+        for (int seatId : selectedSeatIds) {
+            selected.set(currentLayout.ordinalOf(seatId));
         }
+
+        seatMap.show(currentLayout, taken, selected, currentPrices);
+        updateShowtimeInfo();
+        updateTotalSelected();
     }
 
-    private void toggleSeatSelection(int seatId, Button seatButton, String seatColor) {
-        Seat seat = getSeatById(seatId);
-        if (seat == null) return;
+    private void toggleSeatSelection(int seatId) {
+        if (currentLayout == null || currentLayout.ordinalOf(seatId) < 0) return;
 
         if (selectedSeatIds.contains(seatId)) {
             // Снимаем выделение
@@ -628,25 +587,21 @@ public class CashierController implements Initializable {
             selectedSeatIds.add(seatId);
         }
 
-        // Обновляем стиль кнопки
-        boolean isSelected = selectedSeatIds.contains(seatId);
-        updateSeatButtonStyle(seatButton, isSelected, seatColor);
+        // Обновляем состояние кнопки
+        seatMap.setSelected(seatId, selectedSeatIds.contains(seatId));
 
         updateTotalSelected();
     }
 
-    private Seat getSeatById(int seatId) {
-        List<Seat> seats = showtimeDAO.getSeatsForShowtime(selectedShowtime.getShowtimeId());
-        return seats.stream()
-                .filter(s -> s.getSeatId() == seatId)
-                .findFirst()
-                .orElse(null);
-    }
-
     private void updateTotalSelected() {
         int count = selectedSeatIds.size();
-        double pricePerTicket = selectedShowtime != null ? selectedShowtime.getFinalPrice() : 0;
-        double total = count * pricePerTicket;
+        // Цена у каждого места своя (категория), сумма — по таблице цен сеанса без запросов к БД
+        double total = 0;
+        if (hasCurrentPrices()) {
+            for (int seatId : selectedSeatIds) {
+                total += currentPrices.getSeatPrice(seatId, false);
+            }
+        }
 
         totalSelectedLabel.setText(String.format("Выбрано: %d мест | Итого: %.2f руб.", count, total));
 
@@ -665,35 +620,32 @@ public class CashierController implements Initializable {
         try {
             validateSaleForm();
 
-            List<Ticket> soldTickets = new ArrayList<>();
-
-            for (Integer seatId : selectedSeatIds) {
-                Ticket ticket = bookingService.sellTicket(
-                        selectedShowtime.getShowtimeId(),
-                        seatId,
-                        currentUser.getUserId(),
-                        customerNameField.getText().trim(),
-                        customerPhoneField.getText().trim(),
-                        customerEmailField.getText().trim()
-                );
+            int showtimeId = selectedShowtime.getShowtimeId();
+            List<Integer> seatIds = new ArrayList<>(selectedSeatIds);
+            int userId = currentUser.getUserId();
+            String name = customerNameField.getText().trim();
+            String phone = customerPhoneField.getText().trim();
+            String email = customerEmailField.getText().trim();
+            int paymentMethodId = getPaymentMethodId(paymentMethodCombo.getValue());
 
-                if (ticket != null) {
-                    soldTickets.add(ticket);
+            setSaleButtonsBusy(true);
+            uiTasks.submit(() -> bookingService.sellTickets(
+                    showtimeId, seatIds, userId, name, phone, email, paymentMethodId
+            ), soldTickets -> {
+                setSaleButtonsBusy(false);
+                if (!soldTickets.isEmpty()) {
+                    showAlert("Успех",
+                            String.format("Продано %d билетов. Номера: %s",
+                                    soldTickets.size(),
+                                    soldTickets.stream()
+                                            .map(t -> "#" + t.getTicketId())
+                                            .collect(Collectors.joining(", "))),
+                            Alert.AlertType.INFORMATION);
+
+                    clearSaleForm();
+                    reloadData();
                 }
-            }
-
-            if (!soldTickets.isEmpty()) {
-                showAlert("Успех",
-                        String.format("Продано %d билетов. Номера: %s",
-                                soldTickets.size(),
-                                soldTickets.stream()
-                                        .map(t -> "#" + t.getTicketId())
-                                        .collect(Collectors.joining(", "))),
-                        Alert.AlertType.INFORMATION);
-
-                clearSaleForm();
-                reloadData();
-            }
+            }, e -> onSaleFailed(e, showtimeId));
 
         } catch (Exception e) {
             logger.error("Ошибка при продаже билетов: {}", e.getMessage());
@@ -705,35 +657,31 @@ public class CashierController implements Initializable {
         try {
             validateSaleForm();
 
-            List<Ticket> bookedTickets = new ArrayList<>();
-
-            for (Integer seatId : selectedSeatIds) {
-                Ticket ticket = bookingService.bookTicket(
-                        selectedShowtime.getShowtimeId(),
-                        seatId,
-                        currentUser.getUserId(),
-                        customerNameField.getText().trim(),
-                        customerPhoneField.getText().trim(),
-                        customerEmailField.getText().trim()
-                );
-
-                if (ticket != null) {
-                    bookedTickets.add(ticket);
+            int showtimeId = selectedShowtime.getShowtimeId();
+            List<Integer> seatIds = new ArrayList<>(selectedSeatIds);
+            int userId = currentUser.getUserId();
+            String name = customerNameField.getText().trim();
+            String phone = customerPhoneField.getText().trim();
+            String email = customerEmailField.getText().trim();
+
+            setSaleButtonsBusy(true);
+            uiTasks.submit(() -> bookingService.bookTickets(
+                    showtimeId, seatIds, userId, name, phone, email
+            ), bookedTickets -> {
+                setSaleButtonsBusy(false);
+                if (!bookedTickets.isEmpty()) {
+                    showAlert("Успех",
+                            String.format("Создано %d бронирований. Номера: %s",
+                                    bookedTickets.size(),
+                                    bookedTickets.stream()
+                                            .map(t -> "#" + t.getTicketId())
+                                            .collect(Collectors.joining(", "))),
+                            Alert.AlertType.INFORMATION);
+
+                    clearSaleForm();
+                    reloadData();
                 }
-            }
-
-            if (!bookedTickets.isEmpty()) {
-                showAlert("Успех",
-                        String.format("Создано %d бронирований. Номера: %s",
-                                bookedTickets.size(),
-                                bookedTickets.stream()
-                                        .map(t -> "#" + t.getTicketId())
-                                        .collect(Collectors.joining(", "))),
-                        Alert.AlertType.INFORMATION);
-
-                clearSaleForm();
-                reloadData();
-            }
+            }, e -> onSaleFailed(e, showtimeId));
 
         } catch (Exception e) {
             logger.error("Ошибка при бронировании: {}", e.getMessage());
@@ -741,8 +689,19 @@ public class CashierController implements Initializable {
         }
     }
 
+    // Место заняли с другой кассы — снимаем с выбора только его, остальной выбор сохраняем
+    private void onSaleFailed(Throwable e, int showtimeId) {
+        setSaleButtonsBusy(false);
+        if (e instanceof SeatAlreadyTakenException) {
+            showAlert("Место занято", e.getMessage() + ". Выберите другое место", Alert.AlertType.WARNING);
+            onOccupancyChanged(Set.of(showtimeId));
+            return;
+        }
+        showAlert("Ошибка", e.getMessage(), Alert.AlertType.ERROR);
+        renderSeats();
+    }
+
     private void reloadData() {
-        loadAllShowtimes();
         loadFilmsForDate(selectedDate);
         loadActiveBookings();
         if (selectedShowtime != null) {
@@ -750,16 +709,27 @@ public class CashierController implements Initializable {
         }
     }
 
+    // Блокируем кнопки на время выполнения продажи, чтобы не отправить заказ дважды
+    private void setSaleButtonsBusy(boolean busy) {
+        if (busy) {
+            sellTicketButton.setDisable(true);
+            bookTicketButton.setDisable(true);
+        } else {
+            updateTotalSelected();
+        }
+    }
+
     private void validateSaleForm() {
         if (selectedShowtime == null) throw new IllegalArgumentException("Выберите сеанс");
         if (selectedSeatIds.isEmpty()) throw new IllegalArgumentException("Выберите места");
         if (customerNameField.getText().trim().isEmpty()) throw new IllegalArgumentException("Введите имя клиента");
         if (customerPhoneField.getText().trim().isEmpty()) throw new IllegalArgumentException("Введите телефон");
 
-        // Проверяем, что выбранные места еще свободны
-        List<Integer> takenSeats = showtimeDAO.getTakenSeats(selectedShowtime.getShowtimeId());
+        // Проверяем по снимку открытой схемы, что выбранные места еще свободны; окончательно — уникальный ключ в БД
+        if (!hasCurrentSeatMap()) throw new IllegalArgumentException("Схема зала еще не загружена");
         for (Integer seatId : selectedSeatIds) {
-            if (takenSeats.contains(seatId)) {
+            int ordinal = currentLayout.ordinalOf(seatId);
+            if (ordinal < 0 || currentTaken.get(ordinal)) {
                 throw new IllegalArgumentException("Место #" + seatId + " уже занято");
             }
         }
@@ -775,17 +745,41 @@ public class CashierController implements Initializable {
                 selectedShowtime.getDateTime().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")));
         selectedHallLabel.setText("Зал: " + selectedShowtime.getHallName());
 
-        int totalSeats = showtimeDAO.getSeatsForShowtime(selectedShowtime.getShowtimeId()).size();
-        int takenSeats = showtimeDAO.getTakenSeats(selectedShowtime.getShowtimeId()).size();
-        int freeSeats = totalSeats - takenSeats;
+        if (!hasCurrentSeatMap()) {
+            selectedPriceLabel.setText("Цена: — | Свободно: —");
+            return;
+        }
+        int totalSeats = currentLayout.getSeatCount();
+        int freeSeats = totalSeats - currentTaken.cardinality();
 
-        selectedPriceLabel.setText(String.format("Цена: %.2f руб. | Свободно: %d/%d",
-                selectedShowtime.getFinalPrice(), freeSeats, totalSeats));
+        selectedPriceLabel.setText(String.format("Цена: %s | Свободно: %d/%d",
+                formatPriceRange(), freeSeats, totalSeats));
+    }
+
+    private boolean hasCurrentPrices() {
+        return currentPrices != null && selectedShowtime != null
+                && currentPrices.getShowtimeId() == selectedShowtime.getShowtimeId();
+    }
+
+    // Схема и занятость загружены для выбранного сеанса (ставятся вместе с таблицей цен в loadSeats)
+    private boolean hasCurrentSeatMap() {
+        return hasCurrentPrices() && currentLayout != null && currentTaken != null;
+    }
+
+    private String formatPriceRange() {
+        if (!hasCurrentPrices()) {
+            return "—";
+        }
+        if (currentPrices.getMinPrice() == currentPrices.getMaxPrice()) {
+            return String.format("%.2f руб.", currentPrices.getMinPrice());
+        }
+        return String.format("%.2f–%.2f руб.", currentPrices.getMinPrice(), currentPrices.getMaxPrice());
     }
 
     private void clearFilmSelection() {
         selectedFilm = null;
         selectedShowtime = null;
+        currentPrices = null;
         selectedSeatIds.clear();
 
         selectedFilmLabel.setText("Фильм: ");
@@ -793,12 +787,13 @@ public class CashierController implements Initializable {
         selectedHallLabel.setText("Зал: ");
         selectedPriceLabel.setText("Цена: ");
 
-        seatGrid.getChildren().clear();
+        seatMap.clear();
         updateTotalSelected();
     }
 
     private void clearShowtimeSelection() {
         selectedShowtime = null;
+        currentPrices = null;
         selectedSeatIds.clear();
 
         selectedFilmLabel.setText("Фильм: ");
@@ -806,7 +801,7 @@ public class CashierController implements Initializable {
         selectedHallLabel.setText("Зал: ");
         selectedPriceLabel.setText("Цена: ");
 
-        seatGrid.getChildren().clear();
+        seatMap.clear();
         updateTotalSelected();
     }
 
@@ -825,7 +820,7 @@ public class CashierController implements Initializable {
     // ===================== ОСТАЛЬНЫЕ МЕТОДЫ =====================
 
     private void confirmBooking() {
-        Ticket selectedBooking = bookingsTable.getSelectionModel().getSelectedItem();
+        TicketSummary selectedBooking = bookingsTable.getSelectionModel().getSelectedItem();
         if (selectedBooking == null) {
             showAlert("Предупреждение", "Выберите бронирование", Alert.AlertType.WARNING);
             return;
@@ -833,17 +828,18 @@ public class CashierController implements Initializable {
 
         try {
             int paymentMethodId = getPaymentMethodId(paymentMethodCombo.getValue());
+            int userId = currentUser.getUserId();
 
-            if (bookingService.confirmBooking(
-                    selectedBooking.getTicketId(),
-                    currentUser.getUserId(),
-                    paymentMethodId)) {
-
-                showAlert("Успех", "Бронирование подтверждено", Alert.AlertType.INFORMATION);
-                reloadData();
-            } else {
-                showAlert("Ошибка", "Не удалось подтвердить", Alert.AlertType.ERROR);
-            }
+            uiTasks.submit(() -> bookingService.confirmBooking(
+                    selectedBooking.getTicketId(), userId, paymentMethodId
+            ), confirmed -> {
+                if (confirmed) {
+                    showAlert("Успех", "Бронирование подтверждено", Alert.AlertType.INFORMATION);
+                    reloadData();
+                } else {
+                    showAlert("Ошибка", "Не удалось подтвердить", Alert.AlertType.ERROR);
+                }
+            }, e -> showAlert("Ошибка", e.getMessage(), Alert.AlertType.ERROR));
 
         } catch (Exception e) {
             logger.error("Ошибка подтверждения: {}", e.getMessage());
@@ -852,7 +848,7 @@ public class CashierController implements Initializable {
     }
 
     private void cancelBooking() {
-        Ticket selectedBooking = bookingsTable.getSelectionModel().getSelectedItem();
+        TicketSummary selectedBooking = bookingsTable.getSelectionModel().getSelectedItem();
         if (selectedBooking == null) {
             showAlert("Предупреждение", "Выберите бронирование", Alert.AlertType.WARNING);
             return;
@@ -864,25 +860,30 @@ public class CashierController implements Initializable {
 
         confirm.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                if (ticketDAO.updateTicketStatus(
-                        selectedBooking.getTicketId(),
-                        DatabaseConfig.TicketStatus.REFUND)) {
-
-                    showAlert("Успех", "Бронирование отменено", Alert.AlertType.INFORMATION);
-                    reloadData();
-                } else {
-                    showAlert("Ошибка", "Не удалось отменить", Alert.AlertType.ERROR);
-                }
+                uiTasks.submit(() -> bookingService.cancelBooking(selectedBooking), cancelled -> {
+                    if (cancelled) {
+                        showAlert("Успех", "Бронирование отменено", Alert.AlertType.INFORMATION);
+                        reloadData();
+                    } else {
+                        showAlert("Ошибка", "Не удалось отменить: бронирование уже оплачено, снято или БД недоступна",
+                                Alert.AlertType.ERROR);
+                        loadActiveBookings();
+                    }
+                });
             }
         });
     }
 
     private void searchCustomers() {
+        customerSearchDebounce.stop();
         String text = customerSearchField.getText().trim();
         if (text.isEmpty()) {
             loadCustomers();
         } else {
-            customersList.setAll(customerDAO.searchCustomers(text));
+            uiTasks.submit("cashier.customers", () -> customerSearch.search(text, CUSTOMER_SEARCH_LIMIT), customers -> {
+                customersList.setAll(customers);
+                customersTable.setItems(customersList);
+            });
         }
     }
 
@@ -902,14 +903,17 @@ public class CashierController implements Initializable {
 
             confirm.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.OK) {
-                    if (bookingService.refundTicket(ticketId, currentUser.getUserId())) {
-                        showAlert("Успех", "Возврат оформлен", Alert.AlertType.INFORMATION);
-                        refundTicketIdField.clear();
-                        refundReasonField.clear();
-                        reloadData();
-                    } else {
-                        showAlert("Ошибка", "Не удалось оформить возврат", Alert.AlertType.ERROR);
-                    }
+                    int userId = currentUser.getUserId();
+                    uiTasks.submit(() -> bookingService.refundTicket(ticketId, userId), refunded -> {
+                        if (refunded) {
+                            showAlert("Успех", "Возврат оформлен", Alert.AlertType.INFORMATION);
+                            refundTicketIdField.clear();
+                            refundReasonField.clear();
+                            reloadData();
+                        } else {
+                            showAlert("Ошибка", "Не удалось оформить возврат", Alert.AlertType.ERROR);
+                        }
+                    }, e -> showAlert("Ошибка", e.getMessage(), Alert.AlertType.ERROR));
                 }
             });
 
@@ -919,12 +923,11 @@ public class CashierController implements Initializable {
     }
 
     private int getPaymentMethodId(String methodName) {
-        switch (methodName) {
-            case "Банковская карта": return 1;
-            case "Наличные": return 2;
-            case "СБП": return 3;
-            default: return 1;
-        }
+        return referenceData.getPaymentMethods().values().stream()
+                .filter(method -> method.getName().equals(methodName))
+                .mapToInt(PaymentMethod::getMethodId)
+                .findFirst()
+                .orElse(1);
     }
 
     private void startClock() {
@@ -937,16 +940,43 @@ public class CashierController implements Initializable {
         clock.play();
     }
 
+    // Истекшие брони снимает BookingExpiryScheduler; здесь только обновляем оставшееся время в списке
     private void startBookingTimer() {
-        Timeline timer = new Timeline(new KeyFrame(Duration.minutes(1), e -> {
-            loadActiveBookings();
-            bookingService.cancelExpiredBookings();
-        }));
+        Timeline timer = new Timeline(new KeyFrame(Duration.minutes(1), e -> loadActiveBookings()));
 
         timer.setCycleCount(Timeline.INDEFINITE);
         timer.play();
     }
 
+    private void onBookingsExpired(Set<Integer> showtimeIds) {
+        loadActiveBookings();
+        onOccupancyChanged(showtimeIds);
+    }
+
+    // Схема зала, снимок занятости и таблица цен сеанса для отрисовки
+    private static final class SeatMapState {
+        private final HallLayout layout;
+        private final BitSet taken;
+        private final PriceTable prices;
+
+        SeatMapState(HallLayout layout, BitSet taken, PriceTable prices) {
+            this.layout = layout;
+            this.taken = taken;
+            this.prices = prices;
+        }
+    }
+
+    // Сеансы дня вместе со сводкой свободных мест
+    private static final class DaySchedule {
+        private final List<Showtime> showtimes;
+        private final Map<Integer, ShowtimeOccupancy> occupancy;
+
+        DaySchedule(List<Showtime> showtimes, Map<Integer, ShowtimeOccupancy> occupancy) {
+            this.showtimes = showtimes;
+            this.occupancy = occupancy;
+        }
+    }
+
     private void showAlert(String title, String message, Alert.AlertType type) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
@@ -957,6 +987,8 @@ public class CashierController implements Initializable {
 
     @FXML
     private void handleLogout() {
+        occupancyFeed.removeListener(occupancyListener);
+        expiryScheduler.removeListener(expiryListener);
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/cinema/fxml/login.fxml"));
             Parent root = loader.load();
@@ -1,7 +1,10 @@
 package com.cinema.cinemamanagementsystem.controllers;
 
 import com.cinema.cinemamanagementsystem.dao.FilmDAO;
+import com.cinema.cinemamanagementsystem.dao.ReferenceDataCache;
 import com.cinema.cinemamanagementsystem.models.Film;
+import com.cinema.cinemamanagementsystem.models.Genre;
+import com.cinema.cinemamanagementsystem.services.UiTaskExecutor;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -47,7 +50,10 @@ public class FilmManagementController implements Initializable {
 
     private Stage stage;
     private final FilmDAO filmDAO = new FilmDAO();
+    private final UiTaskExecutor uiTasks = UiTaskExecutor.getInstance();
+    private final ReferenceDataCache referenceData = ReferenceDataCache.getInstance();
     private ObservableList<Film> filmsList = FXCollections.observableArrayList();
+    private List<Film> allFilms = List.of();
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -90,11 +96,8 @@ public class FilmManagementController implements Initializable {
     private void setupFilters() {
         // Заполняем фильтр жанров
         genreFilter.getItems().add("Все жанры");
-        genreFilter.getItems().addAll(
-                "Фантастика", "Драма", "Боевик", "Комедия", "Ужасы",
-                "Фэнтези", "Анимация", "Исторический", "Триллер", "Документальный"
-        );
         genreFilter.setValue("Все жанры");
+        uiTasks.submit(referenceData::getGenres, genres -> genreFilter.getItems().addAll(genreNames()));
 
         // Поиск при вводе текста
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
@@ -113,8 +116,10 @@ public class FilmManagementController implements Initializable {
     }
 
     private void loadFilms() {
-        filmsList.setAll(filmDAO.getAllFilms());
-        updateStatusLabel();
+        uiTasks.submit("films.all", filmDAO::getAllFilms, films -> {
+            allFilms = films;
+            filterFilms();
+        });
     }
 
     private void filterFilms() {
@@ -123,11 +128,12 @@ public class FilmManagementController implements Initializable {
 
         if ((searchText.isEmpty() || searchText.isBlank()) &&
                 "Все жанры".equals(selectedGenre)) {
-            loadFilms();
+            filmsList.setAll(allFilms);
+            updateStatusLabel();
             return;
         }
 
-        List<Film> allFilms = filmDAO.getAllFilms();
+        // Фильтруем уже загруженный список, без повторного запроса на каждое нажатие клавиши
         List<Film> filtered = allFilms.stream()
                 .filter(film -> {
                     boolean matchesSearch = searchText.isEmpty() ||
@@ -164,10 +170,7 @@ public class FilmManagementController implements Initializable {
         titleField.setPromptText("Название фильма");
 
         ComboBox<String> genreCombo = new ComboBox<>();
-        genreCombo.getItems().addAll(
-                "Фантастика", "Драма", "Боевик", "Комедия", "Ужасы",
-                "Фэнтези", "Анимация", "Исторический", "Триллер", "Документальный"
-        );
+        genreCombo.getItems().addAll(genreNames());
         genreCombo.setPromptText("Выберите жанр");
 
         TextField durationField = new TextField();
@@ -225,14 +228,14 @@ public class FilmManagementController implements Initializable {
             return null;
         });
 
-        dialog.showAndWait().ifPresent(film -> {
-            if (filmDAO.addFilm(film)) {
+        dialog.showAndWait().ifPresent(film -> uiTasks.submit(() -> filmDAO.addFilm(film), added -> {
+            if (added) {
                 showAlert("Успех", "Фильм успешно добавлен", Alert.AlertType.INFORMATION);
                 loadFilms();
             } else {
                 showAlert("Ошибка", "Не удалось добавить фильм", Alert.AlertType.ERROR);
             }
-        });
+        }));
     }
 
     @FXML
@@ -254,10 +257,7 @@ public class FilmManagementController implements Initializable {
 
         TextField titleField = new TextField(selected.getTitle());
         ComboBox<String> genreCombo = new ComboBox<>();
-        genreCombo.getItems().addAll(
-                "Фантастика", "Драма", "Боевик", "Комедия", "Ужасы",
-                "Фэнтези", "Анимация", "Исторический", "Триллер", "Документальный"
-        );
+        genreCombo.getItems().addAll(genreNames());
         genreCombo.setValue(selected.getGenreName());
 
         TextField durationField = new TextField(String.valueOf(selected.getDuration()));
@@ -297,14 +297,14 @@ public class FilmManagementController implements Initializable {
             return null;
         });
 
-        dialog.showAndWait().ifPresent(film -> {
-            if (filmDAO.updateFilm(film)) {
+        dialog.showAndWait().ifPresent(film -> uiTasks.submit(() -> filmDAO.updateFilm(film), updated -> {
+            if (updated) {
                 showAlert("Успех", "Фильм успешно обновлен", Alert.AlertType.INFORMATION);
                 loadFilms();
             } else {
                 showAlert("Ошибка", "Не удалось обновить фильм", Alert.AlertType.ERROR);
             }
-        });
+        }));
     }
 
     @FXML
@@ -322,12 +322,14 @@ public class FilmManagementController implements Initializable {
 
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                if (filmDAO.deleteFilm(selected.getFilmId())) {
-                    showAlert("Успех", "Фильм успешно удален", Alert.AlertType.INFORMATION);
-                    loadFilms();
-                } else {
-                    showAlert("Ошибка", "Не удалось удалить фильм", Alert.AlertType.ERROR);
-                }
+                uiTasks.submit(() -> filmDAO.deleteFilm(selected.getFilmId()), deleted -> {
+                    if (deleted) {
+                        showAlert("Успех", "Фильм успешно удален", Alert.AlertType.INFORMATION);
+                        loadFilms();
+                    } else {
+                        showAlert("Ошибка", "Не удалось удалить фильм", Alert.AlertType.ERROR);
+                    }
+                });
             }
         });
     }
@@ -388,22 +390,19 @@ public class FilmManagementController implements Initializable {
         }
     }
 
+    // Жанры из справочника (к моменту открытия диалога уже загружены фильтром)
+    private List<String> genreNames() {
+        return referenceData.getGenres().values().stream()
+                .map(Genre::getName)
+                .collect(Collectors.toList());
+    }
+
     private int getGenreIdFromName(String genreName) {
-        // В реальной системе здесь должно быть преобразование названия в ID
-        // Временная реализация
-        switch (genreName) {
-            case "Фантастика": return 1;
-            case "Драма": return 3;
-            case "Боевик": return 4;
-            case "Комедия": return 28; // Используем существующий ID
-            case "Ужасы": return 5;
-            case "Фэнтези": return 6;
-            case "Анимация": return 7;
-            case "Исторический": return 8;
-            case "Триллер": return 9;
-            case "Документальный": return 10;
-            default: return 1;
-        }
+        return referenceData.getGenres().values().stream()
+                .filter(genre -> genre.getName().equals(genreName))
+                .mapToInt(Genre::getGenreId)
+                .findFirst()
+                .orElse(1);
     }
 
     private void validateForm(Node button, TextField titleField,
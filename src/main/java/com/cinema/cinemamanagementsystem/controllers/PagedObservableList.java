@@ -0,0 +1,205 @@
+package com.cinema.cinemamanagementsystem.controllers;
+
+import com.cinema.cinemamanagementsystem.services.UiTaskExecutor;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Список для TableView, который подгружает строки страницами по мере прокрутки.
+ * Следующая страница запрашивается, когда таблица обращается к строкам у конца загруженного,
+ * страница продолжается после последней строки предыдущей (keyset), поэтому таблица
+ * открывается одним запросом независимо от числа строк в БД.
+ * В памяти держится не больше MAX_LOADED_PAGES страниц: дальние от видимой выгружаются
+ * и перечитываются при возврате к ним (пока страница грузится, строки пустые).
+ * Список только для чтения: сортировать его нельзя, порядок задает запрос страниц.
+ * Все методы вызываются из потока JavaFX.
+ */
+public class PagedObservableList<T> extends ObservableListBase<T> {
+
+    /**
+     * Загрузка страницы: after — последняя строка предыдущей страницы (null — первая).
+     * Пустой список — конец данных; null или исключение — ошибка загрузки
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        List<T> load(T after, int limit) throws Exception;
+    }
+
+    private static final int MAX_LOADED_PAGES = 10;
+    // После ошибки следующая страница запрашивается не раньше, чем через это время
+    private static final long RETRY_DELAY_MS = 5000;
+
+    private final UiTaskExecutor uiTasks = UiTaskExecutor.getInstance();
+    private final PageLoader<T> loader;
+    private final int pageSize;
+
+    // Строки страниц (null — страница выгружена) и последняя строка каждой страницы
+    private final List<List<T>> pages = new ArrayList<>();
+    private final List<T> pageTails = new ArrayList<>();
+    private final List<Integer> pagesInFlight = new ArrayList<>();
+
+    private int size;
+    private int loadedPages;
+    private boolean hasMore = true;
+    private boolean loadingNext;
+    private long retryAt;
+    private int generation;
+    private Consumer<Throwable> onError;
+
+    public PagedObservableList(PageLoader<T> loader, int pageSize) {
+        this.loader = loader;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Обработчик ошибки загрузки страницы (в потоке JavaFX)
+     */
+    public void setOnError(Consumer<Throwable> onError) {
+        this.onError = onError;
+    }
+
+    /**
+     * Сбросить загруженные страницы и запросить первую
+     */
+    public void reload() {
+        generation++;
+        List<T> removed = new ArrayList<>(Collections.nCopies(size, null));
+        pages.clear();
+        pageTails.clear();
+        pagesInFlight.clear();
+        size = 0;
+        loadedPages = 0;
+        hasMore = true;
+        loadingNext = false;
+        retryAt = 0;
+
+        if (!removed.isEmpty()) {
+            beginChange();
+            nextRemove(0, removed);
+            endChange();
+        }
+        loadNextPage();
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        // Таблица дошла до последней страницы — запрашиваем следующую заранее
+        if (hasMore && index >= size - pageSize / 2) {
+            loadNextPage();
+        }
+
+        int page = index / pageSize;
+        List<T> rows = pages.get(page);
+        if (rows == null) {
+            reloadPage(page);
+            return null;
+        }
+        evictFarFrom(page);
+        return rows.get(index % pageSize);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void loadNextPage() {
+        if (loadingNext || !hasMore || System.currentTimeMillis() < retryAt) {
+            return;
+        }
+        loadingNext = true;
+
+        int expectedGeneration = generation;
+        T after = pageTails.isEmpty() ? null : pageTails.get(pageTails.size() - 1);
+        uiTasks.submit(() -> loadPage(after), rows -> {
+            if (expectedGeneration != generation) {
+                return;
+            }
+            loadingNext = false;
+            hasMore = rows.size() == pageSize;
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            int from = size;
+            pages.add(new ArrayList<>(rows));
+            pageTails.add(rows.get(rows.size() - 1));
+            size += rows.size();
+            loadedPages++;
+
+            beginChange();
+            nextAdd(from, size);
+            endChange();
+        }, error -> {
+            if (expectedGeneration == generation) {
+                // Ошибка БД — не конец данных: hasMore остается, повтор после паузы
+                loadingNext = false;
+                retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+                if (onError != null) {
+                    onError.accept(error);
+                }
+            }
+        });
+    }
+
+    // Перечитать выгруженную страницу от последней строки предыдущей
+    private void reloadPage(int page) {
+        if (pagesInFlight.contains(page)) {
+            return;
+        }
+        pagesInFlight.add(page);
+
+        int expectedGeneration = generation;
+        T after = page == 0 ? null : pageTails.get(page - 1);
+        uiTasks.submit(() -> loadPage(after), rows -> {
+            if (expectedGeneration != generation) {
+                return;
+            }
+            pagesInFlight.remove(Integer.valueOf(page));
+
+            // Строки могли добавиться или удалиться — берем не больше, чем было на странице
+            int from = page * pageSize;
+            int count = Math.min(pageSize, size - from);
+            List<T> loaded = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                loaded.add(i < rows.size() ? rows.get(i) : null);
+            }
+            pages.set(page, loaded);
+            loadedPages++;
+
+            beginChange();
+            nextReplace(from, from + count, new ArrayList<>(Collections.nCopies(count, null)));
+            endChange();
+            evictFarFrom(page);
+        }, error -> pagesInFlight.remove(Integer.valueOf(page)));
+    }
+
+    private List<T> loadPage(T after) throws Exception {
+        List<T> rows = loader.load(after, pageSize);
+        if (rows == null) {
+            throw new IllegalStateException("Не удалось загрузить страницу");
+        }
+        return rows;
+    }
+
+    // Выгрузить самые дальние от текущей страницы, если загружено слишком много
+    private void evictFarFrom(int currentPage) {
+        int low = 0;
+        int high = pages.size() - 1;
+        while (loadedPages > MAX_LOADED_PAGES && low <= high) {
+            int farthest = (currentPage - low >= high - currentPage) ? low++ : high--;
+            if (farthest != currentPage && pages.get(farthest) != null) {
+                pages.set(farthest, null);
+                loadedPages--;
+            }
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package com.cinema.cinemamanagementsystem.controllers;
 
+import com.cinema.cinemamanagementsystem.models.DailySales;
+import com.cinema.cinemamanagementsystem.models.FilmPopularity;
+import com.cinema.cinemamanagementsystem.models.HallOccupancy;
+import com.cinema.cinemamanagementsystem.services.ExportProgress;
 import com.cinema.cinemamanagementsystem.services.ReportService;
 import com.cinema.cinemamanagementsystem.services.PaymentService;
+import com.cinema.cinemamanagementsystem.services.UiTaskExecutor;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -15,14 +21,24 @@ import org.slf4j.LoggerFactory;
 import javafx.print.PrinterJob;
 import java.io.File;
 import java.net.URL;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
 
 public class ReportController implements Initializable {
     private static final Logger logger = LoggerFactory.getLogger(ReportController.class);
 
+    // Фильмов на круговой диаграмме отдельными секторами
+    private static final int PIE_FILMS = 5;
+
     // Компоненты UI
     @FXML private DatePicker startDatePicker;
     @FXML private DatePicker endDatePicker;
@@ -30,6 +46,8 @@ public class ReportController implements Initializable {
     @FXML private Button generateButton;
     @FXML private Button exportButton;
     @FXML private Button printButton;
+    @FXML private ProgressBar exportProgressBar;
+    @FXML private Label exportStatusLabel;
 
     // Таблицы для разных отчетов
     @FXML private TableView<Map<String, Object>> salesTable;
@@ -41,16 +59,22 @@ public class ReportController implements Initializable {
     @FXML private BarChart<String, Number> salesChart;
     @FXML private PieChart filmsPieChart;
     @FXML private LineChart<String, Number> revenueChart;
+    @FXML private BarChart<String, Number> hallSlotChart;
 
     // Статистика
     @FXML private Label totalRevenueLabel;
     @FXML private Label totalTicketsLabel;
     @FXML private Label averageTicketLabel;
     @FXML private Label mostPopularFilmLabel;
+    @FXML private Label filmsModeLabel;
     @FXML private Label bestHallLabel;
+    @FXML private Button recommendationsButton;
 
     private final ReportService reportService = new ReportService();
     private final PaymentService paymentService = new PaymentService();
+    private final UiTaskExecutor uiTasks = UiTaskExecutor.getInstance();
+    private boolean exporting;
+    private List<String> scheduleRecommendations; // null — отчет по залам еще не строился
 
     private ObservableList<Map<String, Object>> salesData = FXCollections.observableArrayList();
     private ObservableList<Map<String, Object>> filmsData = FXCollections.observableArrayList();
@@ -84,6 +108,7 @@ public class ReportController implements Initializable {
         generateButton.setOnAction(e -> generateReport());
         exportButton.setOnAction(e -> exportReport());
         printButton.setOnAction(e -> printReport());
+        recommendationsButton.setOnAction(e -> showScheduleRecommendations());
 
         // Обработчик изменения типа отчета
         reportTypeComboBox.setOnAction(e -> updateReportView());
@@ -111,6 +136,95 @@ public class ReportController implements Initializable {
 
         salesTable.getColumns().addAll(dateColumn, ticketsColumn, revenueColumn);
         salesTable.setItems(salesData);
+
+        // Таблица популярности фильмов
+        TableColumn<Map<String, Object>, String> rankColumn = new TableColumn<>("Место");
+        rankColumn.setCellValueFactory(data ->
+                new javafx.beans.property.SimpleStringProperty(
+                        data.getValue().get("rank").toString()
+                ));
+
+        TableColumn<Map<String, Object>, String> filmColumn = new TableColumn<>("Фильм");
+        filmColumn.setCellValueFactory(data ->
+                new javafx.beans.property.SimpleStringProperty(
+                        data.getValue().get("title").toString()
+                ));
+
+        TableColumn<Map<String, Object>, String> filmTicketsColumn = new TableColumn<>("Билетов");
+        filmTicketsColumn.setCellValueFactory(data ->
+                new javafx.beans.property.SimpleStringProperty(
+                        data.getValue().get("tickets").toString()
+                ));
+
+        TableColumn<Map<String, Object>, String> filmRevenueColumn = new TableColumn<>("Выручка");
+        filmRevenueColumn.setCellValueFactory(data ->
+                new javafx.beans.property.SimpleStringProperty(
+                        String.format("%.2f руб.", data.getValue().get("revenue"))
+                ));
+
+        TableColumn<Map<String, Object>, String> occupancyColumn = new TableColumn<>("Заполняемость");
+        occupancyColumn.setCellValueFactory(data ->
+                new javafx.beans.property.SimpleStringProperty(
+                        data.getValue().get("occupancy").toString()
+                ));
+
+        filmsTable.getColumns().addAll(rankColumn, filmColumn, filmTicketsColumn, filmRevenueColumn, occupancyColumn);
+        filmsTable.setItems(filmsData);
+
+        // Таблица загрузки залов: итоги по залу и тепловая карта по дням недели
+        TableColumn<Map<String, Object>, String> hallColumn = new TableColumn<>("Зал");
+        hallColumn.setCellValueFactory(data ->
+                new javafx.beans.property.SimpleStringProperty(
+                        data.getValue().get("hall").toString()
+                ));
+
+        TableColumn<Map<String, Object>, String> showtimesColumn = new TableColumn<>("Сеансов");
+        showtimesColumn.setCellValueFactory(data ->
+                new javafx.beans.property.SimpleStringProperty(
+                        data.getValue().get("showtimes").toString()
+                ));
+
+        TableColumn<Map<String, Object>, String> takenColumn = new TableColumn<>("Занято мест");
+        takenColumn.setCellValueFactory(data ->
+                new javafx.beans.property.SimpleStringProperty(
+                        data.getValue().get("taken").toString()
+                ));
+
+        hallsTable.getColumns().addAll(hallColumn, showtimesColumn, takenColumn, fillColumn("Заполняемость", "fill"));
+        for (DayOfWeek weekday : DayOfWeek.values()) {
+            hallsTable.getColumns().add(fillColumn(
+                    weekday.getDisplayName(TextStyle.SHORT, new Locale("ru")), "day" + weekday.ordinal()));
+        }
+
+        TableColumn<Map<String, Object>, String> bestSlotColumn = new TableColumn<>("Лучшее время");
+        bestSlotColumn.setCellValueFactory(data ->
+                new javafx.beans.property.SimpleStringProperty(
+                        data.getValue().get("bestSlot").toString()
+                ));
+        hallsTable.getColumns().add(bestSlotColumn);
+        hallsTable.setItems(hallsData);
+    }
+
+    // Колонка доли заполняемости: процент и фон, тем насыщеннее, чем выше заполняемость; нет сеансов — пусто
+    private TableColumn<Map<String, Object>, Double> fillColumn(String title, String key) {
+        TableColumn<Map<String, Object>, Double> column = new TableColumn<>(title);
+        column.setCellValueFactory(data ->
+                new javafx.beans.property.SimpleObjectProperty<>((Double) data.getValue().get(key)));
+        column.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(Double fill, boolean empty) {
+                super.updateItem(fill, empty);
+                if (empty || fill == null) {
+                    setText(null);
+                    setStyle("");
+                    return;
+                }
+                setText(String.format("%.0f%%", fill * 100));
+                setStyle(String.format(Locale.ROOT, "-fx-background-color: rgba(46, 204, 113, %.2f);",
+                        Math.min(1.0, fill)));
+            }
+        });
+        return column;
     }
 
     private void setupCharts() {
@@ -198,29 +312,33 @@ public class ReportController implements Initializable {
         filmsPieChart.setVisible(false);
         revenueChart.setVisible(false);
 
-        // Получаем данные
-        Map<String, Object> report = reportService.generateSalesReport(startDate, endDate);
-
-        // Обновляем статистику
-        totalRevenueLabel.setText(String.format("%.2f руб.",
-                report.getOrDefault("totalRevenue", 0.0)));
-
-        // Здесь должна быть логика заполнения таблицы
-        // В реальной системе это будут данные из БД
-
-        // Пример данных
-        salesData.clear();
-        for (int i = 0; i < 10; i++) {
-            Map<String, Object> row = Map.of(
-                    "date", LocalDate.now().minusDays(i).toString(),
-                    "tickets", (int)(Math.random() * 100) + 50,
-                    "revenue", Math.random() * 50000 + 10000
-            );
-            salesData.add(row);
+        // Данные — из дневных агрегатов продаж, загружаются в фоне
+        uiTasks.submit("report", () -> reportService.generateSalesReport(startDate, endDate),
+                this::showSalesReport, this::showReportError);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void showSalesReport(Map<String, Object> report) {
+        totalRevenueLabel.setText(String.format("%.2f руб.", (double) report.getOrDefault("totalRevenue", 0.0)));
+        totalTicketsLabel.setText(String.valueOf(report.getOrDefault("ticketsSold", 0L)));
+        averageTicketLabel.setText(String.format("%.2f руб.", (double) report.getOrDefault("averageTicketPrice", 0.0)));
+
+        List<DailySales> dailySales = (List<DailySales>) report.getOrDefault("dailySales", Collections.emptyList());
+
+        // Новые дни сверху
+        List<Map<String, Object>> rows = new ArrayList<>(dailySales.size());
+        for (int i = dailySales.size() - 1; i >= 0; i--) {
+            DailySales day = dailySales.get(i);
+            rows.add(Map.of(
+                    "date", day.getDate().toString(),
+                    "tickets", day.getPaymentCount(),
+                    "revenue", day.getPaymentAmount()
+            ));
         }
+        salesData.setAll(rows);
 
-        // Обновляем график
-        updateSalesChart();
+        updateSalesChart(dailySales);
+        updateRevenueChart(dailySales);
     }
 
     private void generateFilmsReport(LocalDateTime startDate, LocalDateTime endDate) {
@@ -232,20 +350,53 @@ public class ReportController implements Initializable {
         filmsPieChart.setVisible(true);
         revenueChart.setVisible(false);
 
-        // Получаем данные
-        Map<String, Object> report = reportService.generateFilmPopularityReport(startDate, endDate);
+        // Рейтинг считается в фоне; за длинный период — по дневным агрегатам
+        uiTasks.submit("report", () -> reportService.generateFilmPopularityReport(startDate, endDate),
+                this::showFilmsReport, this::showReportError);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void showFilmsReport(Map<String, Object> report) {
+        List<FilmPopularity> films = (List<FilmPopularity>) report.getOrDefault("films", Collections.emptyList());
+        double totalRevenue = (double) report.getOrDefault("totalRevenue", 0.0);
+
+        // Режимы считают по разным датам — показываем, по какой построен рейтинг
+        filmsModeLabel.setText((boolean) report.getOrDefault("fromRollup", false)
+                ? "Длинный период: первые фильмы по дневным агрегатам, по дате платежа; заполняемость не считается"
+                : "По сеансам периода, по дате сеанса");
+
+        List<Map<String, Object>> rows = new ArrayList<>(films.size());
+        for (FilmPopularity film : films) {
+            rows.add(Map.of(
+                    "rank", film.getRank(),
+                    "title", film.getTitle(),
+                    "tickets", film.getTicketsSold(),
+                    "revenue", film.getRevenue(),
+                    "occupancy", film.hasOccupancy()
+                            ? String.format("%.1f%%", film.getAverageOccupancy() * 100) : "—"));
+        }
+        filmsData.setAll(rows);
 
-        // Обновляем круговую диаграмму
+        // Доли выручки: первые PIE_FILMS фильмов, остальное — одним сектором
         filmsPieChart.getData().clear();
-        filmsPieChart.getData().addAll(
-                new PieChart.Data("Интерстеллар", 25),
-                new PieChart.Data("Матрица", 20),
-                new PieChart.Data("Титаник", 15),
-                new PieChart.Data("Властелин колец", 12),
-                new PieChart.Data("Остальные", 28)
-        );
+        double shown = 0;
+        for (int i = 0; i < films.size() && i < PIE_FILMS; i++) {
+            FilmPopularity film = films.get(i);
+            filmsPieChart.getData().add(new PieChart.Data(film.getTitle(), film.getRevenue()));
+            shown += film.getRevenue();
+        }
+        if (totalRevenue - shown > 0.005) {
+            filmsPieChart.getData().add(new PieChart.Data("Остальные", totalRevenue - shown));
+        }
 
-        mostPopularFilmLabel.setText("Интерстеллар (25% продаж)");
+        FilmPopularity top = (FilmPopularity) report.get("mostPopularFilm");
+        if (top == null) {
+            mostPopularFilmLabel.setText("Нет данных");
+        } else {
+            mostPopularFilmLabel.setText(totalRevenue > 0
+                    ? String.format("%s (%.0f%% выручки)", top.getTitle(), top.getRevenue() / totalRevenue * 100)
+                    : top.getTitle());
+        }
     }
 
     private void generateHallsReport(LocalDateTime startDate, LocalDateTime endDate) {
@@ -257,10 +408,65 @@ public class ReportController implements Initializable {
         filmsPieChart.setVisible(false);
         revenueChart.setVisible(false);
 
-        Map<String, Object> report = reportService.generateHallOccupancyReport(startDate, endDate);
+        uiTasks.submit("report", () -> reportService.generateHallOccupancyReport(startDate, endDate),
+                this::showHallsReport, this::showReportError);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void showHallsReport(Map<String, Object> report) {
+        HallOccupancy occupancy = (HallOccupancy) report.get("occupancy");
+        scheduleRecommendations = (List<String>) report.getOrDefault("recommendations", Collections.emptyList());
+        hallsData.clear();
+        hallSlotChart.getData().clear();
+        if (occupancy == null) {
+            bestHallLabel.setText("Самый загруженный зал: нет данных");
+            return;
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>(occupancy.getHallCount());
+        for (int hall = 0; hall < occupancy.getHallCount(); hall++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("hall", occupancy.getHallName(hall));
+            row.put("showtimes", occupancy.getHallShowtimes(hall));
+            row.put("taken", occupancy.getHallTaken(hall));
+            row.put("fill", occupancy.getHallShowtimes(hall) > 0 ? occupancy.getHallFillRatio(hall) : null);
+            for (int day = 0; day < HallOccupancy.DAYS; day++) {
+                row.put("day" + day, occupancy.hasShowtimes(hall, day) ? occupancy.getDayFillRatio(hall, day) : null);
+            }
+            int bestSlot = occupancy.getBestSlot(hall);
+            row.put("bestSlot", bestSlot >= 0 ? String.format("%02d:00", bestSlot) : "—");
+            rows.add(row);
+        }
+        hallsData.setAll(rows);
+
+        // Заполняемость по часу начала во всех залах (только часы, в которые были сеансы)
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        series.setName("Заполняемость");
+        for (int slot = 0; slot < HallOccupancy.SLOTS; slot++) {
+            if (occupancy.getSlotShowtimes(slot) > 0) {
+                series.getData().add(new XYChart.Data<>(String.format("%02d:00", slot),
+                        occupancy.getSlotFillRatio(slot) * 100));
+            }
+        }
+        hallSlotChart.getData().add(series);
+
+        int bestHall = (int) report.getOrDefault("bestHall", -1);
+        bestHallLabel.setText(bestHall >= 0
+                ? String.format("Самый загруженный зал: %s — %.0f%% заполняемости",
+                occupancy.getHallName(bestHall), occupancy.getHallFillRatio(bestHall) * 100)
+                : "Самый загруженный зал: нет сеансов за период");
+    }
 
-        // Пример данных для залов
-        bestHallLabel.setText("Зал №1 (IMAX) - 85% заполняемости");
+    private void showScheduleRecommendations() {
+        String message;
+        if (scheduleRecommendations == null) {
+            message = "Сначала сгенерируйте отчет «Загрузка залов».";
+        } else if (scheduleRecommendations.isEmpty()) {
+            message = "Слотов с заметно низкой или высокой заполняемостью за период нет.";
+        } else {
+            message = String.join("\n", scheduleRecommendations);
+        }
+        showAlert("Рекомендации по расписанию", message, Alert.AlertType.INFORMATION);
     }
 
     private void generateCustomersReport(LocalDateTime startDate, LocalDateTime endDate) {
@@ -276,8 +482,11 @@ public class ReportController implements Initializable {
     }
 
     private void generatePaymentMethodsReport(LocalDateTime startDate, LocalDateTime endDate) {
-        String statistics = paymentService.getPaymentMethodsStatistics(startDate, endDate);
+        uiTasks.submit("report", () -> paymentService.getPaymentMethodsStatistics(startDate, endDate),
+                this::showPaymentMethodsStatistics, this::showReportError);
+    }
 
+    private void showPaymentMethodsStatistics(String statistics) {
         TextArea textArea = new TextArea(statistics);
         textArea.setEditable(false);
         textArea.setWrapText(true);
@@ -299,37 +508,47 @@ public class ReportController implements Initializable {
         filmsPieChart.setVisible(false);
         revenueChart.setVisible(true);
 
-        updateSalesChart();
-        updateRevenueChart();
+        uiTasks.submit("report", () -> reportService.generateSalesReport(startDate, endDate),
+                this::showSalesReport, this::showReportError);
     }
 
-    private void updateSalesChart() {
+    // Выручка по дням недели за весь период
+    private void updateSalesChart(List<DailySales> dailySales) {
         salesChart.getData().clear();
 
+        double[] revenueByWeekday = new double[7];
+        for (DailySales day : dailySales) {
+            revenueByWeekday[day.getDate().getDayOfWeek().ordinal()] += day.getPaymentAmount();
+        }
+
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Выручка");
-
-        // Пример данных
-        for (int i = 0; i < 7; i++) {
-            String day = LocalDate.now().minusDays(6 - i).getDayOfWeek().toString();
-            double revenue = Math.random() * 50000 + 10000;
-            series.getData().add(new XYChart.Data<>(day, revenue));
+        for (DayOfWeek weekday : DayOfWeek.values()) {
+            String name = weekday.getDisplayName(TextStyle.SHORT, new Locale("ru"));
+            series.getData().add(new XYChart.Data<>(name, revenueByWeekday[weekday.ordinal()]));
         }
 
         salesChart.getData().add(series);
     }
 
-    private void updateRevenueChart() {
+    // Выручка за каждый день периода (дни без продаж — нулями)
+    private void updateRevenueChart(List<DailySales> dailySales) {
         revenueChart.getData().clear();
+        revenueChart.setCreateSymbols(false);
 
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Ежедневная выручка");
 
-        // Пример данных
-        for (int i = 0; i < 30; i++) {
-            String date = LocalDate.now().minusDays(29 - i).toString();
-            double revenue = Math.random() * 60000 + 8000;
-            series.getData().add(new XYChart.Data<>(date, revenue));
+        if (!dailySales.isEmpty()) {
+            int index = 0;
+            LocalDate last = dailySales.get(dailySales.size() - 1).getDate();
+            for (LocalDate date = dailySales.get(0).getDate(); !date.isAfter(last); date = date.plusDays(1)) {
+                double revenue = 0;
+                if (dailySales.get(index).getDate().equals(date)) {
+                    revenue = dailySales.get(index++).getPaymentAmount();
+                }
+                series.getData().add(new XYChart.Data<>(date.toString(), revenue));
+            }
         }
 
         revenueChart.getData().add(series);
@@ -375,37 +594,77 @@ public class ReportController implements Initializable {
 
     @FXML
     private void exportReport() {
-        try {
-            FileChooser fileChooser = new FileChooser();
-            fileChooser.setTitle("Экспорт отчета");
-            fileChooser.getExtensionFilters().addAll(
-                    new FileChooser.ExtensionFilter("Excel файлы", "*.xlsx"),
-                    new FileChooser.ExtensionFilter("PDF файлы", "*.pdf"),
-                    new FileChooser.ExtensionFilter("CSV файлы", "*.csv")
-            );
-
-            File file = fileChooser.showSaveDialog(null);
-            if (file != null) {
-                // Экспортируем отчет
-                Map<String, Object> reportData = Map.of(
-                        "period", startDatePicker.getValue() + " - " + endDatePicker.getValue(),
-                        "type", reportTypeComboBox.getValue(),
-                        "generated", LocalDateTime.now()
-                );
-
-                reportService.exportToExcel(reportData, file.getAbsolutePath());
-
-                showAlert("Успех", "Отчет успешно экспортирован в: " + file.getAbsolutePath(),
-                        Alert.AlertType.INFORMATION);
-
-                logger.info("Отчет экспортирован в: {}", file.getAbsolutePath());
-            }
+        if (exporting) {
+            // Повторное нажатие во время выгрузки — отмена
+            uiTasks.cancel("report.export");
+            finishExport("Выгрузка отменена");
+            return;
+        }
 
-        } catch (Exception e) {
-            logger.error("Ошибка при экспорте отчета: {}", e.getMessage());
-            showAlert("Ошибка", "Не удалось экспортировать отчет: " + e.getMessage(),
-                    Alert.AlertType.ERROR);
+        LocalDate startDate = startDatePicker.getValue();
+        LocalDate endDate = endDatePicker.getValue();
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            showAlert("Ошибка", "Выберите корректный период выгрузки", Alert.AlertType.ERROR);
+            return;
+        }
+
+        // Отчеты о посещаемости выгружают билеты, остальные — платежи и возвраты
+        String reportType = reportTypeComboBox.getValue();
+        boolean tickets = "Популярность фильмов".equals(reportType)
+                || "Загрузка залов".equals(reportType)
+                || "Активность клиентов".equals(reportType);
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(tickets ? "Выгрузка билетов" : "Выгрузка платежей");
+        fileChooser.setInitialFileName((tickets ? "билеты_" : "платежи_") + startDate + "_" + endDate + ".xlsx");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Excel файлы", "*.xlsx"),
+                new FileChooser.ExtensionFilter("CSV файлы", "*.csv")
+        );
+
+        File file = fileChooser.showSaveDialog(null);
+        if (file == null) {
+            return;
+        }
+
+        LocalDateTime startDateTime = startDate.atStartOfDay();
+        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
+        ExportProgress progress = (rows, total) -> Platform.runLater(() -> showExportProgress(rows, total));
+
+        exporting = true;
+        exportButton.setText("Отменить экспорт");
+        exportProgressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        exportProgressBar.setVisible(true);
+        exportStatusLabel.setText("Подготовка выгрузки...");
+
+        uiTasks.submit("report.export", () -> tickets
+                        ? reportService.exportTickets(startDateTime, endDateTime, file, progress)
+                        : reportService.exportPayments(startDateTime, endDateTime, file, progress),
+                rows -> {
+                    finishExport("Выгружено строк: " + rows);
+                    showAlert("Успех", "Выгружено строк: " + rows + "\nФайл: " + file.getAbsolutePath(),
+                            Alert.AlertType.INFORMATION);
+                }, e -> {
+                    finishExport("Ошибка выгрузки");
+                    showAlert("Ошибка", "Не удалось экспортировать отчет: " + e.getMessage(),
+                            Alert.AlertType.ERROR);
+                });
+    }
+
+    private void showExportProgress(long rows, long total) {
+        if (!exporting) {
+            return;
         }
+        exportProgressBar.setProgress(total > 0 ? Math.min(1.0, (double) rows / total)
+                : ProgressBar.INDETERMINATE_PROGRESS);
+        exportStatusLabel.setText(total > 0 ? "Выгружено " + rows + " из " + total : "Выгружено " + rows);
+    }
+
+    private void finishExport(String status) {
+        exporting = false;
+        exportButton.setText("Экспорт");
+        exportProgressBar.setVisible(false);
+        exportStatusLabel.setText(status);
     }
 
     @FXML
@@ -439,6 +698,10 @@ public class ReportController implements Initializable {
         helpAlert.showAndWait();
     }
 
+    private void showReportError(Throwable e) {
+        showAlert("Ошибка", "Не удалось сгенерировать отчет: " + e.getMessage(), Alert.AlertType.ERROR);
+    }
+
     private void showAlert(String title, String message, Alert.AlertType type) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
@@ -0,0 +1,256 @@
+package com.cinema.cinemamanagementsystem.controllers;
+
+import com.cinema.cinemamanagementsystem.models.HallLayout;
+import com.cinema.cinemamanagementsystem.models.PriceTable;
+import com.cinema.cinemamanagementsystem.models.SeatCategory;
+import javafx.css.PseudoClass;
+import javafx.geometry.HPos;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.RowConstraints;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Схема зала в кассе поверх GridPane.
+ * Узлы мест создаются один раз на схему зала и переиспользуются при переключении сеансов.
+ * Цвет категории задается узлу один раз (-seat-color), состояния "выбрано" и "занято"
+ * переключаются псевдоклассами из style.css. При обновлении перерисовываются
+ * только места, состояние которых изменилось с прошлого показа.
+ */
+public class SeatMapView {
+    private static final PseudoClass SELECTED = PseudoClass.getPseudoClass("selected");
+    private static final PseudoClass TAKEN = PseudoClass.getPseudoClass("taken");
+
+    private static final int MAX_POOLED_LAYOUTS = 8;
+    private static final String DEFAULT_COLOR = "#7f8c8d";
+
+    private final GridPane grid;
+    private final Map<HallLayout, SeatNodes> pool = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<HallLayout, SeatNodes> eldest) {
+            return size() > MAX_POOLED_LAYOUTS;
+        }
+    };
+
+    private Map<Integer, SeatCategory> categories = Collections.emptyMap();
+    private IntConsumer onSeatToggle = seatId -> { };
+    private SeatNodes current;
+    private PriceTable prices;
+
+    public SeatMapView(GridPane grid) {
+        this.grid = grid;
+        grid.setGridLinesVisible(false);
+        grid.setPadding(new Insets(15));
+        grid.setHgap(5);
+        grid.setVgap(5);
+    }
+
+    /**
+     * Обработчик клика по свободному месту (получает seat_id)
+     */
+    public void setOnSeatToggle(IntConsumer onSeatToggle) {
+        this.onSeatToggle = onSeatToggle;
+    }
+
+    /**
+     * Категории мест задают цвет узлов, поэтому при их смене пул пересоздается
+     */
+    public void setCategories(Map<Integer, SeatCategory> categories) {
+        this.categories = categories;
+        pool.clear();
+        clear();
+    }
+
+    /**
+     * Показать схему зала с занятостью и выбором (битовые карты по порядковым номерам схемы)
+     */
+    public void show(HallLayout layout, BitSet taken, BitSet selected, PriceTable prices) {
+        this.prices = prices;
+
+        SeatNodes nodes = pool.get(layout);
+        if (nodes == null) {
+            nodes = build(layout);
+            pool.put(layout, nodes);
+        }
+
+        if (nodes != current) {
+            grid.getColumnConstraints().setAll(nodes.columnConstraints);
+            grid.getRowConstraints().setAll(nodes.rowConstraints);
+            grid.getChildren().setAll(nodes.children);
+            grid.setPrefSize(nodes.prefWidth, nodes.prefHeight);
+            current = nodes;
+        }
+
+        // Перерисовываем только места, у которых изменилась занятость или выбор
+        BitSet changed = (BitSet) taken.clone();
+        changed.xor(nodes.shownTaken);
+        BitSet selectionChanged = (BitSet) selected.clone();
+        selectionChanged.xor(nodes.shownSelected);
+        changed.or(selectionChanged);
+
+        for (int ordinal = changed.nextSetBit(0); ordinal >= 0; ordinal = changed.nextSetBit(ordinal + 1)) {
+            paint(nodes.buttons[ordinal], taken.get(ordinal), selected.get(ordinal));
+        }
+
+        nodes.shownTaken = (BitSet) taken.clone();
+        nodes.shownSelected = (BitSet) selected.clone();
+    }
+
+    /**
+     * Отметить место выбранным без полной перерисовки
+     */
+    public void setSelected(int seatId, boolean selected) {
+        if (current == null) {
+            return;
+        }
+        int ordinal = current.layout.ordinalOf(seatId);
+        if (ordinal < 0) {
+            return;
+        }
+        current.shownSelected.set(ordinal, selected);
+        paint(current.buttons[ordinal], current.shownTaken.get(ordinal), selected);
+    }
+
+    public void clear() {
+        grid.getChildren().clear();
+        grid.getRowConstraints().clear();
+        grid.getColumnConstraints().clear();
+        current = null;
+    }
+
+    private void paint(Button button, boolean taken, boolean selected) {
+        button.setDisable(taken);
+        button.pseudoClassStateChanged(TAKEN, taken);
+        button.pseudoClassStateChanged(SELECTED, selected && !taken);
+    }
+
+    // Узлы схемы строятся один раз: подписи, экран, кнопки мест и констрейнты сетки
+    private SeatNodes build(HallLayout layout) {
+        int maxRow = layout.getRowCount();
+        int maxCol = layout.getColumnCount();
+        SeatNodes nodes = new SeatNodes(layout);
+
+        // Констрейнты колонок
+        for (int i = 0; i <= maxCol + 1; i++) {
+            ColumnConstraints colConst = new ColumnConstraints();
+            colConst.setHalignment(HPos.CENTER);
+            colConst.setHgrow(Priority.SOMETIMES);
+            colConst.setMinWidth(35);
+            colConst.setPrefWidth(40);
+            colConst.setMaxWidth(45);
+            nodes.columnConstraints.add(colConst);
+        }
+
+        // Констрейнты строк
+        for (int i = 0; i <= maxRow + 2; i++) {
+            RowConstraints rowConst = new RowConstraints();
+            rowConst.setValignment(VPos.CENTER);
+            rowConst.setVgrow(Priority.SOMETIMES);
+            rowConst.setMinHeight(35);
+            rowConst.setPrefHeight(40);
+            rowConst.setMaxHeight(45);
+            nodes.rowConstraints.add(rowConst);
+        }
+
+        // ЭКРАН
+        Label screenLabel = new Label("Э К Р А Н");
+        screenLabel.getStyleClass().add("seat-screen");
+        screenLabel.setMaxWidth(Double.MAX_VALUE);
+        screenLabel.setAlignment(Pos.CENTER);
+        GridPane.setConstraints(screenLabel, 1, 0, maxCol, 1);
+        nodes.children.add(screenLabel);
+
+        // Подписи колонок (номера мест) и рядов
+        for (int i = 0; i < maxCol; i++) {
+            Label colLabel = new Label(String.valueOf(layout.getColumnNumber(i)));
+            colLabel.getStyleClass().add("seat-label");
+            GridPane.setConstraints(colLabel, i + 1, 1);
+            nodes.children.add(colLabel);
+        }
+        for (int i = 0; i < maxRow; i++) {
+            Label rowLabel = new Label(String.valueOf(layout.getRowNumber(i)));
+            rowLabel.getStyleClass().add("seat-label");
+            GridPane.setConstraints(rowLabel, 0, i + 2);
+            nodes.children.add(rowLabel);
+        }
+
+        // Кнопки мест
+        for (int ordinal = 0; ordinal < layout.getSeatCount(); ordinal++) {
+            Button seatButton = createSeatButton(layout, ordinal);
+            GridPane.setConstraints(seatButton, layout.getColumnIndex(ordinal) + 1,
+                    layout.getRowIndex(ordinal) + 2, 1, 1, HPos.CENTER, VPos.CENTER);
+            nodes.buttons[ordinal] = seatButton;
+            nodes.children.add(seatButton);
+        }
+
+        nodes.prefWidth = (maxCol + 1) * 40 + 30;
+        nodes.prefHeight = (maxRow + 2) * 40 + 30;
+        return nodes;
+    }
+
+    private Button createSeatButton(HallLayout layout, int ordinal) {
+        int seatId = layout.getSeatId(ordinal);
+        SeatCategory category = categories.get(layout.getCategoryId(ordinal));
+        String color = (category != null && category.getColor() != null) ? category.getColor() : DEFAULT_COLOR;
+        String categoryName = (category != null) ? category.getName() : "Стандарт";
+
+        Button seatButton = new Button(String.valueOf(layout.getNumber(ordinal)));
+        seatButton.getStyleClass().add("seat-button");
+        seatButton.setStyle("-seat-color: " + color + ";");
+        seatButton.setPrefSize(38, 38);
+        seatButton.setMinSize(35, 35);
+        seatButton.setMaxSize(42, 42);
+        seatButton.setUserData(seatId);
+        seatButton.setOnAction(e -> onSeatToggle.accept(seatId));
+
+        // Цена зависит от сеанса, поэтому текст подсказки собирается при показе
+        Tooltip tooltip = new Tooltip("Ряд: " + layout.getRow(ordinal));
+        tooltip.setStyle("-fx-font-size: 12px; -fx-font-weight: normal;");
+        tooltip.setShowDelay(Duration.millis(300));
+        tooltip.setShowDuration(Duration.seconds(10));
+        tooltip.setOnShowing(e -> tooltip.setText(
+                "Ряд: " + layout.getRow(ordinal) + "\n" +
+                        "Место: " + layout.getNumber(ordinal) + "\n" +
+                        "Категория: " + categoryName + "\n" +
+                        "Цена: " + String.format("%.2f руб. (бронь %.2f руб.)",
+                        prices.getPrice(layout.getCategoryId(ordinal), false),
+                        prices.getPrice(layout.getCategoryId(ordinal), true))));
+        Tooltip.install(seatButton, tooltip);
+
+        return seatButton;
+    }
+
+    // Узлы одной схемы зала и состояние, показанное в прошлый раз
+    private static final class SeatNodes {
+        private final HallLayout layout;
+        private final Button[] buttons;
+        private final List<Node> children = new ArrayList<>();
+        private final List<ColumnConstraints> columnConstraints = new ArrayList<>();
+        private final List<RowConstraints> rowConstraints = new ArrayList<>();
+        private double prefWidth;
+        private double prefHeight;
+        private BitSet shownTaken = new BitSet();
+        private BitSet shownSelected = new BitSet();
+
+        SeatNodes(HallLayout layout) {
+            this.layout = layout;
+            this.buttons = new Button[layout.getSeatCount()];
+        }
+    }
+}
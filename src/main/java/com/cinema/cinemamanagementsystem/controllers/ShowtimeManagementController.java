@@ -1,9 +1,14 @@
 package com.cinema.cinemamanagementsystem.controllers;
 
 import com.cinema.cinemamanagementsystem.dao.FilmDAO;
+import com.cinema.cinemamanagementsystem.dao.ReferenceDataCache;
 import com.cinema.cinemamanagementsystem.dao.ShowtimeDAO;
 import com.cinema.cinemamanagementsystem.models.Film;
+import com.cinema.cinemamanagementsystem.models.Hall;
 import com.cinema.cinemamanagementsystem.models.Showtime;
+import com.cinema.cinemamanagementsystem.services.ReportService;
+import com.cinema.cinemamanagementsystem.services.UiTaskExecutor;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -66,6 +71,10 @@ public class ShowtimeManagementController implements Initializable {
     private Stage stage;
     private final FilmDAO filmDAO = new FilmDAO();
     private final ShowtimeDAO showtimeDAO = new ShowtimeDAO();
+    private final UiTaskExecutor uiTasks = UiTaskExecutor.getInstance();
+    private final ReportService reportService = new ReportService();
+    private boolean exporting;
+    private final ReferenceDataCache referenceData = ReferenceDataCache.getInstance();
     private ObservableList<Showtime> showtimesList = FXCollections.observableArrayList();
     private ObservableList<Film> filmsList = FXCollections.observableArrayList();
 
@@ -91,17 +100,15 @@ public class ShowtimeManagementController implements Initializable {
             }
         }
 
-        // Настройка залов
-        hallComboBox.getItems().addAll(
-                "Зал №1 (IMAX)",
-                "Зал №2 (3D)",
-                "Зал №3 (Dolby Atmos)",
-                "Зал №4 (Premium)"
-        );
-
+        // Настройка залов (из справочника)
         hallFilter.getItems().add("Все залы");
-        hallFilter.getItems().addAll(hallComboBox.getItems());
         hallFilter.setValue("Все залы");
+        uiTasks.submit(referenceData::getHalls, halls -> {
+            for (Hall hall : halls.values()) {
+                hallComboBox.getItems().add(hall.getName());
+                hallFilter.getItems().add(hall.getName());
+            }
+        });
 
         // Настройка типа сеанса
         showtimeTypeCombo.getItems().addAll(
@@ -171,8 +178,8 @@ public class ShowtimeManagementController implements Initializable {
 
     private void loadData() {
         // Загрузка фильмов
-        filmsList.setAll(filmDAO.getAllFilms());
         filmComboBox.setItems(filmsList);
+        uiTasks.submit("schedule.films", filmDAO::getAllFilms, filmsList::setAll);
 
         // Загрузка сеансов
         loadShowtimes();
@@ -182,8 +189,11 @@ public class ShowtimeManagementController implements Initializable {
         LocalDate filterDate = scheduleDateFilter.getValue();
         String selectedHall = hallFilter.getValue();
 
-        List<Showtime> allShowtimes = showtimeDAO.getAllShowtimes();
+        uiTasks.submit("schedule.showtimes", showtimeDAO::getAllShowtimes,
+                allShowtimes -> showFilteredShowtimes(allShowtimes, filterDate, selectedHall));
+    }
 
+    private void showFilteredShowtimes(List<Showtime> allShowtimes, LocalDate filterDate, String selectedHall) {
         List<Showtime> filtered = allShowtimes.stream()
                 .filter(showtime -> {
                     boolean matchesDate = filterDate == null ||
@@ -347,19 +357,54 @@ public class ShowtimeManagementController implements Initializable {
 
     @FXML
     private void exportSchedule() {
-        // Реализация экспорта расписания
+        if (exporting) {
+            // Повторное нажатие во время выгрузки — отмена
+            uiTasks.cancel("schedule.export");
+            finishExport();
+            updateStatus();
+            return;
+        }
+
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Экспорт расписания");
-        fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("Excel файлы", "*.xlsx")
+        fileChooser.setInitialFileName("расписание.xlsx");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Excel файлы", "*.xlsx"),
+                new FileChooser.ExtensionFilter("CSV файлы", "*.csv")
         );
 
         File file = fileChooser.showSaveDialog(stage);
-        if (file != null) {
-            // Здесь будет логика экспорта
-            showAlert("Успех", "Расписание экспортировано в: " + file.getAbsolutePath(),
-                    Alert.AlertType.INFORMATION);
+        if (file == null) {
+            return;
         }
+
+        // Выгружаем то, что сейчас показано в таблице (с учетом фильтров)
+        List<Showtime> showtimes = List.copyOf(showtimesList);
+        exporting = true;
+        exportScheduleButton.setText("Отменить экспорт");
+
+        uiTasks.submit("schedule.export", () -> reportService.exportSchedule(showtimes, file,
+                        (rows, total) -> Platform.runLater(() -> {
+                            if (exporting) {
+                                scheduleStatusLabel.setText("Выгружено " + rows + " из " + total);
+                            }
+                        })),
+                rows -> {
+                    finishExport();
+                    updateStatus();
+                    showAlert("Успех", "Расписание экспортировано в: " + file.getAbsolutePath(),
+                            Alert.AlertType.INFORMATION);
+                }, e -> {
+                    finishExport();
+                    updateStatus();
+                    showAlert("Ошибка", "Не удалось экспортировать расписание: " + e.getMessage(),
+                            Alert.AlertType.ERROR);
+                });
+    }
+
+    private void finishExport() {
+        exporting = false;
+        exportScheduleButton.setText("Экспорт расписания");
     }
 
     @FXML
@@ -401,6 +446,7 @@ public class ShowtimeManagementController implements Initializable {
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
                 // Здесь будет логика отмены сеанса
+                ShowtimeDAO.evictShowtime(selected.getShowtimeId());
                 showAlert("Успех", "Сеанс отменен", Alert.AlertType.INFORMATION);
                 loadShowtimes();
             }
@@ -461,13 +507,11 @@ public class ShowtimeManagementController implements Initializable {
     }
 
     private int getHallIdFromName(String hallName) {
-        switch (hallName) {
-            case "Зал №1 (IMAX)": return 1;
-            case "Зал №2 (3D)": return 2;
-            case "Зал №3 (Dolby Atmos)": return 3;
-            case "Зал №4 (Premium)": return 4;
-            default: return 1;
-        }
+        return referenceData.getHalls().values().stream()
+                .filter(hall -> hall.getName().equals(hallName))
+                .mapToInt(Hall::getHallId)
+                .findFirst()
+                .orElse(1);
     }
 
     private int determineRuleId(LocalDateTime dateTime, String showtimeType) {
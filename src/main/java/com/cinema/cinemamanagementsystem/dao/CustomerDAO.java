@@ -5,140 +5,263 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 public class CustomerDAO {
     private static final Logger logger = LoggerFactory.getLogger(CustomerDAO.class);
 
+    // Агрегаты из customer_stats (строки может не быть у клиента без покупок)
+    private static final String STATS_COLUMNS =
+            "COALESCE(cs.visit_count, 0) AS visit_count, COALESCE(cs.total_spent, 0) AS total_spent ";
+
     // Создать или найти клиента
     public Customer findOrCreateCustomer(String name, String phone, String email) {
-        Customer existing = findCustomerByPhone(phone);
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return findOrCreateCustomer(conn, name, phone, email);
+        } catch (SQLException e) {
+            logger.error("Ошибка при создании клиента: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    // Создать или найти клиента в рамках транзакции вызывающего.
+    // Вставка — upsert по уникальному ключу phone_normalized: если клиента с этим номером
+    // одновременно создала другая касса, LAST_INSERT_ID вернет его ID и дубликата не будет;
+    // клиент возвращается таким, каким он сохранен в БД, а не из переданных имени и email
+    public Customer findOrCreateCustomer(Connection conn, String name, String phone, String email) throws SQLException {
+        Customer existing = findCustomerByPhone(conn, phone);
         if (existing != null) {
             return existing;
         }
 
-        String query = "INSERT INTO customer (name, phone, email, registered, created_at) VALUES (?, ?, ?, ?, ?)";
+        String query = "INSERT INTO customer (name, phone, email, registered, created_at, phone_normalized, email_normalized) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE customer_id = LAST_INSERT_ID(customer_id)";
+        LocalDateTime now = LocalDateTime.now();
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
 
             pstmt.setString(1, name);
             pstmt.setString(2, phone);
             pstmt.setString(3, email);
             pstmt.setBoolean(4, true);
-            pstmt.setTimestamp(5, Timestamp.valueOf(java.time.LocalDateTime.now()));
-
-            int rowsAffected = pstmt.executeUpdate();
-
-            if (rowsAffected > 0) {
-                ResultSet rs = pstmt.getGeneratedKeys();
-                if (rs.next()) {
-                    Customer newCustomer = new Customer();
-                    newCustomer.setCustomerId(rs.getInt(1));
-                    newCustomer.setName(name);
-                    newCustomer.setPhone(phone);
-                    newCustomer.setEmail(email);
-                    newCustomer.setRegistered(true);
-                    newCustomer.setCreatedAt(java.time.LocalDateTime.now());
-                    return newCustomer;
-                }
+            pstmt.setTimestamp(5, Timestamp.valueOf(now));
+            pstmt.setString(6, normalizePhone(phone));
+            pstmt.setString(7, normalizeEmail(email));
+
+            pstmt.executeUpdate();
+
+            // Число затронутых строк не отличает вставку от дубликата (зависит от CLIENT_FOUND_ROWS),
+            // поэтому клиента по ключу всегда перечитываем: вставленного или созданного другой кассой
+            ResultSet rs = pstmt.getGeneratedKeys();
+            if (rs.next()) {
+                return findCustomerForUpdate(conn, rs.getInt(1));
+            }
+        }
+        return null;
+    }
+
+    // Блокирующее чтение видит строку, закоммиченную другой кассой после начала транзакции
+    private Customer findCustomerForUpdate(Connection conn, int customerId) throws SQLException {
+        String query = "SELECT * FROM customer WHERE customer_id = ? FOR UPDATE";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, customerId);
+            ResultSet rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                return mapResultSetToCustomer(rs);
             }
-        } catch (SQLException e) {
-            logger.error("Ошибка при создании клиента: {}", e.getMessage());
         }
         return null;
     }
 
     // Найти клиента по телефону
     public Customer findCustomerByPhone(String phone) {
-        String query = "SELECT * FROM customer WHERE phone = ?";
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return findCustomerByPhone(conn, phone);
+        } catch (SQLException e) {
+            logger.error("Ошибка при поиске клиента: {}", e.getMessage());
+        }
+        return null;
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
+    private Customer findCustomerByPhone(Connection conn, String phone) throws SQLException {
+        String normalizedPhone = normalizePhone(phone);
+        if (normalizedPhone == null) {
+            return null;
+        }
+        String query = "SELECT * FROM customer WHERE phone_normalized = ?";
 
-            pstmt.setString(1, phone);
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setString(1, normalizedPhone);
             ResultSet rs = pstmt.executeQuery();
 
             if (rs.next()) {
                 return mapResultSetToCustomer(rs);
             }
-        } catch (SQLException e) {
-            logger.error("Ошибка при поиске клиента: {}", e.getMessage());
         }
         return null;
     }
 
-    // Получить всех клиентов (для таблицы)
-    public List<Customer> getAllCustomers() {
-        List<Customer> customers = new ArrayList<>();
+    // Страница клиентов для таблицы: новые сверху, продолжение после последней строки предыдущей страницы
+    // (after = null — первая страница). Keyset по индексу (created_at, customer_id), без OFFSET.
+    // null — ошибка БД (пустой список означает конец данных)
+    public List<Customer> pageCustomers(Customer after, int limit) {
+        List<Customer> customers = new ArrayList<>(limit);
 
         String query =
-                "SELECT c.*, " +
-                        "       (SELECT COUNT(*) FROM ticket WHERE customer_id = c.customer_id AND status_id = 1) AS visit_count, " +
-                        "       (SELECT COALESCE(SUM(p.amount), 0) FROM payment p " +
-                        "        JOIN ticket t ON p.ticket_id = t.ticket_id " +
-                        "        WHERE t.customer_id = c.customer_id) AS total_spent " +
+                "SELECT c.*, " + STATS_COLUMNS +
                         "FROM customer c " +
-                        "ORDER BY c.created_at DESC";
+                        "LEFT JOIN customer_stats cs ON cs.customer_id = c.customer_id " +
+                        (after != null
+                                ? "WHERE c.created_at < ? OR (c.created_at = ? AND c.customer_id < ?) "
+                                : "") +
+                        "ORDER BY c.created_at DESC, c.customer_id DESC " +
+                        "LIMIT ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query);
-             ResultSet rs = pstmt.executeQuery()) {
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            int index = 1;
+            if (after != null) {
+                Timestamp createdAt = Timestamp.valueOf(after.getCreatedAt());
+                pstmt.setTimestamp(index++, createdAt);
+                pstmt.setTimestamp(index++, createdAt);
+                pstmt.setInt(index++, after.getCustomerId());
+            }
+            pstmt.setInt(index, limit);
+            ResultSet rs = pstmt.executeQuery();
 
             while (rs.next()) {
-                Customer customer = mapResultSetToCustomer(rs);
-                customer.setVisitCount(rs.getInt("visit_count"));
-                customer.setTotalSpent(rs.getDouble("total_spent"));
-                customers.add(customer);
+                customers.add(mapResultSetToCustomer(rs));
             }
 
         } catch (SQLException e) {
-            logger.error("Ошибка при загрузке всех клиентов: {}", e.getMessage());
+            logger.error("Ошибка при загрузке страницы клиентов: {}", e.getMessage());
+            return null;
         }
 
         return customers;
     }
 
-    // Поиск клиентов
-    public List<Customer> searchCustomers(String searchText) {
+    // Клиенты, чей нормализованный телефон начинается с префикса (индекс idx_customer_phone_normalized)
+    public List<Customer> searchByPhonePrefix(String phonePrefix, int limit) {
+        return searchByPrefix("phone_normalized", phonePrefix, limit);
+    }
+
+    // Клиенты, чей нормализованный email начинается с префикса (индекс idx_customer_email_normalized)
+    public List<Customer> searchByEmailPrefix(String emailPrefix, int limit) {
+        return searchByPrefix("email_normalized", emailPrefix, limit);
+    }
+
+    private List<Customer> searchByPrefix(String column, String prefix, int limit) {
         List<Customer> customers = new ArrayList<>();
         String query =
-                "SELECT c.*, " +
-                        "       (SELECT COUNT(*) FROM ticket WHERE customer_id = c.customer_id AND status_id = 1) AS visit_count, " +
-                        "       (SELECT COALESCE(SUM(p.amount), 0) FROM payment p " +
-                        "        JOIN ticket t ON p.ticket_id = t.ticket_id " +
-                        "        WHERE t.customer_id = c.customer_id) AS total_spent " +
+                "SELECT c.*, " + STATS_COLUMNS +
                         "FROM customer c " +
-                        "WHERE c.name LIKE ? OR c.phone LIKE ? OR c.email LIKE ? " +
-                        "ORDER BY c.created_at DESC " +
-                        "LIMIT 50";
+                        "LEFT JOIN customer_stats cs ON cs.customer_id = c.customer_id " +
+                        "WHERE c." + column + " LIKE ? " +
+                        "ORDER BY c." + column + " " +
+                        "LIMIT ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(query)) {
 
-            String searchPattern = "%" + searchText + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
-            pstmt.setString(3, searchPattern);
+            pstmt.setString(1, escapeLike(prefix) + "%");
+            pstmt.setInt(2, limit);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                customers.add(mapResultSetToCustomer(rs));
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при поиске клиентов: {}", e.getMessage());
+        }
+        return customers;
+    }
 
+    // Клиенты по списку ID (результат поиска по индексу имен), в порядке списка
+    public List<Customer> getCustomersByIds(List<Integer> customerIds) {
+        if (customerIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(customerIds.size(), "?"));
+        String query =
+                "SELECT c.*, " + STATS_COLUMNS +
+                        "FROM customer c " +
+                        "LEFT JOIN customer_stats cs ON cs.customer_id = c.customer_id " +
+                        "WHERE c.customer_id IN (" + placeholders + ")";
+
+        Map<Integer, Customer> byId = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            for (int i = 0; i < customerIds.size(); i++) {
+                pstmt.setInt(i + 1, customerIds.get(i));
+            }
             ResultSet rs = pstmt.executeQuery();
 
             while (rs.next()) {
                 Customer customer = mapResultSetToCustomer(rs);
-                customer.setVisitCount(rs.getInt("visit_count"));
-                customer.setTotalSpent(rs.getDouble("total_spent"));
-                customers.add(customer);
+                byId.put(customer.getCustomerId(), customer);
             }
         } catch (SQLException e) {
-            logger.error("Ошибка при поиске клиентов: {}", e.getMessage());
+            logger.error("Ошибка при загрузке клиентов: {}", e.getMessage());
+        }
+
+        List<Customer> customers = new ArrayList<>(byId.size());
+        for (int customerId : customerIds) {
+            Customer customer = byId.get(customerId);
+            if (customer != null) {
+                customers.add(customer);
+            }
         }
         return customers;
     }
 
+    // Имена клиентов, измененных начиная с момента (null — все), потоком без сборки моделей.
+    // Возвращает наибольший updated_at из прочитанных (null, если строк нет или ошибка)
+    public LocalDateTime forEachCustomerName(LocalDateTime changedSince, BiConsumer<Integer, String> consumer) {
+        String query = "SELECT customer_id, name, updated_at FROM customer" +
+                (changedSince != null ? " WHERE updated_at >= ?" : "");
+
+        LocalDateTime latest = null;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            if (changedSince != null) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(changedSince));
+            }
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                consumer.accept(rs.getInt("customer_id"), rs.getString("name"));
+                LocalDateTime updatedAt = rs.getTimestamp("updated_at").toLocalDateTime();
+                if (latest == null || updatedAt.isAfter(latest)) {
+                    latest = updatedAt;
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при чтении имен клиентов: {}", e.getMessage());
+            return null;
+        }
+        return latest;
+    }
+
     // Обновить клиента
     public boolean updateCustomer(Customer customer) {
-        String query = "UPDATE customer SET name = ?, phone = ?, email = ? WHERE customer_id = ?";
+        String query = "UPDATE customer SET name = ?, phone = ?, email = ?, phone_normalized = ?, email_normalized = ? " +
+                "WHERE customer_id = ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(query)) {
@@ -146,7 +269,9 @@ public class CustomerDAO {
             pstmt.setString(1, customer.getName());
             pstmt.setString(2, customer.getPhone());
             pstmt.setString(3, customer.getEmail());
-            pstmt.setInt(4, customer.getCustomerId());
+            pstmt.setString(4, normalizePhone(customer.getPhone()));
+            pstmt.setString(5, normalizeEmail(customer.getEmail()));
+            pstmt.setInt(6, customer.getCustomerId());
 
             return pstmt.executeUpdate() > 0;
 
@@ -159,12 +284,9 @@ public class CustomerDAO {
     // Получить статистику по клиенту
     public Customer getCustomerStats(int customerId) {
         String query =
-                "SELECT c.*, " +
-                        "       (SELECT COUNT(*) FROM ticket WHERE customer_id = c.customer_id AND status_id = 1) AS visit_count, " +
-                        "       (SELECT COALESCE(SUM(p.amount), 0) FROM payment p " +
-                        "        JOIN ticket t ON p.ticket_id = t.ticket_id " +
-                        "        WHERE t.customer_id = c.customer_id) AS total_spent " +
+                "SELECT c.*, " + STATS_COLUMNS +
                         "FROM customer c " +
+                        "LEFT JOIN customer_stats cs ON cs.customer_id = c.customer_id " +
                         "WHERE c.customer_id = ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
@@ -185,8 +307,90 @@ public class CustomerDAO {
         return null;
     }
 
-    // Маппер
-    private Customer mapResultSetToCustomer(ResultSet rs) throws SQLException {
+    // Изменить агрегаты клиента в рамках транзакции вызывающего (продажа, подтверждение, возврат)
+    public void addCustomerStats(Connection conn, int customerId, int visits, double amount) throws SQLException {
+        String query =
+                "INSERT INTO customer_stats (customer_id, visit_count, total_spent) VALUES (?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE visit_count = visit_count + VALUES(visit_count), " +
+                        "total_spent = total_spent + VALUES(total_spent)";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, customerId);
+            pstmt.setInt(2, visits);
+            pstmt.setDouble(3, amount);
+            pstmt.executeUpdate();
+        }
+    }
+
+    // Пересчитать customer_stats по билетам и платежам, возвращает число клиентов (-1 при ошибке)
+    public int rebuildCustomerStats() {
+        String rebuild =
+                "INSERT INTO customer_stats (customer_id, visit_count, total_spent) " +
+                        "SELECT c.customer_id, COALESCE(v.visit_count, 0), COALESCE(p.total_spent, 0) " +
+                        "FROM customer c " +
+                        "LEFT JOIN (SELECT customer_id, COUNT(*) AS visit_count FROM ticket " +
+                        "           WHERE status_id = 1 GROUP BY customer_id) v ON v.customer_id = c.customer_id " +
+                        "LEFT JOIN (SELECT t.customer_id, SUM(pay.amount) AS total_spent FROM payment pay " +
+                        "           JOIN ticket t ON pay.ticket_id = t.ticket_id " +
+                        "           GROUP BY t.customer_id) p ON p.customer_id = c.customer_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            conn.setAutoCommit(false);
+            try {
+                stmt.executeUpdate("DELETE FROM customer_stats");
+                int rows = stmt.executeUpdate(rebuild);
+                conn.commit();
+                return rows;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при пересчете статистики клиентов: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    // Телефон для поиска и сравнения: только цифры, ведущая 8 российского номера заменяется на 7
+    public static String normalizePhone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char ch = phone.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                digits.append(ch);
+            }
+        }
+        if (digits.length() == 0) {
+            return null;
+        }
+        if (digits.charAt(0) == '8' && digits.length() <= 11) {
+            digits.setCharAt(0, '7');
+        }
+        return digits.toString();
+    }
+
+    // Email для поиска: нижний регистр, без пробелов по краям
+    public static String normalizeEmail(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Экранирование спецсимволов LIKE во введенном тексте
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // Маппер (package-private — используется бенчмарками)
+    Customer mapResultSetToCustomer(ResultSet rs) throws SQLException {
         Customer customer = new Customer();
         customer.setCustomerId(rs.getInt("customer_id"));
         customer.setName(rs.getString("name"));
@@ -7,7 +7,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
 public class DatabaseConnection {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConnection.class);
@@ -27,6 +29,8 @@ public class DatabaseConnection {
         config.addDataSourceProperty("cachePrepStmts", "true");
         config.addDataSourceProperty("prepStmtCacheSize", "250");
         config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        // Пакетные вставки (заказ из нескольких мест) уходят на сервер одним multi-row INSERT
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
 
         dataSource = new HikariDataSource(config);
         logger.info("Пул соединений с БД инициализирован");
@@ -36,6 +40,22 @@ public class DatabaseConnection {
         return dataSource.getConnection();
     }
 
+    /**
+     * Отдельное соединение вне пула для долгих выгрузок: не занимает соединение пула на минуты,
+     * а запросы с fetch size > 0 читаются серверным курсором порциями (useCursorFetch).
+     * Закрывает вызывающий.
+     */
+    public static Connection getStreamingConnection() throws SQLException {
+        Properties props = new Properties();
+        props.setProperty("user", DatabaseConfig.USER);
+        props.setProperty("password", DatabaseConfig.PASSWORD);
+        props.setProperty("useCursorFetch", "true");
+
+        Connection conn = DriverManager.getConnection(DatabaseConfig.URL, props);
+        conn.setReadOnly(true);
+        return conn;
+    }
+
     public static void closeDataSource() {
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
@@ -1,11 +1,14 @@
 package com.cinema.cinemamanagementsystem.dao;
 
 
+import com.cinema.cinemamanagementsystem.config.DatabaseConfig;
 import com.cinema.cinemamanagementsystem.models.Film;
+import com.cinema.cinemamanagementsystem.models.FilmPopularity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -128,4 +131,64 @@ public class FilmDAO {
         }
         return films;
     }
-}
\ No newline at end of file
+
+    /**
+     * Популярность фильмов по сеансам периода одним сгруппированным запросом:
+     * проданные билеты, выручка за вычетом возвратов, места на сеансах и место по выручке.
+     * Билеты и платежи сначала сворачиваются до сеанса, поэтому соединение не размножает строки.
+     * Возвращает null при ошибке БД, чтобы отчет не принял ее за период без сеансов
+     */
+    public List<FilmPopularity> getFilmPopularity(LocalDateTime startDate, LocalDateTime endDate) {
+        List<FilmPopularity> films = new ArrayList<>();
+        String query =
+                "SELECT f.film_id, f.title, " +
+                        "       COUNT(*) AS showtime_count, " +
+                        "       SUM(hs.seat_count) AS capacity, " +
+                        "       COALESCE(SUM(st.sold), 0) AS tickets_sold, " +
+                        "       COALESCE(SUM(st.revenue), 0) AS revenue, " +
+                        "       RANK() OVER (ORDER BY COALESCE(SUM(st.revenue), 0) DESC) AS revenue_rank " +
+                        "FROM showtime sh " +
+                        "JOIN film f ON sh.film_id = f.film_id " +
+                        "JOIN (SELECT hall_id, COUNT(*) AS seat_count FROM seat GROUP BY hall_id) hs " +
+                        "     ON hs.hall_id = sh.hall_id " +
+                        "LEFT JOIN (" +
+                        "    SELECT t.showtime_id, " +
+                        "           COUNT(DISTINCT CASE WHEN t.status_id = ? THEN t.ticket_id END) AS sold, " +
+                        "           SUM(p.amount) AS revenue " +
+                        "    FROM showtime s2 " +
+                        "    JOIN ticket t ON t.showtime_id = s2.showtime_id " +
+                        "    LEFT JOIN payment p ON p.ticket_id = t.ticket_id " +
+                        "    WHERE s2.date_time BETWEEN ? AND ? " +
+                        "    GROUP BY t.showtime_id" +
+                        ") st ON st.showtime_id = sh.showtime_id " +
+                        "WHERE sh.date_time BETWEEN ? AND ? " +
+                        "GROUP BY f.film_id, f.title " +
+                        "ORDER BY revenue_rank, f.title";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setInt(1, DatabaseConfig.TicketStatus.PAID);
+            pstmt.setTimestamp(2, Timestamp.valueOf(startDate));
+            pstmt.setTimestamp(3, Timestamp.valueOf(endDate));
+            pstmt.setTimestamp(4, Timestamp.valueOf(startDate));
+            pstmt.setTimestamp(5, Timestamp.valueOf(endDate));
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                films.add(new FilmPopularity(
+                        rs.getInt("film_id"),
+                        rs.getString("title"),
+                        rs.getInt("revenue_rank"),
+                        rs.getLong("tickets_sold"),
+                        rs.getDouble("revenue"),
+                        rs.getInt("showtime_count"),
+                        rs.getLong("capacity")));
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при расчете популярности фильмов: {}", e.getMessage());
+            return null;
+        }
+        return films;
+    }
+}
@@ -0,0 +1,113 @@
+package com.cinema.cinemamanagementsystem.dao;
+
+import com.cinema.cinemamanagementsystem.models.OccupancyChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Чтение журнала ticket_change_log (заполняется триггерами на ticket)
+public class OccupancyChangeDAO {
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyChangeDAO.class);
+
+    // Последний номер изменения (-1, если журнал недоступен)
+    public long getLastChangeId() {
+        String query = "SELECT COALESCE(MAX(change_id), 0) FROM ticket_change_log";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при чтении журнала изменений мест: {}", e.getMessage());
+        }
+        return -1;
+    }
+
+    // Изменения после водяного знака, по возрастанию change_id
+    public List<OccupancyChange> getChangesSince(long changeId, int limit) {
+        List<OccupancyChange> changes = new ArrayList<>();
+        String query =
+                "SELECT change_id, showtime_id, seat_id, active " +
+                        "FROM ticket_change_log " +
+                        "WHERE change_id > ? " +
+                        "ORDER BY change_id " +
+                        "LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setLong(1, changeId);
+            pstmt.setInt(2, limit);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                changes.add(new OccupancyChange(
+                        rs.getLong("change_id"),
+                        rs.getInt("showtime_id"),
+                        rs.getInt("seat_id"),
+                        rs.getInt("active") == 1));
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при чтении изменений мест: {}", e.getMessage());
+        }
+        return changes;
+    }
+
+    // Изменения с указанными номерами — пропуски, которые могли закоммитить позже
+    public List<OccupancyChange> getChangesByIds(List<Long> changeIds) {
+        List<OccupancyChange> changes = new ArrayList<>();
+        if (changeIds.isEmpty()) {
+            return changes;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(changeIds.size(), "?"));
+        String query =
+                "SELECT change_id, showtime_id, seat_id, active " +
+                        "FROM ticket_change_log " +
+                        "WHERE change_id IN (" + placeholders + ")";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            for (int i = 0; i < changeIds.size(); i++) {
+                pstmt.setLong(i + 1, changeIds.get(i));
+            }
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                changes.add(new OccupancyChange(
+                        rs.getLong("change_id"),
+                        rs.getInt("showtime_id"),
+                        rs.getInt("seat_id"),
+                        rs.getInt("active") == 1));
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при чтении изменений мест: {}", e.getMessage());
+        }
+        return changes;
+    }
+
+    // Удалить записи журнала старше указанного момента
+    public int purgeChangesBefore(LocalDateTime before) {
+        String query = "DELETE FROM ticket_change_log WHERE changed_at < ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setTimestamp(1, Timestamp.valueOf(before));
+            return pstmt.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Ошибка при очистке журнала изменений мест: {}", e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.cinema.cinemamanagementsystem.dao;
 
+import com.cinema.cinemamanagementsystem.config.DatabaseConfig;
 import com.cinema.cinemamanagementsystem.models.Payment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,6 +9,7 @@ import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class PaymentDAO {
     private static final Logger logger = LoggerFactory.getLogger(PaymentDAO.class);
@@ -31,6 +33,28 @@ public class PaymentDAO {
         }
     }
 
+    // Запись платежа в рамках транзакции вызывающего
+    public void createPayment(Connection conn, Payment payment) throws SQLException {
+        createPayments(conn, List.of(payment));
+    }
+
+    // Пакетная запись платежей заказа в рамках транзакции вызывающего
+    public void createPayments(Connection conn, List<Payment> payments) throws SQLException {
+        String query = "INSERT INTO payment (ticket_id, user_id, amount, method_id, payment_time) VALUES (?, ?, ?, ?, ?)";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (Payment payment : payments) {
+                pstmt.setInt(1, payment.getTicketId());
+                pstmt.setInt(2, payment.getUserId());
+                pstmt.setDouble(3, payment.getAmount());
+                pstmt.setInt(4, payment.getMethodId());
+                pstmt.setTimestamp(5, Timestamp.valueOf(payment.getPaymentTime()));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
     public List<Payment> getPaymentsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         List<Payment> payments = new ArrayList<>();
         String query =
@@ -68,6 +92,72 @@ public class PaymentDAO {
         return payments;
     }
 
+    // Число платежей и возвратов за период (для прогресса выгрузки)
+    public long countPayments(LocalDateTime startDate, LocalDateTime endDate) {
+        String query = "SELECT COUNT(*) FROM payment WHERE payment_time BETWEEN ? AND ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setTimestamp(1, Timestamp.valueOf(startDate));
+            pstmt.setTimestamp(2, Timestamp.valueOf(endDate));
+            ResultSet rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при подсчете платежей: {}", e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Платежи и возвраты за период по возрастанию времени, по одному в consumer — для выгрузки.
+     * Строки читаются курсором только вперед порциями по EXPORT_FETCH_SIZE и в памяти не копятся.
+     * Возвращает число прочитанных строк или -1 при ошибке БД
+     */
+    public long forEachPayment(LocalDateTime startDate, LocalDateTime endDate, Consumer<Payment> consumer) {
+        String query =
+                "SELECT p.payment_id, p.ticket_id, p.user_id, p.amount, p.method_id, p.payment_time, " +
+                        "       pm.name AS method_name, u.username AS user_name " +
+                        "FROM payment p " +
+                        "JOIN payment_method pm ON p.method_id = pm.method_id " +
+                        "JOIN users u ON p.user_id = u.user_id " +
+                        "WHERE p.payment_time BETWEEN ? AND ? " +
+                        "ORDER BY p.payment_time, p.payment_id";
+
+        long count = 0;
+        try (Connection conn = DatabaseConnection.getStreamingConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setFetchSize(DatabaseConfig.EXPORT_FETCH_SIZE);
+            pstmt.setTimestamp(1, Timestamp.valueOf(startDate));
+            pstmt.setTimestamp(2, Timestamp.valueOf(endDate));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Payment payment = new Payment();
+                    payment.setPaymentId(rs.getInt("payment_id"));
+                    payment.setTicketId(rs.getInt("ticket_id"));
+                    payment.setUserId(rs.getInt("user_id"));
+                    payment.setUserName(rs.getString("user_name"));
+                    payment.setAmount(rs.getDouble("amount"));
+                    payment.setMethodId(rs.getInt("method_id"));
+                    payment.setMethodName(rs.getString("method_name"));
+                    payment.setPaymentTime(rs.getTimestamp("payment_time").toLocalDateTime());
+                    consumer.accept(payment);
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при выгрузке платежей: {}", e.getMessage());
+            return -1;
+        }
+        return count;
+    }
+
     public double getTotalRevenue(LocalDateTime startDate, LocalDateTime endDate) {
         String query = "SELECT COALESCE(SUM(amount), 0) as total FROM payment WHERE payment_time BETWEEN ? AND ? AND amount > 0";
 
@@ -0,0 +1,212 @@
+package com.cinema.cinemamanagementsystem.dao;
+
+import com.cinema.cinemamanagementsystem.models.Genre;
+import com.cinema.cinemamanagementsystem.models.Hall;
+import com.cinema.cinemamanagementsystem.models.PaymentMethod;
+import com.cinema.cinemamanagementsystem.models.PriceRule;
+import com.cinema.cinemamanagementsystem.models.SeatCategory;
+import com.cinema.cinemamanagementsystem.models.TimePriceRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Справочники в памяти: категории мест, залы, жанры, способы оплаты, правила цен (в т.ч. по времени)
+ * и статусы билетов.
+ * Загружаются целиком заранее (prefetch при старте) или при первом обращении. По истечении TTL
+ * перечитываются в фоновом потоке, а до конца загрузки отдается прежний снимок — обращение
+ * из потока JavaFX не ждет БД, даже если она недоступна.
+ * DAO выбирают из БД только ID справочников, а названия и коэффициенты берут отсюда.
+ * Снимок неизменяемый и заменяется целиком, поэтому читать можно из любого потока.
+ */
+public class ReferenceDataCache {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private static final long TTL_MS = 10 * 60 * 1000;
+    private static final long RETRY_MS = 30 * 1000;
+    private static final Snapshot EMPTY = new Snapshot(Collections.emptyMap(), Collections.emptyMap(),
+            Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+            Collections.emptyList());
+
+    private static final ReferenceDataCache INSTANCE = new ReferenceDataCache(ReferenceDataCache::loadFromDatabase);
+
+    private final Supplier<Snapshot> loader;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private final Executor reloader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reference-data");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Snapshot snapshot;
+    private volatile long retryAfter;
+
+    // package-private — бенчмарки подставляют готовый снимок без БД
+    ReferenceDataCache(Supplier<Snapshot> loader) {
+        this.loader = loader;
+    }
+
+    public static ReferenceDataCache getInstance() {
+        return INSTANCE;
+    }
+
+    public Map<Integer, SeatCategory> getSeatCategories() {
+        return current().seatCategories;
+    }
+
+    public Map<Integer, Hall> getHalls() {
+        return current().halls;
+    }
+
+    public Map<Integer, Genre> getGenres() {
+        return current().genres;
+    }
+
+    public Map<Integer, PaymentMethod> getPaymentMethods() {
+        return current().paymentMethods;
+    }
+
+    public Map<Integer, PriceRule> getPriceRules() {
+        return current().priceRules;
+    }
+
+    public Map<Integer, String> getTicketStatuses() {
+        return current().ticketStatuses;
+    }
+
+    public List<TimePriceRule> getTimePriceRules() {
+        return current().timePriceRules;
+    }
+
+    public String getSeatCategoryName(int categoryId) {
+        SeatCategory category = current().seatCategories.get(categoryId);
+        return category != null ? category.getName() : null;
+    }
+
+    public String getTicketStatusName(int statusId) {
+        return current().ticketStatuses.get(statusId);
+    }
+
+    // Коэффициент правила цены (1.0, если правила нет или оно не задано)
+    public double getPriceCoefficient(int ruleId) {
+        PriceRule rule = current().priceRules.get(ruleId);
+        return (rule != null && rule.getCoefficient() != 0) ? rule.getCoefficient() : 1.0;
+    }
+
+    /**
+     * Загрузить справочники в фоне заранее, чтобы первое обращение из интерфейса не ждало БД
+     */
+    public void prefetch() {
+        reloadInBackground();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // Справочники еще не загружались — без них маппинг бесполезен, загружаем сейчас
+            return loadNow();
+        }
+        if (current.isExpired()) {
+            reloadInBackground();
+        }
+        return current;
+    }
+
+    private synchronized Snapshot loadNow() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        // После сбоя не дергаем БД на каждую строку маппинга — ждем RETRY_MS
+        if (System.currentTimeMillis() < retryAfter) {
+            return EMPTY;
+        }
+        return reload();
+    }
+
+    private void reloadInBackground() {
+        if (System.currentTimeMillis() < retryAfter || !reloading.compareAndSet(false, true)) {
+            return;
+        }
+        reloader.execute(() -> {
+            try {
+                synchronized (this) {
+                    reload();
+                }
+            } finally {
+                reloading.set(false);
+            }
+        });
+    }
+
+    // Вызывается под блокировкой. Несобранный снимок (сбой БД хотя бы в одной таблице) не кэшируем;
+    // при сбое обновления оставляем прежний
+    private Snapshot reload() {
+        Snapshot loaded = loader.get();
+        if (loaded == null) {
+            retryAfter = System.currentTimeMillis() + RETRY_MS;
+            logger.warn("Не удалось загрузить справочники, повтор через {} с", RETRY_MS / 1000);
+            return snapshot != null ? snapshot : EMPTY;
+        }
+        snapshot = loaded;
+        retryAfter = 0;
+        return loaded;
+    }
+
+    // null, если не прочиталась хотя бы одна таблица: частичный снимок нельзя кэшировать на весь TTL
+    private static Snapshot loadFromDatabase() {
+        ReferenceDataDAO dao = new ReferenceDataDAO();
+        Map<Integer, SeatCategory> seatCategories = new SeatCategoryDAO().getAllCategories();
+        Map<Integer, Hall> halls = dao.getHalls();
+        Map<Integer, Genre> genres = dao.getGenres();
+        Map<Integer, PaymentMethod> paymentMethods = dao.getPaymentMethods();
+        Map<Integer, PriceRule> priceRules = dao.getPriceRules();
+        Map<Integer, String> ticketStatuses = dao.getTicketStatuses();
+        List<TimePriceRule> timePriceRules = dao.getTimePriceRules();
+        if (seatCategories == null || halls == null || genres == null || paymentMethods == null
+                || priceRules == null || ticketStatuses == null || timePriceRules == null) {
+            return null;
+        }
+
+        Snapshot loaded = new Snapshot(seatCategories, halls, genres, paymentMethods, priceRules,
+                ticketStatuses, timePriceRules);
+        logger.debug("Справочники загружены: {} категорий мест, {} залов, {} жанров, {} способов оплаты, {} правил цен",
+                loaded.seatCategories.size(), loaded.halls.size(), loaded.genres.size(),
+                loaded.paymentMethods.size(), loaded.priceRules.size());
+        return loaded;
+    }
+
+    // Неизменяемый снимок всех справочников
+    static final class Snapshot {
+        private final Map<Integer, SeatCategory> seatCategories;
+        private final Map<Integer, Hall> halls;
+        private final Map<Integer, Genre> genres;
+        private final Map<Integer, PaymentMethod> paymentMethods;
+        private final Map<Integer, PriceRule> priceRules;
+        private final Map<Integer, String> ticketStatuses;
+        private final List<TimePriceRule> timePriceRules;
+        private final long loadedAt = System.currentTimeMillis();
+
+        Snapshot(Map<Integer, SeatCategory> seatCategories, Map<Integer, Hall> halls, Map<Integer, Genre> genres,
+                 Map<Integer, PaymentMethod> paymentMethods, Map<Integer, PriceRule> priceRules,
+                 Map<Integer, String> ticketStatuses, List<TimePriceRule> timePriceRules) {
+            this.seatCategories = Collections.unmodifiableMap(seatCategories);
+            this.halls = Collections.unmodifiableMap(halls);
+            this.genres = Collections.unmodifiableMap(genres);
+            this.paymentMethods = Collections.unmodifiableMap(paymentMethods);
+            this.priceRules = Collections.unmodifiableMap(priceRules);
+            this.ticketStatuses = Collections.unmodifiableMap(ticketStatuses);
+            this.timePriceRules = Collections.unmodifiableList(timePriceRules);
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - loadedAt > TTL_MS;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.cinema.cinemamanagementsystem.dao;
+
+import com.cinema.cinemamanagementsystem.models.Genre;
+import com.cinema.cinemamanagementsystem.models.Hall;
+import com.cinema.cinemamanagementsystem.models.PaymentMethod;
+import com.cinema.cinemamanagementsystem.models.PriceRule;
+import com.cinema.cinemamanagementsystem.models.TimePriceRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Небольшие справочные таблицы целиком, по возрастанию ID (для ReferenceDataCache).
+// Каждый метод возвращает null при ошибке БД, чтобы сбой не выглядел как пустой справочник
+public class ReferenceDataDAO {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataDAO.class);
+
+    public Map<Integer, Hall> getHalls() {
+        Map<Integer, Hall> halls = new LinkedHashMap<>();
+        String query = "SELECT hall_id, name, price_coefficient FROM hall ORDER BY hall_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                Hall hall = new Hall(rs.getInt("hall_id"), rs.getString("name"), rs.getDouble("price_coefficient"));
+                halls.put(hall.getHallId(), hall);
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при загрузке залов: {}", e.getMessage());
+            return null;
+        }
+        return halls;
+    }
+
+    public Map<Integer, Genre> getGenres() {
+        Map<Integer, Genre> genres = new LinkedHashMap<>();
+        String query = "SELECT genre_id, name FROM film_genre ORDER BY genre_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                Genre genre = new Genre(rs.getInt("genre_id"), rs.getString("name"));
+                genres.put(genre.getGenreId(), genre);
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при загрузке жанров: {}", e.getMessage());
+            return null;
+        }
+        return genres;
+    }
+
+    public Map<Integer, PaymentMethod> getPaymentMethods() {
+        Map<Integer, PaymentMethod> methods = new LinkedHashMap<>();
+        String query = "SELECT method_id, name FROM payment_method ORDER BY method_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                PaymentMethod method = new PaymentMethod(rs.getInt("method_id"), rs.getString("name"));
+                methods.put(method.getMethodId(), method);
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при загрузке способов оплаты: {}", e.getMessage());
+            return null;
+        }
+        return methods;
+    }
+
+    public Map<Integer, PriceRule> getPriceRules() {
+        Map<Integer, PriceRule> rules = new LinkedHashMap<>();
+        String query = "SELECT rule_id, name, coefficient FROM price_rule ORDER BY rule_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                PriceRule rule = new PriceRule(rs.getInt("rule_id"), rs.getString("name"), rs.getDouble("coefficient"));
+                rules.put(rule.getRuleId(), rule);
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при загрузке правил цен: {}", e.getMessage());
+            return null;
+        }
+        return rules;
+    }
+
+    // Действующие правила цены по времени начала сеанса
+    public List<TimePriceRule> getTimePriceRules() {
+        List<TimePriceRule> rules = new ArrayList<>();
+        String query = "SELECT time_rule_id, name, start_time, end_time, coefficient " +
+                "FROM price_time_rule WHERE active = TRUE ORDER BY time_rule_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                rules.add(new TimePriceRule(
+                        rs.getInt("time_rule_id"),
+                        rs.getString("name"),
+                        rs.getTime("start_time").toLocalTime(),
+                        rs.getTime("end_time").toLocalTime(),
+                        rs.getDouble("coefficient")));
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при загрузке правил цен по времени: {}", e.getMessage());
+            return null;
+        }
+        return rules;
+    }
+
+    // Названия статусов билетов по status_id
+    public Map<Integer, String> getTicketStatuses() {
+        Map<Integer, String> statuses = new LinkedHashMap<>();
+        String query = "SELECT status_id, name FROM ticket_status ORDER BY status_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                statuses.put(rs.getInt("status_id"), rs.getString("name"));
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при загрузке статусов билетов: {}", e.getMessage());
+            return null;
+        }
+        return statuses;
+    }
+}
@@ -0,0 +1,294 @@
+package com.cinema.cinemamanagementsystem.dao;
+
+import com.cinema.cinemamanagementsystem.models.DailySales;
+import com.cinema.cinemamanagementsystem.models.FilmPopularity;
+import com.cinema.cinemamanagementsystem.models.PaymentMethodStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Дневные агрегаты продаж (sales_daily_rollup): дочитывание новых платежей по водяному знаку и чтение для отчетов
+public class SalesRollupDAO {
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupDAO.class);
+
+    private static final String ROLLUP_NAME = "sales_daily";
+
+    private static final String ROLLUP_INSERT =
+            "INSERT INTO sales_daily_rollup " +
+                    "(sale_date, film_id, hall_id, method_id, payment_count, payment_amount, refund_count, refund_amount) " +
+                    "SELECT DATE(p.payment_time), sh.film_id, sh.hall_id, p.method_id, " +
+                    "       SUM(CASE WHEN p.amount > 0 THEN 1 ELSE 0 END), " +
+                    "       SUM(CASE WHEN p.amount > 0 THEN p.amount ELSE 0 END), " +
+                    "       SUM(CASE WHEN p.amount < 0 THEN 1 ELSE 0 END), " +
+                    "       SUM(CASE WHEN p.amount < 0 THEN -p.amount ELSE 0 END) " +
+                    "FROM payment p " +
+                    "JOIN ticket t ON p.ticket_id = t.ticket_id " +
+                    "JOIN showtime sh ON t.showtime_id = sh.showtime_id ";
+    private static final String ROLLUP_GROUP_BY =
+            "GROUP BY DATE(p.payment_time), sh.film_id, sh.hall_id, p.method_id ";
+
+    /**
+     * Добавить в агрегаты до batchSize платежей после водяного знака и сдвинуть знак — одной транзакцией.
+     * Берутся только платежи, записанные больше settleSeconds назад по часам БД, и только подряд
+     * по payment_id: платеж незавершенного заказа с меньшим ID обычно не будет пропущен из-за более нового.
+     * Заказ, открытый дольше выдержки, все же может остаться позади знака — его подбирает rerollSince.
+     * Возвращает число учтенных платежей (0 — новых нет), -1 при ошибке.
+     */
+    public int rollUpNextBatch(int batchSize, int settleSeconds) {
+        String pendingQuery =
+                "SELECT payment_id, TIMESTAMPDIFF(SECOND, recorded_at, NOW()) >= ? AS settled FROM payment " +
+                        "WHERE payment_id > ? " +
+                        "ORDER BY payment_id " +
+                        "LIMIT ?";
+        String rollupQuery =
+                ROLLUP_INSERT +
+                        "WHERE p.payment_id > ? AND p.payment_id <= ? " +
+                        ROLLUP_GROUP_BY +
+                        "ON DUPLICATE KEY UPDATE payment_count = payment_count + VALUES(payment_count), " +
+                        "payment_amount = payment_amount + VALUES(payment_amount), " +
+                        "refund_count = refund_count + VALUES(refund_count), " +
+                        "refund_amount = refund_amount + VALUES(refund_amount)";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Блокировка строки знака: задания с разных касс дочитывают по очереди
+                int watermark = lockWatermark(conn);
+
+                int upTo = watermark;
+                int count = 0;
+                try (PreparedStatement pstmt = conn.prepareStatement(pendingQuery)) {
+                    pstmt.setInt(1, settleSeconds);
+                    pstmt.setInt(2, watermark);
+                    pstmt.setInt(3, batchSize);
+                    ResultSet rs = pstmt.executeQuery();
+                    while (rs.next()) {
+                        if (!rs.getBoolean("settled")) {
+                            break;
+                        }
+                        upTo = rs.getInt("payment_id");
+                        count++;
+                    }
+                }
+
+                if (count > 0) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(rollupQuery)) {
+                        pstmt.setInt(1, watermark);
+                        pstmt.setInt(2, upTo);
+                        pstmt.executeUpdate();
+                    }
+                    try (PreparedStatement pstmt = conn.prepareStatement(
+                            "UPDATE rollup_watermark SET last_payment_id = ? WHERE rollup_name = ?")) {
+                        pstmt.setInt(1, upTo);
+                        pstmt.setString(2, ROLLUP_NAME);
+                        pstmt.executeUpdate();
+                    }
+                }
+
+                conn.commit();
+                return count;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при обновлении агрегатов продаж: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    private int lockWatermark(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT last_payment_id FROM rollup_watermark WHERE rollup_name = ? FOR UPDATE")) {
+            pstmt.setString(1, ROLLUP_NAME);
+            ResultSet rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                throw new SQLException("Нет водяного знака агрегатов продаж '" + ROLLUP_NAME + "'");
+            }
+            return rs.getInt("last_payment_id");
+        }
+    }
+
+    /**
+     * Пересчитать агрегаты за дни с from по платежам не новее водяного знака — одной транзакцией.
+     * Подбирает платежи, закоммиченные уже после того, как знак прошел их ID (долгая транзакция кассы).
+     * Возвращает false при ошибке БД
+     */
+    public boolean rerollSince(LocalDate from) {
+        String deleteQuery = "DELETE FROM sales_daily_rollup WHERE sale_date >= ?";
+        String rollupQuery =
+                ROLLUP_INSERT +
+                        "WHERE p.payment_time >= ? AND p.payment_id <= ? " +
+                        ROLLUP_GROUP_BY;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Под блокировкой знака: дочитывание не вклинится между удалением и пересчетом
+                int watermark = lockWatermark(conn);
+
+                try (PreparedStatement pstmt = conn.prepareStatement(deleteQuery)) {
+                    pstmt.setDate(1, Date.valueOf(from));
+                    pstmt.executeUpdate();
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(rollupQuery)) {
+                    pstmt.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+                    pstmt.setInt(2, watermark);
+                    pstmt.executeUpdate();
+                }
+
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при пересчете агрегатов продаж с {}: {}", from, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Очистить агрегаты и сбросить водяной знак — следующий запуск задания пересчитает все платежи
+     */
+    public boolean resetRollup() {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            conn.setAutoCommit(false);
+            try {
+                stmt.executeUpdate("DELETE FROM sales_daily_rollup");
+                stmt.executeUpdate("UPDATE rollup_watermark SET last_payment_id = 0 WHERE rollup_name = '" + ROLLUP_NAME + "'");
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при сбросе агрегатов продаж: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    // Продажи по дням за период [from, to] включительно; дни без платежей не возвращаются. null при ошибке БД
+    public List<DailySales> getDailySales(LocalDate from, LocalDate to) {
+        List<DailySales> days = new ArrayList<>();
+        String query =
+                "SELECT sale_date, SUM(payment_count) AS payment_count, SUM(payment_amount) AS payment_amount, " +
+                        "       SUM(refund_count) AS refund_count, SUM(refund_amount) AS refund_amount " +
+                        "FROM sales_daily_rollup " +
+                        "WHERE sale_date BETWEEN ? AND ? " +
+                        "GROUP BY sale_date " +
+                        "ORDER BY sale_date";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setDate(1, Date.valueOf(from));
+            pstmt.setDate(2, Date.valueOf(to));
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                days.add(new DailySales(
+                        rs.getDate("sale_date").toLocalDate(),
+                        rs.getLong("payment_count"),
+                        rs.getDouble("payment_amount"),
+                        rs.getLong("refund_count"),
+                        rs.getDouble("refund_amount")));
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при получении продаж по дням: {}", e.getMessage());
+            return null;
+        }
+        return days;
+    }
+
+    /**
+     * Продажи по фильмам за период [from, to] по дате платежа, по одному фильму в consumer.
+     * Билеты — оплаты за вычетом возвратов, выручка — за вычетом возвратов; места в агрегатах нет (capacity = 0).
+     * Возвращает false при ошибке БД
+     */
+    public boolean forEachFilmSales(LocalDate from, LocalDate to, Consumer<FilmPopularity> consumer) {
+        String query =
+                "SELECT r.film_id, f.title, " +
+                        "       SUM(r.payment_count) - SUM(r.refund_count) AS tickets_sold, " +
+                        "       SUM(r.payment_amount) - SUM(r.refund_amount) AS revenue " +
+                        "FROM sales_daily_rollup r " +
+                        "JOIN film f ON f.film_id = r.film_id " +
+                        "WHERE r.sale_date BETWEEN ? AND ? " +
+                        "GROUP BY r.film_id, f.title";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setDate(1, Date.valueOf(from));
+            pstmt.setDate(2, Date.valueOf(to));
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                consumer.accept(new FilmPopularity(
+                        rs.getInt("film_id"),
+                        rs.getString("title"),
+                        0,
+                        rs.getLong("tickets_sold"),
+                        rs.getDouble("revenue"),
+                        0,
+                        0));
+            }
+            return true;
+        } catch (SQLException e) {
+            logger.error("Ошибка при получении продаж по фильмам: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    // Платежи и возвраты по каждому методу из payment_method за период [from, to]; null при ошибке БД
+    public List<PaymentMethodStats> getPaymentMethodStats(LocalDate from, LocalDate to) {
+        List<PaymentMethodStats> stats = new ArrayList<>();
+        String query =
+                "SELECT pm.method_id, pm.name AS method_name, " +
+                        "       COALESCE(SUM(r.payment_count), 0) AS payment_count, " +
+                        "       COALESCE(SUM(r.payment_amount), 0) AS payment_amount, " +
+                        "       COALESCE(SUM(r.refund_count), 0) AS refund_count, " +
+                        "       COALESCE(SUM(r.refund_amount), 0) AS refund_amount " +
+                        "FROM payment_method pm " +
+                        "LEFT JOIN sales_daily_rollup r ON r.method_id = pm.method_id AND r.sale_date BETWEEN ? AND ? " +
+                        "GROUP BY pm.method_id, pm.name " +
+                        "ORDER BY pm.method_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setDate(1, Date.valueOf(from));
+            pstmt.setDate(2, Date.valueOf(to));
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                stats.add(new PaymentMethodStats(
+                        rs.getInt("method_id"),
+                        rs.getString("method_name"),
+                        rs.getLong("payment_count"),
+                        rs.getDouble("payment_amount"),
+                        rs.getLong("refund_count"),
+                        rs.getDouble("refund_amount")));
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при получении продаж по методам оплаты: {}", e.getMessage());
+            return null;
+        }
+        return stats;
+    }
+}
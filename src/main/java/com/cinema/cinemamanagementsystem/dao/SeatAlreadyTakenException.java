@@ -0,0 +1,24 @@
+package com.cinema.cinemamanagementsystem.dao;
+
+/**
+ * Место уже занято активным билетом — конфликт уникального ключа uq_ticket_active_seat.
+ */
+public class SeatAlreadyTakenException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final int showtimeId;
+    private final int seatId;
+
+    public SeatAlreadyTakenException(int showtimeId, int seatId) {
+        super(seatId > 0
+                ? "Место #" + seatId + " уже занято"
+                : "Одно из выбранных мест уже занято");
+        this.showtimeId = showtimeId;
+        this.seatId = seatId;
+    }
+
+    public int getShowtimeId() { return showtimeId; }
+
+    // 0, если конкретное место неизвестно (конфликт в пакетной вставке)
+    public int getSeatId() { return seatId; }
+}
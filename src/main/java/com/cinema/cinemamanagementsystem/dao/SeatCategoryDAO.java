@@ -2,17 +2,21 @@ package com.cinema.cinemamanagementsystem.dao;
 
 import com.cinema.cinemamanagementsystem.models.SeatCategory;
 import com.cinema.cinemamanagementsystem.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.HashMap;
 import java.util.Map;
 
 public class SeatCategoryDAO {
+    private static final Logger logger = LoggerFactory.getLogger(SeatCategoryDAO.class);
 
+    // Все категории мест; null при ошибке БД
     public Map<Integer, SeatCategory> getAllCategories() {
         Map<Integer, SeatCategory> map = new HashMap<>();
 
-        String query = "SELECT category_id, name, color FROM seat_category";
+        String query = "SELECT category_id, name, color, price_coefficient FROM seat_category";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(query);
@@ -23,12 +27,14 @@ public class SeatCategoryDAO {
                 cat.setCategoryId(rs.getInt("category_id"));
                 cat.setName(rs.getString("name"));
                 cat.setColor(rs.getString("color")); // HEX из БД
+                cat.setPriceCoefficient(rs.getDouble("price_coefficient"));
 
                 map.put(cat.getCategoryId(), cat);
             }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+        } catch (SQLException e) {
+            logger.error("Ошибка при загрузке категорий мест: {}", e.getMessage());
+            return null;
         }
 
         return map;
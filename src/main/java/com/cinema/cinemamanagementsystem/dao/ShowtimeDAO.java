@@ -1,18 +1,38 @@
 package com.cinema.cinemamanagementsystem.dao;
 
+import com.cinema.cinemamanagementsystem.config.DatabaseConfig;
 import com.cinema.cinemamanagementsystem.models.Seat;
 import com.cinema.cinemamanagementsystem.models.Showtime;
+import com.cinema.cinemamanagementsystem.models.ShowtimeOccupancy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class ShowtimeDAO {
     private static final Logger logger = LoggerFactory.getLogger(ShowtimeDAO.class);
 
+    // Небольшой LRU-кэш сеансов по ID, общий для всех экземпляров DAO.
+    // Сбрасывается при добавлении и отмене сеанса; объекты из кэша не изменять
+    private static final int SHOWTIME_CACHE_SIZE = 256;
+    private static final Map<Integer, Showtime> showtimeCache = Collections.synchronizedMap(
+            new LinkedHashMap<Integer, Showtime>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Showtime> eldest) {
+                    return size() > SHOWTIME_CACHE_SIZE;
+                }
+            });
+
     // Получить все сеансы
     public List<Showtime> getAllShowtimes() {
         List<Showtime> showtimes = new ArrayList<>();
@@ -38,6 +58,99 @@ public class ShowtimeDAO {
         return showtimes;
     }
 
+    // Получить сеанс по ID (сначала из кэша)
+    public Showtime getShowtimeById(int showtimeId) {
+        Showtime cached = showtimeCache.get(showtimeId);
+        if (cached != null) {
+            return cached;
+        }
+
+        String query =
+                "SELECT s.*, f.title AS film_title, h.name AS hall_name, " +
+                        "       pr.name AS rule_name, pr.coefficient " +
+                        "FROM showtime s " +
+                        "JOIN film f ON s.film_id = f.film_id " +
+                        "JOIN hall h ON s.hall_id = h.hall_id " +
+                        "LEFT JOIN price_rule pr ON s.rule_id = pr.rule_id " +
+                        "WHERE s.showtime_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setInt(1, showtimeId);
+            ResultSet rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                Showtime showtime = mapResultSetToShowtime(rs);
+                showtimeCache.put(showtimeId, showtime);
+                return showtime;
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при получении сеанса: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    // Убрать сеанс из кэша (отмена/изменение сеанса)
+    public static void evictShowtime(int showtimeId) {
+        showtimeCache.remove(showtimeId);
+    }
+
+    public static void clearShowtimeCache() {
+        showtimeCache.clear();
+    }
+
+    // Получить сеансы в интервале [from, to); null при ошибке БД — ее нельзя кэшировать как день без сеансов
+    public List<Showtime> getShowtimesBetween(LocalDateTime from, LocalDateTime to) {
+        List<Showtime> showtimes = new ArrayList<>();
+        String query =
+                "SELECT s.*, f.title AS film_title, h.name AS hall_name, " +
+                        "       pr.name AS rule_name, pr.coefficient " +
+                        "FROM showtime s " +
+                        "JOIN film f ON s.film_id = f.film_id " +
+                        "JOIN hall h ON s.hall_id = h.hall_id " +
+                        "LEFT JOIN price_rule pr ON s.rule_id = pr.rule_id " +
+                        "WHERE s.date_time >= ? AND s.date_time < ? " +
+                        "ORDER BY s.date_time";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setTimestamp(1, Timestamp.valueOf(from));
+            pstmt.setTimestamp(2, Timestamp.valueOf(to));
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                showtimes.add(mapResultSetToShowtime(rs));
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при получении сеансов за период: {}", e.getMessage());
+            return null;
+        }
+        return showtimes;
+    }
+
+    // Даты, на которые есть сеансы, начиная с указанного момента (для подсветки в календаре); null при ошибке БД
+    public Set<LocalDate> getShowtimeDates(LocalDateTime from) {
+        Set<LocalDate> dates = new HashSet<>();
+        String query = "SELECT DISTINCT DATE(date_time) AS show_date FROM showtime WHERE date_time >= ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setTimestamp(1, Timestamp.valueOf(from));
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                dates.add(rs.getDate("show_date").toLocalDate());
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при получении дат сеансов: {}", e.getMessage());
+            return null;
+        }
+        return dates;
+    }
+
     // Получить будущие сеансы
     public List<Showtime> getFutureShowtimes() {
         List<Showtime> showtimes = new ArrayList<>();
@@ -70,7 +183,11 @@ public class ShowtimeDAO {
             pstmt.setDouble(4, showtime.getBasePrice());
             pstmt.setInt(5, showtime.getRuleId());
 
-            return pstmt.executeUpdate() > 0;
+            boolean added = pstmt.executeUpdate() > 0;
+            if (added) {
+                clearShowtimeCache();
+            }
+            return added;
 
         } catch (SQLException e) {
             logger.error("Ошибка при добавлении сеанса: {}", e.getMessage());
@@ -106,6 +223,39 @@ public class ShowtimeDAO {
         }
     }
 
+    // Получить места зала (для кэша схем залов)
+    public List<Seat> getSeatsForHall(int hallId) {
+        List<Seat> seats = new ArrayList<>();
+
+        String query =
+                "SELECT s.seat_id, s.seat_row, s.seat_number, s.category_id " +
+                        "FROM seat s " +
+                        "WHERE s.hall_id = ? " +
+                        "ORDER BY s.seat_row, s.seat_number";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setInt(1, hallId);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                Seat seat = new Seat();
+                seat.setSeatId(rs.getInt("seat_id"));
+                seat.setRow(rs.getInt("seat_row"));
+                seat.setNumber(rs.getInt("seat_number"));
+                seat.setCategoryId(rs.getInt("category_id"));
+                seat.setHallId(hallId);
+                seats.add(seat);
+            }
+
+        } catch (SQLException e) {
+            logger.error("Ошибка при получении мест зала: {}", e.getMessage());
+        }
+
+        return seats;
+    }
+
     // Получить ВСЕ места зала для сеанса
     public List<Seat> getSeatsForShowtime(int showtimeId) {
         List<Seat> seats = new ArrayList<>();
@@ -138,7 +288,7 @@ public class ShowtimeDAO {
         return seats;
     }
 
-    // Получить занятые места
+    // Получить занятые места; null при ошибке БД, чтобы сбой не выглядел как освобождение всех мест
     public List<Integer> getTakenSeats(int showtimeId) {
         List<Integer> taken = new ArrayList<>();
 
@@ -158,11 +308,117 @@ public class ShowtimeDAO {
 
         } catch (SQLException e) {
             logger.error("Ошибка при получении занятых мест: {}", e.getMessage());
+            return null;
         }
 
         return taken;
     }
 
+    // Занятые места нескольких сеансов одним запросом (showtime_id -> места); null при ошибке БД,
+    // чтобы сбой не выглядел как освобождение всех мест
+    public Map<Integer, List<Integer>> getTakenSeats(List<Integer> showtimeIds) {
+        Map<Integer, List<Integer>> taken = new HashMap<>();
+        if (showtimeIds.isEmpty()) {
+            return taken;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(showtimeIds.size(), "?"));
+        String query =
+                "SELECT showtime_id, seat_id FROM ticket " +
+                        "WHERE showtime_id IN (" + placeholders + ") AND status_id IN (1, 2)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            for (int i = 0; i < showtimeIds.size(); i++) {
+                pstmt.setInt(i + 1, showtimeIds.get(i));
+            }
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                taken.computeIfAbsent(rs.getInt("showtime_id"), id -> new ArrayList<>()).add(rs.getInt("seat_id"));
+            }
+            return taken;
+
+        } catch (SQLException e) {
+            logger.error("Ошибка при получении занятых мест сеансов: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Заполненность всех сеансов за день одним запросом (showtime_id -> всего/занято)
+    public Map<Integer, ShowtimeOccupancy> getOccupancySummary(LocalDate date) {
+        Map<Integer, ShowtimeOccupancy> summary = new HashMap<>();
+
+        String query =
+                "SELECT s.showtime_id, COALESCE(hs.seat_count, 0) AS total_seats, " +
+                        "       COUNT(t.ticket_id) AS taken_seats " +
+                        "FROM showtime s " +
+                        "LEFT JOIN (SELECT hall_id, COUNT(*) AS seat_count FROM seat GROUP BY hall_id) hs " +
+                        "       ON hs.hall_id = s.hall_id " +
+                        "LEFT JOIN ticket t ON t.showtime_id = s.showtime_id AND t.status_id IN (1, 2) " +
+                        "WHERE s.date_time >= ? AND s.date_time < ? " +
+                        "GROUP BY s.showtime_id, hs.seat_count";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setTimestamp(1, Timestamp.valueOf(date.atStartOfDay()));
+            pstmt.setTimestamp(2, Timestamp.valueOf(date.plusDays(1).atStartOfDay()));
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                int showtimeId = rs.getInt("showtime_id");
+                summary.put(showtimeId, new ShowtimeOccupancy(
+                        showtimeId, rs.getInt("total_seats"), rs.getInt("taken_seats")));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Ошибка при получении заполненности сеансов: {}", e.getMessage());
+        }
+
+        return summary;
+    }
+
+    // Строка «сеанс периода»: зал, начало и занятые места — без промежуточных объектов
+    @FunctionalInterface
+    public interface ShowtimeTakenHandler {
+        void accept(int hallId, LocalDateTime dateTime, int takenSeats);
+    }
+
+    /**
+     * Занятые места (оплачено и забронировано) каждого сеанса за период одним запросом, по строке в handler.
+     * Вместимость зала здесь не считается — ее берут из кэша схем залов. Возвращает false при ошибке БД
+     */
+    public boolean forEachShowtimeTaken(LocalDateTime startDate, LocalDateTime endDate, ShowtimeTakenHandler handler) {
+        String query =
+                "SELECT s.showtime_id, s.hall_id, s.date_time, COUNT(t.ticket_id) AS taken_seats " +
+                        "FROM showtime s " +
+                        "LEFT JOIN ticket t ON t.showtime_id = s.showtime_id AND t.status_id IN (?, ?) " +
+                        "WHERE s.date_time BETWEEN ? AND ? " +
+                        "GROUP BY s.showtime_id, s.hall_id, s.date_time";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setInt(1, DatabaseConfig.TicketStatus.PAID);
+            pstmt.setInt(2, DatabaseConfig.TicketStatus.BOOKED);
+            pstmt.setTimestamp(3, Timestamp.valueOf(startDate));
+            pstmt.setTimestamp(4, Timestamp.valueOf(endDate));
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                handler.accept(rs.getInt("hall_id"),
+                        rs.getTimestamp("date_time").toLocalDateTime(),
+                        rs.getInt("taken_seats"));
+            }
+            return true;
+        } catch (SQLException e) {
+            logger.error("Ошибка при получении занятости сеансов за период: {}", e.getMessage());
+            return false;
+        }
+    }
+
     private Showtime mapResultSetToShowtime(ResultSet rs) throws SQLException {
         Showtime showtime = new Showtime();
         showtime.setShowtimeId(rs.getInt("showtime_id"));
@@ -1,6 +1,8 @@
 package com.cinema.cinemamanagementsystem.dao;
 
 import com.cinema.cinemamanagementsystem.models.Ticket;
+import com.cinema.cinemamanagementsystem.models.TicketCore;
+import com.cinema.cinemamanagementsystem.models.TicketSummary;
 import com.cinema.cinemamanagementsystem.config.DatabaseConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,66 +10,94 @@ import org.slf4j.LoggerFactory;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class TicketDAO {
     private static final Logger logger = LoggerFactory.getLogger(TicketDAO.class);
 
-    // Создать новый билет
-    public int createTicket(Ticket ticket) {
-        String query = " INSERT INTO ticket (showtime_id, seat_id, customer_id, user_id, status_id, created_at)"+
-            "VALUES (?, ?, ?, ?, ?, ?)";
+    // Уникальный ключ «одно активное место на сеанс» (V1__ticket_active_seat_unique.sql)
+    private static final String ACTIVE_SEAT_KEY = "uq_ticket_active_seat";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+    // Колонки строки таблицы билетов: только ID справочников, названия — из ReferenceDataCache
+    private static final String SUMMARY_COLUMNS =
+            "t.ticket_id, t.showtime_id, t.seat_id, t.status_id, t.created_at, " +
+                    "s.seat_row, s.seat_number, s.category_id AS seat_category_id, " +
+                    "f.title AS film_title, sh.date_time, c.name AS customer_name ";
 
-            pstmt.setInt(1, ticket.getShowtimeId());
-            pstmt.setInt(2, ticket.getSeatId());
+    private final ReferenceDataCache referenceData;
 
-            if (ticket.getCustomerId() > 0) {
-                pstmt.setInt(3, ticket.getCustomerId());
-            } else {
-                pstmt.setNull(3, Types.INTEGER);
-            }
+    public TicketDAO() {
+        this(ReferenceDataCache.getInstance());
+    }
+
+    // package-private — бенчмарки подставляют справочники без БД
+    TicketDAO(ReferenceDataCache referenceData) {
+        this.referenceData = referenceData;
+    }
 
-            pstmt.setInt(4, ticket.getUserId());
-            pstmt.setInt(5, ticket.getStatusId());
-            pstmt.setTimestamp(6, Timestamp.valueOf(ticket.getCreatedAt()));
+    // Пакетно создать билеты заказа в рамках транзакции вызывающего; возвращает ID в порядке списка.
+    // Занятое место отклоняется уникальным ключом uq_ticket_active_seat -> SeatAlreadyTakenException
+    public List<Integer> createTickets(Connection conn, List<Ticket> tickets) throws SQLException {
+        String query = "INSERT INTO ticket (showtime_id, seat_id, customer_id, user_id, status_id, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
 
-            int rowsAffected = pstmt.executeUpdate();
+        List<Integer> ticketIds = new ArrayList<>(tickets.size());
 
-            if (rowsAffected > 0) {
-                ResultSet rs = pstmt.getGeneratedKeys();
-                if (rs.next()) {
-                    return rs.getInt(1);
+        try (PreparedStatement pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            for (Ticket ticket : tickets) {
+                pstmt.setInt(1, ticket.getShowtimeId());
+                pstmt.setInt(2, ticket.getSeatId());
+
+                if (ticket.getCustomerId() > 0) {
+                    pstmt.setInt(3, ticket.getCustomerId());
+                } else {
+                    pstmt.setNull(3, Types.INTEGER);
                 }
+
+                pstmt.setInt(4, ticket.getUserId());
+                pstmt.setInt(5, ticket.getStatusId());
+                pstmt.setTimestamp(6, Timestamp.valueOf(ticket.getCreatedAt()));
+                pstmt.addBatch();
             }
-        } catch (SQLException e) {
-            logger.error("Ошибка при создании билета: {}", e.getMessage());
+
+            try {
+                pstmt.executeBatch();
+            } catch (SQLException e) {
+                if (isActiveSeatConflict(e)) {
+                    throw new SeatAlreadyTakenException(tickets.get(0).getShowtimeId(), 0);
+                }
+                throw e;
+            }
+
+            try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                while (rs.next()) {
+                    ticketIds.add(rs.getInt(1));
+                }
+            }
+        }
+
+        if (ticketIds.size() != tickets.size()) {
+            throw new SQLException("Не удалось получить номера созданных билетов");
         }
-        return -1;
+        return ticketIds;
     }
 
-    // Получить билет по ID
-    public Ticket getTicketById(int ticketId) {
+    // Получить билет для бизнес-логики: статус, сеанс, место, оплаченная сумма и метод оплаты, без JOIN-ов для отображения
+    public TicketCore getTicketCore(int ticketId) {
         String query =
-                "SELECT t.*, s.seat_row, s.seat_number, sc.name AS seat_category, " +
-                        "       c.name AS customer_name, u.username AS user_name, ts.name AS status_name, " +
-                        "       sh.date_time, sh.base_price, pr.coefficient, " +
-                        "       f.title AS film_title, h.name AS hall_name " +
+                "SELECT t.ticket_id, t.showtime_id, t.seat_id, t.customer_id, t.status_id, t.created_at, " +
+                        "sh.date_time, " +
+                        "(SELECT COALESCE(SUM(p.amount), 0) FROM payment p " +
+                        " WHERE p.ticket_id = t.ticket_id AND p.amount > 0) AS paid_amount, " +
+                        "(SELECT p.method_id FROM payment p " +
+                        " WHERE p.ticket_id = t.ticket_id AND p.amount > 0 " +
+                        " ORDER BY p.payment_id DESC LIMIT 1) AS paid_method_id " +
                         "FROM ticket t " +
                         "JOIN showtime sh ON t.showtime_id = sh.showtime_id " +
-                        "JOIN film f ON sh.film_id = f.film_id " +
-                        "JOIN hall h ON sh.hall_id = h.hall_id " +
-                        "JOIN seat s ON t.seat_id = s.seat_id " +
-                        "JOIN seat_category sc ON s.category_id = sc.category_id " +
-                        "LEFT JOIN customer c ON t.customer_id = c.customer_id " +
-                        "JOIN users u ON t.user_id = u.user_id " +
-                        "JOIN ticket_status ts ON t.status_id = ts.status_id " +
-                        "LEFT JOIN price_rule pr ON sh.rule_id = pr.rule_id " +
                         "WHERE t.ticket_id = ?";
 
-
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(query)) {
 
@@ -75,7 +105,16 @@ public class TicketDAO {
             ResultSet rs = pstmt.executeQuery();
 
             if (rs.next()) {
-                return mapResultSetToTicket(rs);
+                return new TicketCore(
+                        rs.getInt("ticket_id"),
+                        rs.getInt("showtime_id"),
+                        rs.getInt("seat_id"),
+                        rs.getInt("customer_id"),
+                        rs.getInt("status_id"),
+                        rs.getTimestamp("created_at").toLocalDateTime(),
+                        rs.getTimestamp("date_time").toLocalDateTime(),
+                        rs.getDouble("paid_amount"),
+                        rs.getInt("paid_method_id"));
             }
         } catch (SQLException e) {
             logger.error("Ошибка при получении билета: {}", e.getMessage());
@@ -83,42 +122,28 @@ public class TicketDAO {
         return null;
     }
 
-    // Обновить статус билета
-    public boolean updateTicketStatus(int ticketId, int statusId) {
-        String query = "UPDATE ticket SET status_id = ? WHERE ticket_id = ?";
+    // Сменить статус в рамках транзакции вызывающего, только если билет еще в ожидаемом статусе
+    public boolean updateTicketStatus(Connection conn, int ticketId, int fromStatusId, int toStatusId) throws SQLException {
+        String query = "UPDATE ticket SET status_id = ? WHERE ticket_id = ? AND status_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-
-            pstmt.setInt(1, statusId);
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, toStatusId);
             pstmt.setInt(2, ticketId);
-
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            logger.error("Ошибка при обновлении статуса билета: {}", e.getMessage());
-            return false;
+            pstmt.setInt(3, fromStatusId);
+            return pstmt.executeUpdate() > 0;
         }
     }
 
     // Получить активные бронирования (истекшие и неистекшие)
-    public List<Ticket> getActiveBookings(boolean expiredOnly) {
-        List<Ticket> tickets = new ArrayList<>();
+    public List<TicketSummary> getActiveBookings(boolean expiredOnly) {
+        List<TicketSummary> tickets = new ArrayList<>();
         String query =
-                "SELECT t.*, s.seat_row, s.seat_number, sc.name AS seat_category, " +
-                        "       c.name AS customer_name, u.username AS user_name, ts.name AS status_name, " +
-                        "       sh.date_time, sh.base_price, pr.coefficient, " +
-                        "       f.title AS film_title, h.name AS hall_name " +
+                "SELECT " + SUMMARY_COLUMNS +
                         "FROM ticket t " +
                         "JOIN showtime sh ON t.showtime_id = sh.showtime_id " +
                         "JOIN film f ON sh.film_id = f.film_id " +
-                        "JOIN hall h ON sh.hall_id = h.hall_id " +
                         "JOIN seat s ON t.seat_id = s.seat_id " +
-                        "JOIN seat_category sc ON s.category_id = sc.category_id " +
                         "LEFT JOIN customer c ON t.customer_id = c.customer_id " +
-                        "JOIN users u ON t.user_id = u.user_id " +
-                        "JOIN ticket_status ts ON t.status_id = ts.status_id " +
-                        "LEFT JOIN price_rule pr ON sh.rule_id = pr.rule_id " +
                         "WHERE t.status_id = 2";
 
 
@@ -135,7 +160,7 @@ public class TicketDAO {
             ResultSet rs = pstmt.executeQuery();
 
             while (rs.next()) {
-                tickets.add(mapResultSetToTicket(rs));
+                tickets.add(mapResultSetToSummary(rs));
             }
         } catch (SQLException e) {
             logger.error("Ошибка при получении бронирований: {}", e.getMessage());
@@ -143,46 +168,114 @@ public class TicketDAO {
         return tickets;
     }
 
-    // Отменить истекшие бронирования
-    public int cancelExpiredBookings() {
+    // Брони, созданные до указанного момента, по возрастанию времени создания.
+    // Заполняются только ID, сеанс, место и время — для планировщика истечения броней
+    public List<Ticket> getPendingBookings(LocalDateTime createdBefore, int limit) {
+        List<Ticket> bookings = new ArrayList<>();
         String query =
-                "UPDATE ticket " +
-                        "SET status_id = ? " +        // статус отмены
-                        "WHERE status_id = 2 " +      // забронирован
-                        "AND created_at < DATE_SUB(NOW(), INTERVAL ? MINUTE)";
-
+                "SELECT ticket_id, showtime_id, seat_id, created_at " +
+                        "FROM ticket " +
+                        "WHERE status_id = ? AND created_at < ? " +
+                        "ORDER BY created_at " +
+                        "LIMIT ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(query)) {
 
-            pstmt.setInt(1, DatabaseConfig.TicketStatus.REFUND);
-            pstmt.setInt(2, DatabaseConfig.BOOKING_TIMEOUT_MINUTES);
+            pstmt.setInt(1, DatabaseConfig.TicketStatus.BOOKED);
+            pstmt.setTimestamp(2, Timestamp.valueOf(createdBefore));
+            pstmt.setInt(3, limit);
+            ResultSet rs = pstmt.executeQuery();
 
-            return pstmt.executeUpdate();
+            while (rs.next()) {
+                bookings.add(mapBookingDeadline(rs));
+            }
         } catch (SQLException e) {
-            logger.error("Ошибка при отмене истекших бронирований: {}", e.getMessage());
-            return 0;
+            logger.error("Ошибка при получении активных броней: {}", e.getMessage());
         }
+        return bookings;
+    }
+
+    // Снять истекшие брони из списка одним UPDATE. Возвращает только реально снятые:
+    // подтвержденные или отмененные за это время брони блокировка FOR UPDATE отсеивает.
+    // null — ошибка БД, брони не сняты
+    public List<Ticket> releaseExpiredBookings(List<Integer> ticketIds, LocalDateTime createdBefore) {
+        List<Ticket> released = new ArrayList<>();
+        if (ticketIds.isEmpty()) {
+            return released;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(ticketIds.size(), "?"));
+        String selectQuery =
+                "SELECT ticket_id, showtime_id, seat_id, created_at " +
+                        "FROM ticket " +
+                        "WHERE ticket_id IN (" + placeholders + ") AND status_id = ? AND created_at < ? " +
+                        "FOR UPDATE";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = conn.prepareStatement(selectQuery)) {
+                    int index = 1;
+                    for (int ticketId : ticketIds) {
+                        pstmt.setInt(index++, ticketId);
+                    }
+                    pstmt.setInt(index++, DatabaseConfig.TicketStatus.BOOKED);
+                    pstmt.setTimestamp(index, Timestamp.valueOf(createdBefore));
+                    ResultSet rs = pstmt.executeQuery();
+                    while (rs.next()) {
+                        released.add(mapBookingDeadline(rs));
+                    }
+                }
+
+                if (!released.isEmpty()) {
+                    String updateQuery = "UPDATE ticket SET status_id = ? WHERE ticket_id IN (" +
+                            String.join(", ", Collections.nCopies(released.size(), "?")) + ")";
+                    try (PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
+                        pstmt.setInt(1, DatabaseConfig.TicketStatus.REFUND);
+                        int index = 2;
+                        for (Ticket ticket : released) {
+                            pstmt.setInt(index++, ticket.getTicketId());
+                        }
+                        pstmt.executeUpdate();
+                    }
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при снятии истекших броней: {}", e.getMessage());
+            return null;
+        }
+        return released;
+    }
+
+    // Маппер облегченной брони (без JOIN-полей)
+    private Ticket mapBookingDeadline(ResultSet rs) throws SQLException {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(rs.getInt("ticket_id"));
+        ticket.setShowtimeId(rs.getInt("showtime_id"));
+        ticket.setSeatId(rs.getInt("seat_id"));
+        ticket.setStatusId(DatabaseConfig.TicketStatus.BOOKED);
+        ticket.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        return ticket;
     }
 
     // Получить билеты клиента
-    public List<Ticket> getCustomerTickets(int customerId) {
-        List<Ticket> tickets = new ArrayList<>();
+    public List<TicketSummary> getCustomerTickets(int customerId) {
+        List<TicketSummary> tickets = new ArrayList<>();
         String query =
-                "SELECT t.*, s.seat_row, s.seat_number, sc.name AS seat_category, " +
-                        "       c.name AS customer_name, u.username AS user_name, ts.name AS status_name, " +
-                        "       sh.date_time, sh.base_price, pr.coefficient, " +
-                        "       f.title AS film_title, h.name AS hall_name " +
+                "SELECT " + SUMMARY_COLUMNS +
                         "FROM ticket t " +
                         "JOIN showtime sh ON t.showtime_id = sh.showtime_id " +
                         "JOIN film f ON sh.film_id = f.film_id " +
-                        "JOIN hall h ON sh.hall_id = h.hall_id " +
                         "JOIN seat s ON t.seat_id = s.seat_id " +
-                        "JOIN seat_category sc ON s.category_id = sc.category_id " +
                         "JOIN customer c ON t.customer_id = c.customer_id " +
-                        "JOIN users u ON t.user_id = u.user_id " +
-                        "JOIN ticket_status ts ON t.status_id = ts.status_id " +
-                        "LEFT JOIN price_rule pr ON sh.rule_id = pr.rule_id " +
                         "WHERE t.customer_id = ? " +
                         "ORDER BY t.created_at DESC";
 
@@ -194,7 +287,7 @@ public class TicketDAO {
             ResultSet rs = pstmt.executeQuery();
 
             while (rs.next()) {
-                tickets.add(mapResultSetToTicket(rs));
+                tickets.add(mapResultSetToSummary(rs));
             }
         } catch (SQLException e) {
             logger.error("Ошибка при получении билетов клиента: {}", e.getMessage());
@@ -202,38 +295,93 @@ public class TicketDAO {
         return tickets;
     }
 
-    private Ticket mapResultSetToTicket(ResultSet rs) throws SQLException {
-        Ticket ticket = new Ticket();
-        ticket.setTicketId(rs.getInt("ticket_id"));
-        ticket.setShowtimeId(rs.getInt("showtime_id"));
-        ticket.setSeatId(rs.getInt("seat_id"));
+    // Число билетов, оформленных за период (для прогресса выгрузки)
+    public long countTickets(LocalDateTime startDate, LocalDateTime endDate) {
+        String query = "SELECT COUNT(*) FROM ticket WHERE created_at BETWEEN ? AND ?";
 
-        // Формируем информацию о месте
-        String seatInfo = "Ряд " + rs.getInt("seat_row") +
-                ", Место " + rs.getInt("seat_number") +
-                " (" + rs.getString("seat_category") + ")";
-        ticket.setSeatInfo(seatInfo);
-
-        ticket.setCustomerId(rs.getInt("customer_id"));
-        ticket.setCustomerName(rs.getString("customer_name"));
-        ticket.setUserId(rs.getInt("user_id"));
-        ticket.setUserName(rs.getString("user_name"));
-        ticket.setStatusId(rs.getInt("status_id"));
-        ticket.setStatusName(rs.getString("status_name"));
-        ticket.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+
+            pstmt.setTimestamp(1, Timestamp.valueOf(startDate));
+            pstmt.setTimestamp(2, Timestamp.valueOf(endDate));
+            ResultSet rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при подсчете билетов: {}", e.getMessage());
+        }
+        return 0;
+    }
 
-        // Рассчитываем финальную цену
-        double basePrice = rs.getDouble("base_price");
-        double coefficient = rs.getDouble("coefficient");
-        if (coefficient == 0) coefficient = 1.0;
+    /**
+     * Билеты, оформленные за период, по возрастанию времени, по одному в consumer — для выгрузки.
+     * Строки читаются курсором только вперед порциями по EXPORT_FETCH_SIZE и в памяти не копятся.
+     * Возвращает число прочитанных строк или -1 при ошибке БД
+     */
+    public long forEachTicket(LocalDateTime startDate, LocalDateTime endDate, Consumer<TicketSummary> consumer) {
+        String query =
+                "SELECT " + SUMMARY_COLUMNS +
+                        "FROM ticket t " +
+                        "JOIN showtime sh ON t.showtime_id = sh.showtime_id " +
+                        "JOIN film f ON sh.film_id = f.film_id " +
+                        "JOIN seat s ON t.seat_id = s.seat_id " +
+                        "LEFT JOIN customer c ON t.customer_id = c.customer_id " +
+                        "WHERE t.created_at BETWEEN ? AND ? " +
+                        "ORDER BY t.created_at, t.ticket_id";
+
+        long count = 0;
+        try (Connection conn = DatabaseConnection.getStreamingConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setFetchSize(DatabaseConfig.EXPORT_FETCH_SIZE);
+            pstmt.setTimestamp(1, Timestamp.valueOf(startDate));
+            pstmt.setTimestamp(2, Timestamp.valueOf(endDate));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(mapResultSetToSummary(rs));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при выгрузке билетов: {}", e.getMessage());
+            return -1;
+        }
+        return count;
+    }
 
-        double finalPrice = basePrice * coefficient;
-        // Если билет был забронирован, добавляем доплату 15%
-        if (ticket.getStatusId() == DatabaseConfig.TicketStatus.BOOKED) {
-            finalPrice *= (1 + DatabaseConfig.BOOKING_SURCHARGE_RATE);
+    // Конфликт активного места: дубликат (MySQL 1062) именно по ключу uq_ticket_active_seat,
+    // в т.ч. внутри BatchUpdateException. Прочие нарушения целостности (FK, NOT NULL) сюда не относятся
+    private static boolean isActiveSeatConflict(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException && ((SQLException) t).getErrorCode() == 1062
+                    && String.valueOf(t.getMessage()).contains(ACTIVE_SEAT_KEY)) {
+                return true;
+            }
         }
-        ticket.setFinalPrice(finalPrice);
+        SQLException next = e.getNextException();
+        return next != null && next != e && isActiveSeatConflict(next);
+    }
 
-        return ticket;
+    // Маппер строки таблицы (package-private — используется бенчмарками).
+    // Строка места не собирается здесь: TicketSummary форматирует ее при отрисовке ячейки
+    TicketSummary mapResultSetToSummary(ResultSet rs) throws SQLException {
+        int statusId = rs.getInt("status_id");
+        return new TicketSummary(
+                rs.getInt("ticket_id"),
+                rs.getInt("showtime_id"),
+                rs.getInt("seat_id"),
+                rs.getInt("seat_row"),
+                rs.getInt("seat_number"),
+                referenceData.getSeatCategoryName(rs.getInt("seat_category_id")),
+                rs.getString("film_title"),
+                rs.getTimestamp("date_time").toLocalDateTime(),
+                rs.getString("customer_name"),
+                statusId,
+                referenceData.getTicketStatusName(statusId),
+                rs.getTimestamp("created_at").toLocalDateTime());
     }
 }
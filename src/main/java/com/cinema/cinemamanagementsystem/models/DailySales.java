@@ -0,0 +1,36 @@
+package com.cinema.cinemamanagementsystem.models;
+
+import java.time.LocalDate;
+
+// Продажи за день из sales_daily_rollup (по всем фильмам, залам и методам оплаты)
+public class DailySales {
+    private final LocalDate date;
+    private final long paymentCount;
+    private final double paymentAmount;
+    private final long refundCount;
+    private final double refundAmount; // сумма возвратов по модулю
+
+    public DailySales(LocalDate date, long paymentCount, double paymentAmount, long refundCount, double refundAmount) {
+        this.date = date;
+        this.paymentCount = paymentCount;
+        this.paymentAmount = paymentAmount;
+        this.refundCount = refundCount;
+        this.refundAmount = refundAmount;
+    }
+
+    public LocalDate getDate() { return date; }
+
+    // Оплаченные билеты (положительные платежи)
+    public long getPaymentCount() { return paymentCount; }
+
+    public double getPaymentAmount() { return paymentAmount; }
+
+    public long getRefundCount() { return refundCount; }
+
+    public double getRefundAmount() { return refundAmount; }
+
+    // Выручка за вычетом возвратов
+    public double getNetAmount() {
+        return paymentAmount - refundAmount;
+    }
+}
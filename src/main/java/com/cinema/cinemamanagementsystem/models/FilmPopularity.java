@@ -0,0 +1,50 @@
+package com.cinema.cinemamanagementsystem.models;
+
+// Показатели фильма за период для отчета о популярности; место — по выручке (1 — самый кассовый)
+public class FilmPopularity {
+    private final int filmId;
+    private final String title;
+    private final int rank;
+    private final long ticketsSold;
+    private final double revenue;    // за вычетом возвратов
+    private final int showtimeCount;
+    private final long capacity;     // мест на всех сеансах фильма; 0 — неизвестно
+
+    public FilmPopularity(int filmId, String title, int rank, long ticketsSold, double revenue,
+                          int showtimeCount, long capacity) {
+        this.filmId = filmId;
+        this.title = title;
+        this.rank = rank;
+        this.ticketsSold = ticketsSold;
+        this.revenue = revenue;
+        this.showtimeCount = showtimeCount;
+        this.capacity = capacity;
+    }
+
+    public FilmPopularity withRank(int rank) {
+        return new FilmPopularity(filmId, title, rank, ticketsSold, revenue, showtimeCount, capacity);
+    }
+
+    public int getFilmId() { return filmId; }
+
+    public String getTitle() { return title; }
+
+    public int getRank() { return rank; }
+
+    public long getTicketsSold() { return ticketsSold; }
+
+    public double getRevenue() { return revenue; }
+
+    public int getShowtimeCount() { return showtimeCount; }
+
+    public long getCapacity() { return capacity; }
+
+    public boolean hasOccupancy() {
+        return capacity > 0;
+    }
+
+    // Средняя заполняемость сеансов: проданные места к местам на всех сеансах (0..1)
+    public double getAverageOccupancy() {
+        return capacity > 0 ? (double) ticketsSold / capacity : 0.0;
+    }
+}
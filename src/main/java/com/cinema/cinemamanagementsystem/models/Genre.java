@@ -0,0 +1,21 @@
+package com.cinema.cinemamanagementsystem.models;
+
+// Жанр фильма (film_genre) — справочник, читается через ReferenceDataCache
+public class Genre {
+    private final int genreId;
+    private final String name;
+
+    public Genre(int genreId, String name) {
+        this.genreId = genreId;
+        this.name = name;
+    }
+
+    public int getGenreId() { return genreId; }
+
+    public String getName() { return name; }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,30 @@
+package com.cinema.cinemamanagementsystem.models;
+
+// Зал кинотеатра (hall) — справочник, читается через ReferenceDataCache
+public class Hall {
+    private final int hallId;
+    private final String name;
+    private final double priceCoefficient;
+
+    public Hall(int hallId, String name) {
+        this(hallId, name, 1.0);
+    }
+
+    public Hall(int hallId, String name, double priceCoefficient) {
+        this.hallId = hallId;
+        this.name = name;
+        this.priceCoefficient = priceCoefficient;
+    }
+
+    public int getHallId() { return hallId; }
+
+    public String getName() { return name; }
+
+    // Наценка за тип зала (IMAX, VIP и т.п.), 1.0 — обычный зал
+    public double getPriceCoefficient() { return priceCoefficient; }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
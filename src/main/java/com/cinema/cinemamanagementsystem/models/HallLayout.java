@@ -0,0 +1,116 @@
+package com.cinema.cinemamanagementsystem.models;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Неизменяемая схема зала: места в порядке (ряд, номер) и готовая геометрия сетки.
+ * Порядковый номер места (ordinal) — индекс во внутренних массивах, по нему же
+ * индексируется битовая карта занятости сеанса.
+ */
+public final class HallLayout {
+    private final int hallId;
+
+    private final int[] seatIds;
+    private final int[] rows;
+    private final int[] numbers;
+    private final int[] categoryIds;
+
+    // Позиция места в сетке: индекс ряда и индекс колонки среди различных рядов/номеров
+    private final int[] rowIndexes;
+    private final int[] columnIndexes;
+    private final int[] rowNumbers;
+    private final int[] columnNumbers;
+
+    // seat_id -> ordinal через плотный массив (seat_id в зале идут почти подряд)
+    private final int minSeatId;
+    private final int[] ordinalBySeatId;
+
+    public HallLayout(int hallId, List<Seat> seats) {
+        this.hallId = hallId;
+
+        Seat[] sorted = seats.toArray(new Seat[0]);
+        Arrays.sort(sorted, (a, b) -> a.getRow() != b.getRow()
+                ? Integer.compare(a.getRow(), b.getRow())
+                : Integer.compare(a.getNumber(), b.getNumber()));
+
+        int size = sorted.length;
+        seatIds = new int[size];
+        rows = new int[size];
+        numbers = new int[size];
+        categoryIds = new int[size];
+
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            seatIds[i] = sorted[i].getSeatId();
+            rows[i] = sorted[i].getRow();
+            numbers[i] = sorted[i].getNumber();
+            categoryIds[i] = sorted[i].getCategoryId();
+            min = Math.min(min, seatIds[i]);
+            max = Math.max(max, seatIds[i]);
+        }
+
+        rowNumbers = distinctSorted(rows);
+        columnNumbers = distinctSorted(numbers);
+        rowIndexes = new int[size];
+        columnIndexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            rowIndexes[i] = Arrays.binarySearch(rowNumbers, rows[i]);
+            columnIndexes[i] = Arrays.binarySearch(columnNumbers, numbers[i]);
+        }
+
+        minSeatId = size == 0 ? 0 : min;
+        ordinalBySeatId = new int[size == 0 ? 0 : max - min + 1];
+        Arrays.fill(ordinalBySeatId, -1);
+        for (int i = 0; i < size; i++) {
+            ordinalBySeatId[seatIds[i] - minSeatId] = i;
+        }
+    }
+
+    private static int[] distinctSorted(int[] values) {
+        int[] copy = values.clone();
+        Arrays.sort(copy);
+        int count = 0;
+        for (int i = 0; i < copy.length; i++) {
+            if (i == 0 || copy[i] != copy[i - 1]) {
+                copy[count++] = copy[i];
+            }
+        }
+        return Arrays.copyOf(copy, count);
+    }
+
+    public int getHallId() { return hallId; }
+
+    public int getSeatCount() { return seatIds.length; }
+
+    public boolean isEmpty() { return seatIds.length == 0; }
+
+    /**
+     * Порядковый номер места в схеме или -1, если места нет в этом зале
+     */
+    public int ordinalOf(int seatId) {
+        int offset = seatId - minSeatId;
+        return offset >= 0 && offset < ordinalBySeatId.length ? ordinalBySeatId[offset] : -1;
+    }
+
+    public int getSeatId(int ordinal) { return seatIds[ordinal]; }
+
+    public int getRow(int ordinal) { return rows[ordinal]; }
+
+    public int getNumber(int ordinal) { return numbers[ordinal]; }
+
+    public int getCategoryId(int ordinal) { return categoryIds[ordinal]; }
+
+    public int getRowIndex(int ordinal) { return rowIndexes[ordinal]; }
+
+    public int getColumnIndex(int ordinal) { return columnIndexes[ordinal]; }
+
+    public int getRowCount() { return rowNumbers.length; }
+
+    public int getColumnCount() { return columnNumbers.length; }
+
+    public int getRowNumber(int rowIndex) { return rowNumbers[rowIndex]; }
+
+    public int getColumnNumber(int columnIndex) { return columnNumbers[columnIndex]; }
+}
@@ -0,0 +1,147 @@
+package com.cinema.cinemamanagementsystem.models;
+
+/**
+ * Заполняемость залов за период: плотная матрица зал × день недели × час начала сеанса.
+ * Ячейка хранит число сеансов, занятые места и места на этих сеансах в плоских массивах;
+ * доли и итоги по строкам и столбцам считаются на лету. Экземпляр неизменяемый
+ */
+public final class HallOccupancy {
+    public static final int DAYS = 7;    // 0 — понедельник
+    public static final int SLOTS = 24;  // час начала сеанса
+
+    private final int[] hallIds;
+    private final String[] hallNames;
+    private final int[] showtimes;
+    private final long[] taken;
+    private final long[] capacity;
+
+    public HallOccupancy(int[] hallIds, String[] hallNames, int[] showtimes, long[] taken, long[] capacity) {
+        this.hallIds = hallIds;
+        this.hallNames = hallNames;
+        this.showtimes = showtimes;
+        this.taken = taken;
+        this.capacity = capacity;
+    }
+
+    // Индекс ячейки в плоских массивах
+    public static int cellIndex(int hall, int day, int slot) {
+        return (hall * DAYS + day) * SLOTS + slot;
+    }
+
+    public int getHallCount() { return hallIds.length; }
+
+    public int getHallId(int hall) { return hallIds[hall]; }
+
+    public String getHallName(int hall) { return hallNames[hall]; }
+
+    public int getShowtimes(int hall, int day, int slot) {
+        return showtimes[cellIndex(hall, day, slot)];
+    }
+
+    public long getTaken(int hall, int day, int slot) {
+        return taken[cellIndex(hall, day, slot)];
+    }
+
+    public double getFillRatio(int hall, int day, int slot) {
+        int cell = cellIndex(hall, day, slot);
+        return ratio(taken[cell], capacity[cell]);
+    }
+
+    // Итоги по залу
+
+    public int getHallShowtimes(int hall) {
+        int count = 0;
+        for (int cell = cellIndex(hall, 0, 0), end = cellIndex(hall + 1, 0, 0); cell < end; cell++) {
+            count += showtimes[cell];
+        }
+        return count;
+    }
+
+    public long getHallTaken(int hall) {
+        long sum = 0;
+        for (int cell = cellIndex(hall, 0, 0), end = cellIndex(hall + 1, 0, 0); cell < end; cell++) {
+            sum += taken[cell];
+        }
+        return sum;
+    }
+
+    public double getHallFillRatio(int hall) {
+        long sumTaken = 0;
+        long sumCapacity = 0;
+        for (int cell = cellIndex(hall, 0, 0), end = cellIndex(hall + 1, 0, 0); cell < end; cell++) {
+            sumTaken += taken[cell];
+            sumCapacity += capacity[cell];
+        }
+        return ratio(sumTaken, sumCapacity);
+    }
+
+    public boolean hasShowtimes(int hall, int day) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (showtimes[cellIndex(hall, day, slot)] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public double getDayFillRatio(int hall, int day) {
+        long sumTaken = 0;
+        long sumCapacity = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            int cell = cellIndex(hall, day, slot);
+            sumTaken += taken[cell];
+            sumCapacity += capacity[cell];
+        }
+        return ratio(sumTaken, sumCapacity);
+    }
+
+    // Час начала с наибольшей заполняемостью в зале (-1, если сеансов не было)
+    public int getBestSlot(int hall) {
+        long[] slotTaken = new long[SLOTS];
+        long[] slotCapacity = new long[SLOTS];
+        for (int day = 0; day < DAYS; day++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                int cell = cellIndex(hall, day, slot);
+                slotTaken[slot] += taken[cell];
+                slotCapacity[slot] += capacity[cell];
+            }
+        }
+        int best = -1;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (slotCapacity[slot] > 0
+                    && (best < 0 || ratio(slotTaken[slot], slotCapacity[slot]) > ratio(slotTaken[best], slotCapacity[best]))) {
+                best = slot;
+            }
+        }
+        return best;
+    }
+
+    // Итоги по часу начала во всех залах
+
+    public int getSlotShowtimes(int slot) {
+        int count = 0;
+        for (int hall = 0; hall < hallIds.length; hall++) {
+            for (int day = 0; day < DAYS; day++) {
+                count += showtimes[cellIndex(hall, day, slot)];
+            }
+        }
+        return count;
+    }
+
+    public double getSlotFillRatio(int slot) {
+        long sumTaken = 0;
+        long sumCapacity = 0;
+        for (int hall = 0; hall < hallIds.length; hall++) {
+            for (int day = 0; day < DAYS; day++) {
+                int cell = cellIndex(hall, day, slot);
+                sumTaken += taken[cell];
+                sumCapacity += capacity[cell];
+            }
+        }
+        return ratio(sumTaken, sumCapacity);
+    }
+
+    private static double ratio(long taken, long capacity) {
+        return capacity > 0 ? (double) taken / capacity : 0.0;
+    }
+}
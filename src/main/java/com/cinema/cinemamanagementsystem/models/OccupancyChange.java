@@ -0,0 +1,23 @@
+package com.cinema.cinemamanagementsystem.models;
+
+public class OccupancyChange {
+    private final long changeId;
+    private final int showtimeId;
+    private final int seatId;
+    private final boolean taken;
+
+    public OccupancyChange(long changeId, int showtimeId, int seatId, boolean taken) {
+        this.changeId = changeId;
+        this.showtimeId = showtimeId;
+        this.seatId = seatId;
+        this.taken = taken;
+    }
+
+    public long getChangeId() { return changeId; }
+
+    public int getShowtimeId() { return showtimeId; }
+
+    public int getSeatId() { return seatId; }
+
+    public boolean isTaken() { return taken; }
+}
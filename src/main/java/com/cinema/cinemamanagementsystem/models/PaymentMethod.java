@@ -0,0 +1,21 @@
+package com.cinema.cinemamanagementsystem.models;
+
+// Способ оплаты (payment_method) — справочник, читается через ReferenceDataCache
+public class PaymentMethod {
+    private final int methodId;
+    private final String name;
+
+    public PaymentMethod(int methodId, String name) {
+        this.methodId = methodId;
+        this.name = name;
+    }
+
+    public int getMethodId() { return methodId; }
+
+    public String getName() { return name; }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,42 @@
+package com.cinema.cinemamanagementsystem.models;
+
+public class PaymentMethodStats {
+    private final int methodId;
+    private final String methodName;
+    private final long paymentCount;
+    private final double paymentAmount;
+    private final long refundCount;
+    private final double refundAmount; // сумма возвратов по модулю
+
+    public PaymentMethodStats(int methodId, String methodName, long paymentCount, double paymentAmount,
+                              long refundCount, double refundAmount) {
+        this.methodId = methodId;
+        this.methodName = methodName;
+        this.paymentCount = paymentCount;
+        this.paymentAmount = paymentAmount;
+        this.refundCount = refundCount;
+        this.refundAmount = refundAmount;
+    }
+
+    public int getMethodId() { return methodId; }
+
+    public String getMethodName() { return methodName; }
+
+    public long getPaymentCount() { return paymentCount; }
+
+    public double getPaymentAmount() { return paymentAmount; }
+
+    public long getRefundCount() { return refundCount; }
+
+    public double getRefundAmount() { return refundAmount; }
+
+    // Выручка за вычетом возвратов
+    public double getNetAmount() {
+        return paymentAmount - refundAmount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d операций (%.2f руб.)", methodName, paymentCount, paymentAmount);
+    }
+}
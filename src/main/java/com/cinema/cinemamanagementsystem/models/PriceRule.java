@@ -0,0 +1,25 @@
+package com.cinema.cinemamanagementsystem.models;
+
+// Правило цены сеанса (price_rule): коэффициент к базовой цене — справочник, читается через ReferenceDataCache
+public class PriceRule {
+    private final int ruleId;
+    private final String name;
+    private final double coefficient;
+
+    public PriceRule(int ruleId, String name, double coefficient) {
+        this.ruleId = ruleId;
+        this.name = name;
+        this.coefficient = coefficient;
+    }
+
+    public int getRuleId() { return ruleId; }
+
+    public String getName() { return name; }
+
+    public double getCoefficient() { return coefficient; }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
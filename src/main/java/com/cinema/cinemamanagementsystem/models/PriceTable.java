@@ -0,0 +1,66 @@
+package com.cinema.cinemamanagementsystem.models;
+
+/**
+ * Скомпилированные цены одного сеанса: цена продажи и брони по category_id в плоских массивах.
+ * Все коэффициенты (правило цены, тип зала, время начала, категория места, доплата за бронь)
+ * уже перемножены, поэтому цена места — место -> категория по схеме зала -> элемент массива.
+ */
+public final class PriceTable {
+    private final int showtimeId;
+    private final HallLayout layout;
+
+    // Индекс — category_id; неизвестные категории заполнены ценой без наценки за категорию
+    private final double[] saleByCategory;
+    private final double[] bookingByCategory;
+    private final double defaultSale;
+    private final double defaultBooking;
+
+    private final double minSale;
+    private final double maxSale;
+    private final long compiledAt = System.currentTimeMillis();
+
+    public PriceTable(int showtimeId, HallLayout layout, double[] saleByCategory, double[] bookingByCategory,
+                      double defaultSale, double defaultBooking) {
+        this.showtimeId = showtimeId;
+        this.layout = layout;
+        this.saleByCategory = saleByCategory;
+        this.bookingByCategory = bookingByCategory;
+        this.defaultSale = defaultSale;
+        this.defaultBooking = defaultBooking;
+
+        // Диапазон цен — только по категориям, которые реально есть в зале
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        for (int ordinal = 0; ordinal < layout.getSeatCount(); ordinal++) {
+            double price = getPrice(layout.getCategoryId(ordinal), false);
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+        }
+        this.minSale = layout.isEmpty() ? defaultSale : min;
+        this.maxSale = layout.isEmpty() ? defaultSale : max;
+    }
+
+    public int getShowtimeId() { return showtimeId; }
+
+    public double getPrice(int categoryId, boolean booking) {
+        double[] prices = booking ? bookingByCategory : saleByCategory;
+        if (categoryId >= 0 && categoryId < prices.length) {
+            return prices[categoryId];
+        }
+        return booking ? defaultBooking : defaultSale;
+    }
+
+    public double getSeatPrice(int seatId, boolean booking) {
+        int ordinal = layout.ordinalOf(seatId);
+        if (ordinal < 0) {
+            return booking ? defaultBooking : defaultSale;
+        }
+        return getPrice(layout.getCategoryId(ordinal), booking);
+    }
+
+    public double getMinPrice() { return minSale; }
+
+    public double getMaxPrice() { return maxSale; }
+
+    public long getCompiledAt() { return compiledAt; }
+}
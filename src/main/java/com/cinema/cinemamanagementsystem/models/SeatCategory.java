@@ -4,6 +4,7 @@ public class SeatCategory {
     private int categoryId;
     private String name;
     private String color; // HEX (#f39c12)
+    private double priceCoefficient = 1.0;
 
     public int getCategoryId() {
         return categoryId;
@@ -28,4 +29,12 @@ public class SeatCategory {
     public void setColor(String color) {
         this.color = color;
     }
+
+    public double getPriceCoefficient() {
+        return priceCoefficient;
+    }
+
+    public void setPriceCoefficient(double priceCoefficient) {
+        this.priceCoefficient = priceCoefficient;
+    }
 }
@@ -0,0 +1,23 @@
+package com.cinema.cinemamanagementsystem.models;
+
+public class ShowtimeOccupancy {
+    private final int showtimeId;
+    private final int totalSeats;
+    private final int takenSeats;
+
+    public ShowtimeOccupancy(int showtimeId, int totalSeats, int takenSeats) {
+        this.showtimeId = showtimeId;
+        this.totalSeats = totalSeats;
+        this.takenSeats = takenSeats;
+    }
+
+    public int getShowtimeId() { return showtimeId; }
+
+    public int getTotalSeats() { return totalSeats; }
+
+    public int getTakenSeats() { return takenSeats; }
+
+    public int getFreeSeats() {
+        return totalSeats - takenSeats;
+    }
+}
@@ -0,0 +1,50 @@
+package com.cinema.cinemamanagementsystem.models;
+
+import java.time.LocalDateTime;
+
+// Минимальная проекция билета для бизнес-логики (подтверждение брони, возврат): без имен и строк для отображения
+public class TicketCore {
+    private final int ticketId;
+    private final int showtimeId;
+    private final int seatId;
+    private final int customerId;
+    private final int statusId;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime showtimeStart;
+    private final double paidAmount;
+    private final int paidMethodId;
+
+    public TicketCore(int ticketId, int showtimeId, int seatId, int customerId, int statusId,
+                      LocalDateTime createdAt, LocalDateTime showtimeStart, double paidAmount, int paidMethodId) {
+        this.ticketId = ticketId;
+        this.showtimeId = showtimeId;
+        this.seatId = seatId;
+        this.customerId = customerId;
+        this.statusId = statusId;
+        this.createdAt = createdAt;
+        this.showtimeStart = showtimeStart;
+        this.paidAmount = paidAmount;
+        this.paidMethodId = paidMethodId;
+    }
+
+    public int getTicketId() { return ticketId; }
+
+    public int getShowtimeId() { return showtimeId; }
+
+    public int getSeatId() { return seatId; }
+
+    // 0 — билет без клиента
+    public int getCustomerId() { return customerId; }
+
+    public int getStatusId() { return statusId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public LocalDateTime getShowtimeStart() { return showtimeStart; }
+
+    // Фактически оплаченная сумма (положительные платежи по билету); 0 для неоплаченной брони
+    public double getPaidAmount() { return paidAmount; }
+
+    // Метод оплаты последнего платежа по билету; 0, если платежа нет
+    public int getPaidMethodId() { return paidMethodId; }
+}
@@ -0,0 +1,77 @@
+package com.cinema.cinemamanagementsystem.models;
+
+import java.time.LocalDateTime;
+
+// Строка билета для таблиц: поля как пришли из БД, строка места собирается при первой отрисовке ячейки
+public class TicketSummary {
+    private final int ticketId;
+    private final int showtimeId;
+    private final int seatId;
+    private final int seatRow;
+    private final int seatNumber;
+    private final String seatCategory;
+    private final String filmTitle;
+    private final LocalDateTime showtimeStart;
+    private final String customerName;
+    private final int statusId;
+    private final String statusName;
+    private final LocalDateTime createdAt;
+
+    private String seatInfo;
+
+    public TicketSummary(int ticketId, int showtimeId, int seatId, int seatRow, int seatNumber, String seatCategory,
+                         String filmTitle, LocalDateTime showtimeStart, String customerName,
+                         int statusId, String statusName, LocalDateTime createdAt) {
+        this.ticketId = ticketId;
+        this.showtimeId = showtimeId;
+        this.seatId = seatId;
+        this.seatRow = seatRow;
+        this.seatNumber = seatNumber;
+        this.seatCategory = seatCategory;
+        this.filmTitle = filmTitle;
+        this.showtimeStart = showtimeStart;
+        this.customerName = customerName;
+        this.statusId = statusId;
+        this.statusName = statusName;
+        this.createdAt = createdAt;
+    }
+
+    public int getTicketId() { return ticketId; }
+
+    public int getShowtimeId() { return showtimeId; }
+
+    public int getSeatId() { return seatId; }
+
+    public int getSeatRow() { return seatRow; }
+
+    public int getSeatNumber() { return seatNumber; }
+
+    public String getSeatCategory() { return seatCategory; }
+
+    // "Ряд X, Место Y (категория)" — формируется только для строк, которые реально показали
+    public String getSeatInfo() {
+        if (seatInfo == null) {
+            seatInfo = "Ряд " + seatRow + ", Место " + seatNumber +
+                    (seatCategory != null ? " (" + seatCategory + ")" : "");
+        }
+        return seatInfo;
+    }
+
+    public String getFilmTitle() { return filmTitle; }
+
+    public LocalDateTime getShowtimeStart() { return showtimeStart; }
+
+    public String getCustomerName() { return customerName; }
+
+    public int getStatusId() { return statusId; }
+
+    public String getStatusName() { return statusName; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    @Override
+    public String toString() {
+        return "Билет #" + ticketId + " - " + statusName +
+                (customerName != null ? " (" + customerName + ")" : "");
+    }
+}
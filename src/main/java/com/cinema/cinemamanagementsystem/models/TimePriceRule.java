@@ -0,0 +1,43 @@
+package com.cinema.cinemamanagementsystem.models;
+
+import java.time.LocalTime;
+
+// Правило цены по времени начала сеанса (price_time_rule) — справочник, читается через ReferenceDataCache
+public class TimePriceRule {
+    private final int timeRuleId;
+    private final String name;
+    private final LocalTime startTime;
+    private final LocalTime endTime;
+    private final double coefficient;
+
+    public TimePriceRule(int timeRuleId, String name, LocalTime startTime, LocalTime endTime, double coefficient) {
+        this.timeRuleId = timeRuleId;
+        this.name = name;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.coefficient = coefficient;
+    }
+
+    public int getTimeRuleId() { return timeRuleId; }
+
+    public String getName() { return name; }
+
+    public LocalTime getStartTime() { return startTime; }
+
+    public LocalTime getEndTime() { return endTime; }
+
+    public double getCoefficient() { return coefficient; }
+
+    // Интервал [start, end); если end <= start, интервал переходит через полночь (например, 23:00–02:00)
+    public boolean appliesTo(LocalTime time) {
+        if (startTime.isBefore(endTime)) {
+            return !time.isBefore(startTime) && time.isBefore(endTime);
+        }
+        return !time.isBefore(startTime) || time.isBefore(endTime);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,216 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import com.cinema.cinemamanagementsystem.config.DatabaseConfig;
+import com.cinema.cinemamanagementsystem.dao.TicketDAO;
+import com.cinema.cinemamanagementsystem.models.Ticket;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Снятие истекших броней, один планировщик на процесс.
+ * Брони лежат в очереди с задержкой до момента истечения и снимаются ровно в срок
+ * пакетным UPDATE по ID; при сбое БД снятие повторяется. Периодическая выборка по индексу
+ * (status_id, created_at) читает только брони, истекающие до следующей выборки, —
+ * так подхватываются брони других касс и пропущенные после перезапуска.
+ * Запускается при старте приложения; слушатели получают в потоке JavaFX ID сеансов,
+ * где освободились места.
+ */
+public class BookingExpiryScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(BookingExpiryScheduler.class);
+
+    private static final BookingExpiryScheduler INSTANCE = new BookingExpiryScheduler();
+
+    private static final int BATCH_SIZE = 200;
+    private static final int SWEEP_LIMIT = 5000;
+    private static final long SWEEP_INTERVAL_MINUTES = 5;
+    private static final long RETRY_DELAY_MS = 30_000;
+
+    private final TicketDAO ticketDAO = new TicketDAO();
+    private final SeatAvailabilityIndex seatIndex = SeatAvailabilityIndex.getInstance();
+
+    private final DelayQueue<Deadline> queue = new DelayQueue<>();
+    private final Set<Integer> scheduledIds = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<Set<Integer>>> listeners = new CopyOnWriteArrayList<>();
+
+    private Thread worker;
+    private ScheduledExecutorService sweeper;
+
+    private BookingExpiryScheduler() {}
+
+    public static BookingExpiryScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+
+        worker = new Thread(this::runWorker, "booking-expiry");
+        worker.setDaemon(true);
+        worker.start();
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "booking-expiry-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, 0, SWEEP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public synchronized void stop() {
+        if (worker == null) {
+            return;
+        }
+        worker.interrupt();
+        worker = null;
+        sweeper.shutdownNow();
+        sweeper = null;
+        queue.clear();
+        scheduledIds.clear();
+    }
+
+    /**
+     * Подписаться на освобождение мест (получает ID сеансов)
+     */
+    public void addListener(Consumer<Set<Integer>> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Set<Integer>> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Поставить бронь в очередь на снятие в момент истечения
+     */
+    public void schedule(Ticket booking) {
+        if (scheduledIds.add(booking.getTicketId())) {
+            queue.add(new Deadline(booking));
+        }
+    }
+
+    /**
+     * Бронь подтверждена или отменена кассиром — снимать не нужно
+     */
+    public void unschedule(int ticketId) {
+        if (scheduledIds.remove(ticketId)) {
+            queue.removeIf(deadline -> deadline.booking.getTicketId() == ticketId);
+        }
+    }
+
+    /**
+     * Подхватить из БД брони, истекающие до следующей выборки (уже истекшие снимаются сразу).
+     * Более поздние брони своей кассы уже в очереди, чужих — попадут в окно следующей выборки
+     */
+    public int sweep() {
+        try {
+            LocalDateTime createdBefore = LocalDateTime.now()
+                    .minusMinutes(DatabaseConfig.BOOKING_TIMEOUT_MINUTES)
+                    .plusMinutes(SWEEP_INTERVAL_MINUTES);
+            List<Ticket> pending = ticketDAO.getPendingBookings(createdBefore, SWEEP_LIMIT);
+            pending.forEach(this::schedule);
+            return pending.size();
+        } catch (Exception e) {
+            // Исключение в периодической задаче остановило бы выборку
+            logger.error("Ошибка при выборке активных броней: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    private void runWorker() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<Deadline> due = new ArrayList<>();
+                due.add(queue.take());
+                queue.drainTo(due, BATCH_SIZE - 1);
+                release(due);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Ошибка при снятии истекших броней: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void release(List<Deadline> due) {
+        List<Integer> ticketIds = new ArrayList<>(due.size());
+        for (Deadline deadline : due) {
+            ticketIds.add(deadline.booking.getTicketId());
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(DatabaseConfig.BOOKING_TIMEOUT_MINUTES);
+        List<Ticket> released = ticketDAO.releaseExpiredBookings(ticketIds, cutoff);
+        if (released == null) {
+            // БД недоступна — возвращаем брони в очередь, пока их не подтвердили или не отменили
+            long retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+            for (Deadline deadline : due) {
+                if (scheduledIds.contains(deadline.booking.getTicketId())) {
+                    queue.add(new Deadline(deadline.booking, retryAt));
+                }
+            }
+            return;
+        }
+        // Не попавшие в released брони уже подтверждены или отменены
+        ticketIds.forEach(scheduledIds::remove);
+        if (released.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> showtimeIds = new HashSet<>();
+        for (Ticket ticket : released) {
+            seatIndex.markFree(ticket.getShowtimeId(), ticket.getSeatId());
+            showtimeIds.add(ticket.getShowtimeId());
+        }
+        logger.info("Автоматически отменено {} истекших бронирований на сеансах {}", released.size(), showtimeIds);
+
+        Set<Integer> changed = Collections.unmodifiableSet(showtimeIds);
+        Platform.runLater(() -> listeners.forEach(listener -> listener.accept(changed)));
+    }
+
+    // Бронь в очереди: задержка до момента истечения
+    private static final class Deadline implements Delayed {
+        private final Ticket booking;
+        private final long expiresAtMillis;
+
+        Deadline(Ticket booking) {
+            this(booking, booking.getCreatedAt()
+                    .plusMinutes(DatabaseConfig.BOOKING_TIMEOUT_MINUTES)
+                    .atZone(ZoneId.systemDefault())
+                    .toInstant()
+                    .toEpochMilli());
+        }
+
+        Deadline(Ticket booking, long expiresAtMillis) {
+            this.booking = booking;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAtMillis, ((Deadline) other).expiresAtMillis);
+        }
+    }
+}
@@ -6,119 +6,185 @@ import com.cinema.cinemamanagementsystem.config.DatabaseConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class BookingService {
     private static final Logger logger = LoggerFactory.getLogger(BookingService.class);
 
+    // Метод возврата для старых билетов без записи об оплате — банковская карта
+    private static final int DEFAULT_REFUND_METHOD_ID = 1;
+
     private final TicketDAO ticketDAO = new TicketDAO();
     private final CustomerDAO customerDAO = new CustomerDAO();
-    private final ShowtimeDAO showtimeDAO = new ShowtimeDAO();
     private final PaymentDAO paymentDAO = new PaymentDAO();
-
-    // Продажа билета (без бронирования)
-    public Ticket sellTicket(int showtimeId, int seatId, int userId,
-                             String customerName, String customerPhone, String customerEmail) {
+    private final SeatAvailabilityIndex seatIndex = SeatAvailabilityIndex.getInstance();
+    private final BookingExpiryScheduler expiryScheduler = BookingExpiryScheduler.getInstance();
+    private final CustomerSearchIndex customerSearch = CustomerSearchIndex.getInstance();
+    private final CustomerCache customerCache = CustomerCache.getInstance();
+    private final PricingEngine pricing = PricingEngine.getInstance();
+
+    // Продажа заказа из нескольких мест одной транзакцией
+    public List<Ticket> sellTickets(int showtimeId, List<Integer> seatIds, int userId,
+                                    String customerName, String customerPhone, String customerEmail,
+                                    int paymentMethodId) {
         try {
-            // 1. Проверяем доступность места
-            List<Integer> takenSeats = showtimeDAO.getTakenSeats(showtimeId);
-            if (takenSeats.contains(seatId)) {
-                throw new IllegalStateException("Место уже занято или не существует");
-            }
-
-
-            // 2. Находим или создаем клиента
-            Customer customer = customerDAO.findOrCreateCustomer(customerName, customerPhone, customerEmail);
-            if (customer == null) {
-                throw new IllegalStateException("Не удалось создать клиента");
-            }
-
-            // 3. Создаем билет со статусом "оплачен"
-            Ticket ticket = new Ticket();
-            ticket.setShowtimeId(showtimeId);
-            ticket.setSeatId(seatId);
-            ticket.setCustomerId(customer.getCustomerId());
-            ticket.setUserId(userId);
-            ticket.setStatusId(DatabaseConfig.TicketStatus.PAID);
-            ticket.setCreatedAt(LocalDateTime.now());
-
-            int ticketId = ticketDAO.createTicket(ticket);
-            if (ticketId == -1) {
-                throw new IllegalStateException("Не удалось создать билет");
-            }
-
-            ticket.setTicketId(ticketId);
-
-            // 4. Создаем запись о платеже
-            Payment payment = new Payment();
-            payment.setTicketId(ticketId);
-            payment.setUserId(userId);
-            payment.setAmount(calculateFinalPrice(showtimeId, false));
-            payment.setPaymentTime(LocalDateTime.now());
-            payment.setMethodId(1); // Банковская карта по умолчанию
+            List<Ticket> tickets = createOrder(showtimeId, seatIds, userId,
+                    customerName, customerPhone, customerEmail,
+                    DatabaseConfig.TicketStatus.PAID, paymentMethodId);
+
+            logger.info("Продано {} билетов на сеанс #{} клиенту {}", tickets.size(), showtimeId, customerName);
+            return tickets;
+
+        } catch (SeatAlreadyTakenException e) {
+            logger.warn("Продажа на сеанс #{} отклонена: {}", showtimeId, e.getMessage());
+            throw e;
+        } catch (SQLException e) {
+            logger.error("Ошибка при продаже билетов: {}", e.getMessage());
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (RuntimeException e) {
+            logger.error("Ошибка при продаже билетов: {}", e.getMessage());
+            throw e;
+        }
+    }
 
-            if (!paymentDAO.createPayment(payment)) {
-                throw new IllegalStateException("Не удалось зарегистрировать платеж");
-            }
+    // Бронирование заказа из нескольких мест одной транзакцией
+    public List<Ticket> bookTickets(int showtimeId, List<Integer> seatIds, int userId,
+                                    String customerName, String customerPhone, String customerEmail) {
+        try {
+            List<Ticket> tickets = createOrder(showtimeId, seatIds, userId,
+                    customerName, customerPhone, customerEmail,
+                    DatabaseConfig.TicketStatus.BOOKED, 0);
 
-            logger.info("Билет #{} успешно продан клиенту {}", ticketId, customer.getName());
-            return ticket;
+            logger.info("Создано {} бронирований на сеанс #{} для клиента {}", tickets.size(), showtimeId, customerName);
+            return tickets;
 
-        } catch (Exception e) {
-            logger.error("Ошибка при продаже билета: {}", e.getMessage());
-            throw new RuntimeException(e);
+        } catch (SeatAlreadyTakenException e) {
+            logger.warn("Бронирование на сеанс #{} отклонено: {}", showtimeId, e.getMessage());
+            throw e;
+        } catch (SQLException e) {
+            logger.error("Ошибка при бронировании: {}", e.getMessage());
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (RuntimeException e) {
+            logger.error("Ошибка при бронировании: {}", e.getMessage());
+            throw e;
         }
     }
 
-    // Бронирование билета
-    public Ticket bookTicket(int showtimeId, int seatId, int userId,
-                             String customerName, String customerPhone, String customerEmail) {
-        try {
-            // 1. Проверяем доступность места
-            List<Integer> takenSeats = showtimeDAO.getTakenSeats(showtimeId);
-            if (takenSeats.contains(seatId)) {
-                throw new IllegalStateException("Место уже занято или не существует");
-            }
-
+    // Заказ целиком: клиент, билеты и платежи на одном соединении; при любой ошибке — откат всего заказа
+    private List<Ticket> createOrder(int showtimeId, List<Integer> seatIds, int userId,
+                                     String customerName, String customerPhone, String customerEmail,
+                                     int statusId, int paymentMethodId) throws SQLException {
+        if (seatIds.isEmpty()) {
+            throw new IllegalArgumentException("Не выбраны места");
+        }
 
-            // 2. Находим или создаем клиента
-            Customer customer = customerDAO.findOrCreateCustomer(customerName, customerPhone, customerEmail);
-            if (customer == null) {
-                throw new IllegalStateException("Не удалось создать клиента");
+        // 1. Быстрая проверка по индексу занятости, без обращения к БД
+        for (int seatId : seatIds) {
+            if (seatIndex.isTaken(showtimeId, seatId)) {
+                throw new IllegalStateException("Место #" + seatId + " уже занято или не существует");
             }
+        }
 
-            // 3. Создаем билет со статусом "забронирован"
-            Ticket ticket = new Ticket();
-            ticket.setShowtimeId(showtimeId);
-            ticket.setSeatId(seatId);
-            ticket.setCustomerId(customer.getCustomerId());
-            ticket.setUserId(userId);
-            ticket.setStatusId(DatabaseConfig.TicketStatus.BOOKED);
-            ticket.setCreatedAt(LocalDateTime.now());
-            ticket.setBooked(true);
-
-            int ticketId = ticketDAO.createTicket(ticket);
-            if (ticketId == -1) {
-                throw new IllegalStateException("Не удалось создать бронирование");
+        boolean isPaid = statusId == DatabaseConfig.TicketStatus.PAID;
+        // Цены мест — из скомпилированной таблицы сеанса, до открытия транзакции
+        PriceTable prices = pricing.getPriceTable(showtimeId);
+        List<Ticket> tickets = new ArrayList<>(seatIds.size());
+        Customer customer;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // 2. Находим или создаем клиента — один раз на весь заказ
+                //    Постоянный клиент берется из кэша по телефону без запроса к БД
+                customer = customerCache.get(customerPhone);
+                if (customer == null) {
+                    customer = customerDAO.findOrCreateCustomer(conn, customerName, customerPhone, customerEmail);
+                }
+                if (customer == null) {
+                    throw new IllegalStateException("Не удалось создать клиента");
+                }
+
+                // 3. Билеты — одним пакетом. Занятость места проверяет уникальный ключ в БД:
+                //    при конфликте createTickets бросает SeatAlreadyTakenException и заказ откатывается
+                LocalDateTime now = LocalDateTime.now();
+                for (int seatId : seatIds) {
+                    Ticket ticket = new Ticket();
+                    ticket.setShowtimeId(showtimeId);
+                    ticket.setSeatId(seatId);
+                    ticket.setCustomerId(customer.getCustomerId());
+                    ticket.setCustomerName(customer.getName());
+                    ticket.setUserId(userId);
+                    ticket.setStatusId(statusId);
+                    ticket.setCreatedAt(now);
+                    ticket.setBooked(!isPaid);
+                    ticket.setFinalPrice(prices.getSeatPrice(seatId, !isPaid));
+                    tickets.add(ticket);
+                }
+
+                List<Integer> ticketIds = ticketDAO.createTickets(conn, tickets);
+                for (int i = 0; i < tickets.size(); i++) {
+                    tickets.get(i).setTicketId(ticketIds.get(i));
+                }
+
+                // 4. Платежи — одним пакетом (только для продажи)
+                if (isPaid) {
+                    List<Payment> payments = new ArrayList<>(tickets.size());
+                    double total = 0;
+                    for (Ticket ticket : tickets) {
+                        payments.add(new Payment(ticket.getTicketId(), userId, ticket.getFinalPrice(), paymentMethodId, now));
+                        total += ticket.getFinalPrice();
+                    }
+                    paymentDAO.createPayments(conn, payments);
+                    customerDAO.addCustomerStats(conn, customer.getCustomerId(), tickets.size(), total);
+                }
+
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                // На любом откате: клиент из кэша мог быть удален или изменен — в следующий раз перечитаем из БД
+                customerCache.invalidate(customerPhone);
+                if (e instanceof SeatAlreadyTakenException) {
+                    throw resolveTakenSeat((SeatAlreadyTakenException) e, showtimeId, seatIds);
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
+        }
 
-            ticket.setTicketId(ticketId);
-
-            logger.info("Бронирование #{} создано для клиента {}", ticketId, customer.getName());
-            return ticket;
+        customerCache.put(customer);
+        for (int seatId : seatIds) {
+            seatIndex.markTaken(showtimeId, seatId);
+        }
+        customerSearch.put(customer.getCustomerId(), customer.getName());
+        // Брони снимаются планировщиком ровно в момент истечения
+        if (!isPaid) {
+            tickets.forEach(expiryScheduler::schedule);
+        }
+        return tickets;
+    }
 
-        } catch (Exception e) {
-            logger.error("Ошибка при бронировании: {}", e.getMessage());
-            throw new RuntimeException(e);
+    // Место продали с другой кассы: перечитываем занятость сеанса и называем конкретное место
+    private SeatAlreadyTakenException resolveTakenSeat(SeatAlreadyTakenException e, int showtimeId,
+                                                       List<Integer> seatIds) {
+        seatIndex.refresh(showtimeId);
+        for (int seatId : seatIds) {
+            if (seatIndex.isTaken(showtimeId, seatId)) {
+                return new SeatAlreadyTakenException(showtimeId, seatId);
+            }
         }
+        return e;
     }
 
-    // Подтверждение бронирования (оплата)
+    // Подтверждение бронирования (оплата): статус, платеж и статистика клиента одной транзакцией
     public boolean confirmBooking(int ticketId, int userId, int paymentMethodId) {
         try {
             // 1. Получаем бронирование
-            Ticket ticket = ticketDAO.getTicketById(ticketId);
+            TicketCore ticket = ticketDAO.getTicketCore(ticketId);
             if (ticket == null || ticket.getStatusId() != DatabaseConfig.TicketStatus.BOOKED) {
                 throw new IllegalStateException("Бронирование не найдено или уже обработано");
             }
@@ -128,17 +194,16 @@ public class BookingService {
                     .plusMinutes(DatabaseConfig.BOOKING_TIMEOUT_MINUTES);
 
             if (LocalDateTime.now().isAfter(bookingExpiry)) {
-                ticketDAO.updateTicketStatus(ticketId, DatabaseConfig.TicketStatus.REFUND);
+                // Снимаем только бронь: если ее успели оплатить с другой кассы, билет не трогаем
+                if (releaseBooking(ticketId)) {
+                    expiryScheduler.unschedule(ticketId);
+                    seatIndex.markFree(ticket.getShowtimeId(), ticket.getSeatId());
+                }
                 throw new IllegalStateException("Время бронирования истекло");
             }
 
-            // 3. Обновляем статус на "оплачен"
-            if (!ticketDAO.updateTicketStatus(ticketId, DatabaseConfig.TicketStatus.PAID)) {
-                throw new IllegalStateException("Не удалось обновить статус билета");
-            }
-
-            // 4. Создаем платеж с доплатой 15%
-            double finalPrice = calculateFinalPrice(ticket.getShowtimeId(), true);
+            // 3. Платеж с доплатой 15%
+            double finalPrice = pricing.getSeatPrice(ticket.getShowtimeId(), ticket.getSeatId(), true);
 
             Payment payment = new Payment();
             payment.setTicketId(ticketId);
@@ -147,11 +212,27 @@ public class BookingService {
             payment.setMethodId(paymentMethodId);
             payment.setPaymentTime(LocalDateTime.now());
 
-            if (!paymentDAO.createPayment(payment)) {
-                // Откатываем статус, если платеж не прошел
-                ticketDAO.updateTicketStatus(ticketId, DatabaseConfig.TicketStatus.BOOKED);
-                throw new IllegalStateException("Не удалось зарегистрировать платеж");
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    // Условный UPDATE: бронь могли снять по таймауту или отменить с другой кассы
+                    if (!ticketDAO.updateTicketStatus(conn, ticketId,
+                            DatabaseConfig.TicketStatus.BOOKED, DatabaseConfig.TicketStatus.PAID)) {
+                        throw new IllegalStateException("Бронирование уже обработано");
+                    }
+                    paymentDAO.createPayment(conn, payment);
+                    if (ticket.getCustomerId() > 0) {
+                        customerDAO.addCustomerStats(conn, ticket.getCustomerId(), 1, finalPrice);
+                    }
+                    conn.commit();
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
             }
+            expiryScheduler.unschedule(ticketId);
 
             logger.info("Бронирование #{} подтверждено, сумма оплаты: {}", ticketId, finalPrice);
             return true;
@@ -162,38 +243,53 @@ public class BookingService {
         }
     }
 
-    // Возврат билета
+    // Возврат билета: статус, отрицательный платеж и статистика клиента одной транзакцией
     public boolean refundTicket(int ticketId, int userId) {
         try {
-            Ticket ticket = ticketDAO.getTicketById(ticketId);
+            TicketCore ticket = ticketDAO.getTicketCore(ticketId);
             if (ticket == null || ticket.getStatusId() != DatabaseConfig.TicketStatus.PAID) {
                 throw new IllegalStateException("Билет не найден или не может быть возвращен");
             }
 
             // Проверяем, не начался ли сеанс
-            Showtime showtime = showtimeDAO.getAllShowtimes().stream()
-                    .filter(s -> s.getShowtimeId() == ticket.getShowtimeId())
-                    .findFirst()
-                    .orElse(null);
-
-            if (showtime != null && LocalDateTime.now().isAfter(showtime.getDateTime())) {
+            if (LocalDateTime.now().isAfter(ticket.getShowtimeStart())) {
                 throw new IllegalStateException("Возврат невозможен: сеанс уже начался");
             }
 
-            // Обновляем статус на "возврат"
-            if (!ticketDAO.updateTicketStatus(ticketId, DatabaseConfig.TicketStatus.REFUND)) {
-                throw new IllegalStateException("Не удалось обновить статус билета");
-            }
+            // Возвращаем фактически оплаченную сумму; для старых билетов без платежа — расчетную цену
+            double refundAmount = ticket.getPaidAmount() > 0
+                    ? ticket.getPaidAmount()
+                    : pricing.getSeatPrice(ticket.getShowtimeId(), ticket.getSeatId(), false);
 
-            // Создаем запись о возврате платежа (отрицательный платеж)
+            // Запись о возврате платежа (отрицательный платеж)
             Payment refund = new Payment();
             refund.setTicketId(ticketId);
             refund.setUserId(userId);
-            refund.setAmount(-ticket.getFinalPrice()); // Отрицательная сумма для возврата
-            refund.setMethodId(1); // Метод возврата
+            refund.setAmount(-refundAmount); // Отрицательная сумма для возврата
+            // Возврат учитывается тем же методом, которым билет оплачен
+            refund.setMethodId(ticket.getPaidMethodId() > 0 ? ticket.getPaidMethodId() : DEFAULT_REFUND_METHOD_ID);
             refund.setPaymentTime(LocalDateTime.now());
 
-            paymentDAO.createPayment(refund);
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    if (!ticketDAO.updateTicketStatus(conn, ticketId,
+                            DatabaseConfig.TicketStatus.PAID, DatabaseConfig.TicketStatus.REFUND)) {
+                        throw new IllegalStateException("Билет уже возвращен");
+                    }
+                    paymentDAO.createPayment(conn, refund);
+                    if (ticket.getCustomerId() > 0) {
+                        customerDAO.addCustomerStats(conn, ticket.getCustomerId(), -1, refund.getAmount());
+                    }
+                    conn.commit();
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+            seatIndex.markFree(ticket.getShowtimeId(), ticket.getSeatId());
 
             logger.info("Билет #{} возвращен", ticketId);
             return true;
@@ -204,30 +300,38 @@ public class BookingService {
         }
     }
 
-    // Расчет итоговой цены
-    private double calculateFinalPrice(int showtimeId, boolean isBooking) {
-        // Здесь должна быть логика расчета цены с учетом:
-        // - базовой цены сеанса
-        // - коэффициента времени (утро/вечер)
-        // - типа зала
-        // - категории места
-        // - доплаты за бронирование (15% если isBooking = true)
-
-        // Временно возвращаем фиксированную цену
-        double basePrice = 300.0;
-
-        if (isBooking) {
-            return basePrice * (1 + DatabaseConfig.BOOKING_SURCHARGE_RATE);
+    // Отмена бронирования кассиром
+    public boolean cancelBooking(TicketSummary booking) {
+        try {
+            if (!releaseBooking(booking.getTicketId())) {
+                logger.warn("Бронирование #{} уже подтверждено или снято", booking.getTicketId());
+                return false;
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при отмене бронирования: {}", e.getMessage());
+            return false;
         }
-
-        return basePrice;
+        expiryScheduler.unschedule(booking.getTicketId());
+        seatIndex.markFree(booking.getShowtimeId(), booking.getSeatId());
+        logger.info("Бронирование #{} отменено", booking.getTicketId());
+        return true;
     }
 
-    // Автоматическая отмена истекших бронирований
-    public void cancelExpiredBookings() {
-        int canceledCount = ticketDAO.cancelExpiredBookings();
-        if (canceledCount > 0) {
-            logger.info("Автоматически отменено {} истекших бронирований", canceledCount);
+    // Снять бронь условным UPDATE BOOKED -> REFUND; false — бронь уже оплачена или снята с другой кассы
+    private boolean releaseBooking(int ticketId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                boolean released = ticketDAO.updateTicketStatus(conn, ticketId,
+                        DatabaseConfig.TicketStatus.BOOKED, DatabaseConfig.TicketStatus.REFUND);
+                conn.commit();
+                return released;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
     }
-}
\ No newline at end of file
+}
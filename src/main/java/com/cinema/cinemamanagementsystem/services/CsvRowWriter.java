@@ -0,0 +1,84 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * CSV для русской локали Excel: разделитель «;», десятичная запятая, UTF-8 с BOM
+ * (без BOM Excel открывает файл в cp1251). Поля с разделителем, кавычками или переводом строки
+ * берутся в кавычки, строки разделяются CRLF
+ */
+public class CsvRowWriter implements RowWriter {
+
+    private static final char SEPARATOR = ';';
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private final Writer out;
+
+    public CsvRowWriter(OutputStream out) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.out.write('\uFEFF');
+    }
+
+    @Override
+    public void writeRow(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(SEPARATOR);
+            }
+            writeField(values[i]);
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeField(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            out.write(BigDecimal.valueOf(((Number) value).doubleValue())
+                    .setScale(2, RoundingMode.HALF_UP)
+                    .toPlainString()
+                    .replace('.', ','));
+        } else if (value instanceof Number) {
+            out.write(value.toString());
+        } else if (value instanceof LocalDateTime) {
+            out.write(DATE_TIME.format((LocalDateTime) value));
+        } else if (value instanceof LocalDate) {
+            out.write(DATE.format((LocalDate) value));
+        } else {
+            writeText(value.toString());
+        }
+    }
+
+    private void writeText(String text) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char ch = text.charAt(i);
+            quote = ch == SEPARATOR || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            out.write(text);
+            return;
+        }
+        out.write('"');
+        out.write(text.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
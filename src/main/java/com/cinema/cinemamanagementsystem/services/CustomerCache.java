@@ -0,0 +1,51 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import com.cinema.cinemamanagementsystem.dao.CustomerDAO;
+import com.cinema.cinemamanagementsystem.models.Customer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кэш клиентов по нормализованному телефону для продажи и бронирования.
+ * Постоянный клиент находится без запроса к БД; вытесняются давно не приходившие.
+ * Клиент попадает в кэш только после коммита заказа, в котором его нашли или создали.
+ */
+public class CustomerCache {
+
+    private static final CustomerCache INSTANCE = new CustomerCache();
+
+    private static final int MAX_CUSTOMERS = 2000;
+
+    private final Map<String, Customer> byPhone = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Customer> eldest) {
+            return size() > MAX_CUSTOMERS;
+        }
+    };
+
+    private CustomerCache() {}
+
+    public static CustomerCache getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized Customer get(String phone) {
+        String key = CustomerDAO.normalizePhone(phone);
+        return key != null ? byPhone.get(key) : null;
+    }
+
+    public synchronized void put(Customer customer) {
+        String key = CustomerDAO.normalizePhone(customer.getPhone());
+        if (key != null) {
+            byPhone.put(key, customer);
+        }
+    }
+
+    public synchronized void invalidate(String phone) {
+        String key = CustomerDAO.normalizePhone(phone);
+        if (key != null) {
+            byPhone.remove(key);
+        }
+    }
+}
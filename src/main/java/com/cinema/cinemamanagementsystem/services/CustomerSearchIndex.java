@@ -0,0 +1,324 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import com.cinema.cinemamanagementsystem.dao.CustomerDAO;
+import com.cinema.cinemamanagementsystem.models.Customer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Поиск клиентов на кассе.
+ * Телефон и email ищутся по началу нормализованного значения индексом в БД,
+ * имена — по префиксам слов в памяти: слово имени -> отсортированные ID клиентов.
+ * Индекс имен строится одним проходом по customer при первом поиске и дочитывает
+ * только клиентов с updated_at не раньше прошлого чтения (новые и измененные с любой кассы);
+ * раз в REBUILD_INTERVAL_MS строится заново.
+ */
+public class CustomerSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSearchIndex.class);
+
+    private static final CustomerSearchIndex INSTANCE = new CustomerSearchIndex();
+
+    private static final long REFRESH_INTERVAL_MS = 10_000;
+    private static final long REBUILD_INTERVAL_MS = 30 * 60 * 1000;
+    private static final int[] NO_IDS = new int[0];
+
+    private final CustomerDAO customerDAO = new CustomerDAO();
+
+    // Слово имени (нижний регистр) -> ID клиентов по возрастанию
+    private NavigableMap<String, int[]> idsByWord = new TreeMap<>();
+    private Map<Integer, String[]> wordsById = new HashMap<>();
+
+    private LocalDateTime loadedUpTo;
+    private long lastRefresh;
+    private long lastRebuild;
+    private boolean loaded;
+
+    private CustomerSearchIndex() {}
+
+    public static CustomerSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Найти клиентов по началу телефона, email или слов имени (вызывается из фонового потока)
+     */
+    public List<Customer> search(String text, int limit) {
+        String query = text.trim();
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        if (query.indexOf('@') >= 0) {
+            return customerDAO.searchByEmailPrefix(CustomerDAO.normalizeEmail(query), limit);
+        }
+        if (looksLikePhone(query)) {
+            String phonePrefix = CustomerDAO.normalizePhone(query);
+            return phonePrefix != null ? customerDAO.searchByPhonePrefix(phonePrefix, limit) : new ArrayList<>();
+        }
+        return customerDAO.getCustomersByIds(findByName(query, limit));
+    }
+
+    /**
+     * Клиент создан или изменен на этой кассе — виден в поиске сразу, без ожидания дочитывания
+     */
+    public synchronized void put(int customerId, String name) {
+        if (loaded) {
+            index(customerId, name);
+        }
+    }
+
+    /**
+     * ID клиентов, у которых каждое слово запроса — начало какого-то слова имени; новые клиенты первыми
+     */
+    public synchronized List<Integer> findByName(String query, int limit) {
+        refreshIfStale();
+
+        int[] matched = null;
+        for (String prefix : splitWords(query)) {
+            int[] ids = idsWithPrefix(prefix);
+            matched = (matched == null) ? ids : intersect(matched, ids);
+            if (matched.length == 0) {
+                break;
+            }
+        }
+
+        List<Integer> result = new ArrayList<>(Math.min(limit, matched == null ? 0 : matched.length));
+        if (matched != null) {
+            for (int i = matched.length - 1; i >= 0 && result.size() < limit; i--) {
+                result.add(matched[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Построить индекс имен заранее, чтобы первый поиск на кассе не ждал загрузки
+     */
+    public synchronized void warmUp() {
+        refreshIfStale();
+    }
+
+    private void refreshIfStale() {
+        long now = System.currentTimeMillis();
+        if (loaded && now - lastRefresh < REFRESH_INTERVAL_MS) {
+            return;
+        }
+        // Периодически строим заново: дочитывание по updated_at пропускает строки, закоммиченные
+        // позже с более ранним updated_at, и не видит удаленных клиентов
+        if (!loaded || now - lastRebuild >= REBUILD_INTERVAL_MS) {
+            rebuild(now);
+        } else {
+            catchUp(now);
+        }
+    }
+
+    // Построение целиком: ID собираются по словам и сортируются один раз, без вставок в массивы.
+    // Индекс заменяется только после успешного чтения
+    private void rebuild(long now) {
+        Map<String, IdList> building = new HashMap<>();
+        Map<Integer, String[]> words = new HashMap<>();
+        LocalDateTime latest = customerDAO.forEachCustomerName(null, (customerId, name) -> {
+            String[] nameWords = splitWords(name);
+            words.put(customerId, nameWords);
+            for (String word : nameWords) {
+                building.computeIfAbsent(word, w -> new IdList()).add(customerId);
+            }
+        });
+        if (latest == null) {
+            // Сбой БД или клиентов нет — остаемся на прежнем индексе и пробуем снова через REFRESH_INTERVAL_MS
+            if (loaded) {
+                lastRefresh = now;
+            }
+            return;
+        }
+
+        NavigableMap<String, int[]> ids = new TreeMap<>();
+        building.forEach((word, list) -> ids.put(word, list.toSortedArray()));
+        idsByWord = ids;
+        wordsById = words;
+        loadedUpTo = latest;
+        logger.info("Индекс имен клиентов построен: {} клиентов, {} слов", words.size(), ids.size());
+        loaded = true;
+        lastRefresh = now;
+        lastRebuild = now;
+    }
+
+    // Дочитывание изменений с прошлого чтения; применяются только после успешного чтения
+    private void catchUp(long now) {
+        Map<Integer, String> changed = new LinkedHashMap<>();
+        LocalDateTime latest = customerDAO.forEachCustomerName(loadedUpTo, changed::put);
+        if (latest == null && !changed.isEmpty()) {
+            // Чтение оборвалось — повторим при следующем поиске
+            return;
+        }
+
+        changed.forEach(this::index);
+        if (latest != null) {
+            // Граница включительная: изменения в ту же секунду перечитаются, повторная индексация безвредна
+            loadedUpTo = latest;
+        }
+        if (!changed.isEmpty()) {
+            logger.debug("Индекс имен клиентов дочитан: {} изменений", changed.size());
+        }
+        lastRefresh = now;
+    }
+
+    private void index(int customerId, String name) {
+        String[] words = splitWords(name);
+        String[] previous = wordsById.put(customerId, words);
+        if (previous != null) {
+            if (Arrays.equals(previous, words)) {
+                return;
+            }
+            for (String word : previous) {
+                removeId(word, customerId);
+            }
+        }
+        for (String word : words) {
+            addId(word, customerId);
+        }
+    }
+
+    private void addId(String word, int customerId) {
+        int[] ids = idsByWord.getOrDefault(word, NO_IDS);
+        int pos = Arrays.binarySearch(ids, customerId);
+        if (pos >= 0) {
+            return;
+        }
+        int insertAt = -pos - 1;
+        int[] updated = new int[ids.length + 1];
+        System.arraycopy(ids, 0, updated, 0, insertAt);
+        updated[insertAt] = customerId;
+        System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+        idsByWord.put(word, updated);
+    }
+
+    private void removeId(String word, int customerId) {
+        int[] ids = idsByWord.get(word);
+        if (ids == null) {
+            return;
+        }
+        int pos = Arrays.binarySearch(ids, customerId);
+        if (pos < 0) {
+            return;
+        }
+        if (ids.length == 1) {
+            idsByWord.remove(word);
+            return;
+        }
+        int[] updated = new int[ids.length - 1];
+        System.arraycopy(ids, 0, updated, 0, pos);
+        System.arraycopy(ids, pos + 1, updated, pos, ids.length - pos - 1);
+        idsByWord.put(word, updated);
+    }
+
+    // Объединение ID всех слов с этим префиксом, по возрастанию
+    private int[] idsWithPrefix(String prefix) {
+        NavigableMap<String, int[]> words = idsByWord.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (words.isEmpty()) {
+            return NO_IDS;
+        }
+        if (words.size() == 1) {
+            return words.firstEntry().getValue();
+        }
+
+        int total = 0;
+        for (int[] ids : words.values()) {
+            total += ids.length;
+        }
+        int[] merged = new int[total];
+        int offset = 0;
+        for (int[] ids : words.values()) {
+            System.arraycopy(ids, 0, merged, offset, ids.length);
+            offset += ids.length;
+        }
+        Arrays.sort(merged);
+        return dedupe(merged);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static int[] dedupe(int[] sorted) {
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, n);
+    }
+
+    // Слова имени в нижнем регистре; ё и е не различаем
+    private static String[] splitWords(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е').trim();
+        if (normalized.isEmpty()) {
+            return new String[0];
+        }
+        return Arrays.stream(normalized.split("[\\s\\-.,]+"))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    // Цифры, пробелы, +, скобки и дефисы — ищем по телефону
+    private static boolean looksLikePhone(String text) {
+        boolean hasDigit = false;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                hasDigit = true;
+            } else if ("+-() ".indexOf(ch) < 0) {
+                return false;
+            }
+        }
+        return hasDigit;
+    }
+
+    // Растущий список ID для первого построения индекса
+    private static final class IdList {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        int[] toSortedArray() {
+            int[] sorted = Arrays.copyOf(ids, size);
+            Arrays.sort(sorted);
+            return dedupe(sorted);
+        }
+    }
+}
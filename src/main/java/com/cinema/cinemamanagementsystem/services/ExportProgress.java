@@ -0,0 +1,11 @@
+package com.cinema.cinemamanagementsystem.services;
+
+/**
+ * Прогресс выгрузки. Вызывается из фонового потока выгрузки;
+ * totalRows — число строк по COUNT перед выгрузкой (0, если неизвестно)
+ */
+@FunctionalInterface
+public interface ExportProgress {
+
+    void update(long rowsWritten, long totalRows);
+}
@@ -0,0 +1,53 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import com.cinema.cinemamanagementsystem.dao.ShowtimeDAO;
+import com.cinema.cinemamanagementsystem.models.HallLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Кэш схем залов по hall_id.
+ * Схема зала меняется только при перепланировке, поэтому загружается один раз
+ * и сбрасывается явно через invalidate.
+ */
+public class HallLayoutCache {
+    private static final Logger logger = LoggerFactory.getLogger(HallLayoutCache.class);
+
+    private static final HallLayoutCache INSTANCE = new HallLayoutCache();
+
+    private final ShowtimeDAO showtimeDAO = new ShowtimeDAO();
+    private final Map<Integer, HallLayout> layoutByHall = new ConcurrentHashMap<>();
+
+    private HallLayoutCache() {}
+
+    public static HallLayoutCache getInstance() {
+        return INSTANCE;
+    }
+
+    public HallLayout getLayout(int hallId) {
+        HallLayout layout = layoutByHall.computeIfAbsent(hallId, this::load);
+        // Пустую схему (сбой БД или неизвестный зал) не кэшируем
+        if (layout.isEmpty()) {
+            layoutByHall.remove(hallId, layout);
+        }
+        return layout;
+    }
+
+    public void invalidate(int hallId) {
+        layoutByHall.remove(hallId);
+    }
+
+    public void invalidateAll() {
+        layoutByHall.clear();
+    }
+
+    private HallLayout load(int hallId) {
+        HallLayout layout = new HallLayout(hallId, showtimeDAO.getSeatsForHall(hallId));
+        logger.debug("Загружена схема зала #{}: {} мест, {} рядов",
+                hallId, layout.getSeatCount(), layout.getRowCount());
+        return layout;
+    }
+}
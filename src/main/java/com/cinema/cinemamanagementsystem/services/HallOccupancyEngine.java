@@ -0,0 +1,103 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import com.cinema.cinemamanagementsystem.dao.ReferenceDataCache;
+import com.cinema.cinemamanagementsystem.dao.ShowtimeDAO;
+import com.cinema.cinemamanagementsystem.models.Hall;
+import com.cinema.cinemamanagementsystem.models.HallOccupancy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Расчет заполняемости залов по дням недели и часам начала сеансов.
+ * Занятые места всех сеансов периода читаются одним запросом и раскладываются по ячейкам матрицы
+ * за один проход; вместимость берется из кэша схем залов, по одному обращению на зал.
+ */
+public class HallOccupancyEngine {
+    private static final Logger logger = LoggerFactory.getLogger(HallOccupancyEngine.class);
+
+    private static final int CELLS_PER_HALL = HallOccupancy.DAYS * HallOccupancy.SLOTS;
+
+    private final ShowtimeDAO showtimeDAO = new ShowtimeDAO();
+    private final HallLayoutCache hallLayouts = HallLayoutCache.getInstance();
+    private final ReferenceDataCache referenceData = ReferenceDataCache.getInstance();
+
+    public HallOccupancy compute(LocalDateTime startDate, LocalDateTime endDate) {
+        Matrix matrix = new Matrix(referenceData.getHalls());
+
+        boolean loaded = showtimeDAO.forEachShowtimeTaken(startDate, endDate, (hallId, dateTime, takenSeats) -> {
+            int hall = matrix.hallIndex(hallId);
+            if (matrix.seatCounts[hall] == 0) {
+                // Пустая схема у зала с сеансами — сбой чтения мест; нулевая заполняемость была бы неправдой
+                throw new IllegalStateException("Не удалось загрузить схему зала #" + hallId);
+            }
+            int cell = HallOccupancy.cellIndex(hall, dateTime.getDayOfWeek().ordinal(), dateTime.getHour());
+            matrix.showtimes[cell]++;
+            matrix.taken[cell] += takenSeats;
+            matrix.capacity[cell] += matrix.seatCounts[hall];
+        });
+        if (!loaded) {
+            throw new IllegalStateException("Не удалось прочитать сеансы за период");
+        }
+
+        logger.debug("Заполняемость залов рассчитана за период {} - {}: {} залов", startDate, endDate, matrix.hallCount);
+        return matrix.build();
+    }
+
+    // Растущая матрица: залы из справочника по порядку, неизвестные — в конец
+    private final class Matrix {
+        private final Map<Integer, Hall> halls;
+        private final Map<Integer, Integer> indexByHall = new HashMap<>();
+        private int[] hallIds;
+        private int[] seatCounts;
+        private int hallCount;
+        private int[] showtimes;
+        private long[] taken;
+        private long[] capacity;
+
+        Matrix(Map<Integer, Hall> halls) {
+            this.halls = halls;
+            int expected = Math.max(1, halls.size());
+            hallIds = new int[expected];
+            seatCounts = new int[expected];
+            showtimes = new int[expected * CELLS_PER_HALL];
+            taken = new long[expected * CELLS_PER_HALL];
+            capacity = new long[expected * CELLS_PER_HALL];
+            halls.keySet().forEach(this::hallIndex);
+        }
+
+        int hallIndex(int hallId) {
+            Integer index = indexByHall.get(hallId);
+            if (index != null) {
+                return index;
+            }
+            if (hallCount == hallIds.length) {
+                int grown = hallCount * 2;
+                hallIds = Arrays.copyOf(hallIds, grown);
+                seatCounts = Arrays.copyOf(seatCounts, grown);
+                showtimes = Arrays.copyOf(showtimes, grown * CELLS_PER_HALL);
+                taken = Arrays.copyOf(taken, grown * CELLS_PER_HALL);
+                capacity = Arrays.copyOf(capacity, grown * CELLS_PER_HALL);
+            }
+            hallIds[hallCount] = hallId;
+            seatCounts[hallCount] = hallLayouts.getLayout(hallId).getSeatCount();
+            indexByHall.put(hallId, hallCount);
+            return hallCount++;
+        }
+
+        HallOccupancy build() {
+            String[] names = new String[hallCount];
+            for (int i = 0; i < hallCount; i++) {
+                Hall hall = halls.get(hallIds[i]);
+                names[i] = hall != null ? hall.getName() : "Зал #" + hallIds[i];
+            }
+            int cells = hallCount * CELLS_PER_HALL;
+            return new HallOccupancy(Arrays.copyOf(hallIds, hallCount), names,
+                    Arrays.copyOf(showtimes, cells), Arrays.copyOf(taken, cells), Arrays.copyOf(capacity, cells));
+        }
+    }
+}
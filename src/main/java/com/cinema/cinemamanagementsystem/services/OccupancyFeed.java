@@ -0,0 +1,201 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import com.cinema.cinemamanagementsystem.dao.OccupancyChangeDAO;
+import com.cinema.cinemamanagementsystem.models.OccupancyChange;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Лента изменений занятости мест между кассами.
+ * Один опрашивающий поток на процесс читает ticket_change_log от своего водяного знака
+ * (change_id), применяет дельты к SeatAvailabilityIndex и сообщает слушателям
+ * в потоке JavaFX, по каким сеансам изменилась занятость.
+ * Порядок change_id не совпадает с порядком коммитов, а откаты оставляют пропуски навсегда,
+ * поэтому лента на пропусках не ждет: пропущенные номера перепроверяются отдельно, а загруженные
+ * сеансы периодически сверяются с БД целиком.
+ */
+public class OccupancyFeed {
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyFeed.class);
+
+    private static final OccupancyFeed INSTANCE = new OccupancyFeed();
+
+    private static final long POLL_INTERVAL_MS = 2000;
+    private static final int BATCH_SIZE = 500;
+    // Пропуск в change_id — откат или еще не закоммиченная транзакция; перепроверяем его столько времени
+    private static final long GAP_RETENTION_MS = 10 * 60 * 1000;
+    private static final int MAX_TRACKED_GAPS = 1000;
+    // Полная сверка загруженных сеансов с БД — на случай пропусков, закоммиченных еще позже
+    private static final long RECONCILE_INTERVAL_MS = 5 * 60 * 1000;
+    private static final long PURGE_INTERVAL_MS = 30 * 60 * 1000;
+    private static final int RETENTION_HOURS = 24;
+
+    private final OccupancyChangeDAO changeDAO = new OccupancyChangeDAO();
+    private final SeatAvailabilityIndex seatIndex = SeatAvailabilityIndex.getInstance();
+    private final List<Consumer<Set<Integer>>> listeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+    private volatile long watermark = -1;
+    // Пропущенные change_id ниже водяного знака -> когда замечены
+    private final Map<Long, Long> pendingGaps = new HashMap<>();
+    private long lastReconcile;
+    private long lastPurge;
+
+    private OccupancyFeed() {}
+
+    public static OccupancyFeed getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Подписаться на изменения (получает ID сеансов); первый подписчик запускает опрос
+     */
+    public synchronized void addListener(Consumer<Set<Integer>> listener) {
+        listeners.add(listener);
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "occupancy-feed");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::poll, 0, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void removeListener(Consumer<Set<Integer>> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Лента работает: занятость в индексе поддерживается дельтами, полное перечитывание не нужно
+     */
+    public synchronized boolean isActive() {
+        return scheduler != null && watermark >= 0;
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        watermark = -1;
+    }
+
+    private void poll() {
+        try {
+            if (watermark < 0) {
+                long last = changeDAO.getLastChangeId();
+                if (last < 0) {
+                    logger.warn("Журнал ticket_change_log недоступен, синхронизация мест между кассами отключена");
+                    stop();
+                    return;
+                }
+                watermark = last;
+                pendingGaps.clear();
+                lastReconcile = System.currentTimeMillis();
+                logger.info("Лента занятости мест запущена с change_id {}", watermark);
+                return;
+            }
+
+            Set<Integer> changedShowtimes = new HashSet<>();
+            List<OccupancyChange> changes;
+            do {
+                changes = changeDAO.getChangesSince(watermark, BATCH_SIZE);
+                apply(changes, changedShowtimes);
+            } while (changes.size() == BATCH_SIZE);
+
+            Set<Integer> lateShowtimes = checkGaps();
+            long now = System.currentTimeMillis();
+            if (now - lastReconcile >= RECONCILE_INTERVAL_MS) {
+                lastReconcile = now;
+                changedShowtimes.addAll(seatIndex.reconcileAll());
+            } else if (!lateShowtimes.isEmpty()) {
+                // Поздний коммит мог лечь поверх более новых дельт — сеансы перечитываем, а не дополняем
+                changedShowtimes.addAll(seatIndex.reconcile(lateShowtimes));
+            }
+
+            if (!changedShowtimes.isEmpty()) {
+                Set<Integer> showtimeIds = Collections.unmodifiableSet(changedShowtimes);
+                Platform.runLater(() -> listeners.forEach(listener -> listener.accept(showtimeIds)));
+            }
+
+            purgeIfDue();
+        } catch (Exception e) {
+            // Исключение в периодической задаче остановило бы опрос
+            logger.error("Ошибка при опросе изменений мест: {}", e.getMessage(), e);
+        }
+    }
+
+    // Применяем изменения по порядку change_id; пропуски запоминаем и идем дальше
+    private void apply(List<OccupancyChange> changes, Set<Integer> changedShowtimes) {
+        for (OccupancyChange change : changes) {
+            if (change.getChangeId() > watermark + 1) {
+                trackGap(watermark + 1, change.getChangeId() - 1);
+            }
+
+            if (change.isTaken()) {
+                seatIndex.markTaken(change.getShowtimeId(), change.getSeatId());
+            } else {
+                seatIndex.markFree(change.getShowtimeId(), change.getSeatId());
+            }
+            changedShowtimes.add(change.getShowtimeId());
+            watermark = change.getChangeId();
+        }
+    }
+
+    private void trackGap(long from, long to) {
+        if (pendingGaps.size() + (to - from + 1) > MAX_TRACKED_GAPS) {
+            // Слишком большой скачок номеров — поштучно не отслеживаем, сверяем все сеансы в этом же опросе
+            logger.debug("Пропуск change_id {}..{} не отслеживается, назначена полная сверка", from, to);
+            lastReconcile = 0;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (long changeId = from; changeId <= to; changeId++) {
+            pendingGaps.put(changeId, now);
+        }
+    }
+
+    // Пропуски, закоммиченные после продвижения водяного знака; возвращает их сеансы
+    private Set<Integer> checkGaps() {
+        if (pendingGaps.isEmpty()) {
+            return Collections.emptySet();
+        }
+        long now = System.currentTimeMillis();
+        // Давние пропуски считаем откатами; если это была долгая транзакция, ее подберет полная сверка
+        pendingGaps.values().removeIf(noticed -> now - noticed >= GAP_RETENTION_MS);
+
+        Set<Integer> showtimeIds = new HashSet<>();
+        for (OccupancyChange change : changeDAO.getChangesByIds(new ArrayList<>(pendingGaps.keySet()))) {
+            pendingGaps.remove(change.getChangeId());
+            showtimeIds.add(change.getShowtimeId());
+        }
+        return showtimeIds;
+    }
+
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < PURGE_INTERVAL_MS) {
+            return;
+        }
+        lastPurge = now;
+        int removed = changeDAO.purgeChangesBefore(LocalDateTime.now().minusHours(RETENTION_HOURS));
+        if (removed > 0) {
+            logger.debug("Удалено {} старых записей журнала изменений мест", removed);
+        }
+    }
+}
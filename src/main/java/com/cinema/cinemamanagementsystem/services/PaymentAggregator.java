@@ -0,0 +1,89 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import com.cinema.cinemamanagementsystem.dao.SalesRollupDAO;
+import com.cinema.cinemamanagementsystem.models.Payment;
+import com.cinema.cinemamanagementsystem.models.PaymentMethodStats;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Агрегация платежей по методам оплаты: количество, сумма, возвраты и итог.
+ * Работает для любого набора методов из payment_method, без хардкода ID.
+ */
+public class PaymentAggregator {
+
+    private final SalesRollupDAO rollupDAO = new SalesRollupDAO();
+    private final SalesRollupJob rollupJob = SalesRollupJob.getInstance();
+
+    /**
+     * Агрегация за дни периода по дневным агрегатам sales_daily_rollup — не зависит от числа платежей.
+     * При ошибке БД бросает IllegalStateException
+     */
+    public List<PaymentMethodStats> aggregate(LocalDateTime startDate, LocalDateTime endDate) {
+        if (rollupJob.catchUp() < 0) {
+            throw new IllegalStateException("Не удалось обновить агрегаты продаж");
+        }
+        List<PaymentMethodStats> stats = rollupDAO.getPaymentMethodStats(startDate.toLocalDate(), endDate.toLocalDate());
+        if (stats == null) {
+            throw new IllegalStateException("Не удалось прочитать продажи по методам оплаты");
+        }
+        return stats;
+    }
+
+    /**
+     * Агрегация уже загруженного списка за один проход на примитивных аккумуляторах
+     */
+    public static List<PaymentMethodStats> aggregate(List<Payment> payments) {
+        int capacity = 8;
+        long[] paymentCounts = new long[capacity];
+        double[] paymentAmounts = new double[capacity];
+        long[] refundCounts = new long[capacity];
+        double[] refundAmounts = new double[capacity];
+        String[] methodNames = new String[capacity];
+        boolean[] seen = new boolean[capacity];
+
+        for (Payment payment : payments) {
+            int methodId = payment.getMethodId();
+            if (methodId < 0) {
+                continue;
+            }
+            if (methodId >= capacity) {
+                capacity = Math.max(capacity * 2, methodId + 1);
+                paymentCounts = Arrays.copyOf(paymentCounts, capacity);
+                paymentAmounts = Arrays.copyOf(paymentAmounts, capacity);
+                refundCounts = Arrays.copyOf(refundCounts, capacity);
+                refundAmounts = Arrays.copyOf(refundAmounts, capacity);
+                methodNames = Arrays.copyOf(methodNames, capacity);
+                seen = Arrays.copyOf(seen, capacity);
+            }
+
+            seen[methodId] = true;
+            if (methodNames[methodId] == null) {
+                methodNames[methodId] = payment.getMethodName();
+            }
+
+            double amount = payment.getAmount();
+            if (amount > 0) {
+                paymentCounts[methodId]++;
+                paymentAmounts[methodId] += amount;
+            } else if (amount < 0) {
+                refundCounts[methodId]++;
+                refundAmounts[methodId] -= amount;
+            }
+        }
+
+        List<PaymentMethodStats> stats = new ArrayList<>();
+        for (int methodId = 0; methodId < capacity; methodId++) {
+            if (seen[methodId]) {
+                String name = methodNames[methodId] != null ? methodNames[methodId] : "Метод #" + methodId;
+                stats.add(new PaymentMethodStats(methodId, name,
+                        paymentCounts[methodId], paymentAmounts[methodId],
+                        refundCounts[methodId], refundAmounts[methodId]));
+            }
+        }
+        return stats;
+    }
+}
@@ -2,6 +2,7 @@ package com.cinema.cinemamanagementsystem.services;
 
 import com.cinema.cinemamanagementsystem.dao.PaymentDAO;
 import com.cinema.cinemamanagementsystem.models.Payment;
+import com.cinema.cinemamanagementsystem.models.PaymentMethodStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,6 +13,7 @@ public class PaymentService {
     private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
 
     private final PaymentDAO paymentDAO = new PaymentDAO();
+    private final PaymentAggregator paymentAggregator = new PaymentAggregator();
 
     /**
      * Создание платежа
@@ -96,65 +98,27 @@ public class PaymentService {
      */
     public String getPaymentMethodsStatistics(LocalDateTime startDate, LocalDateTime endDate) {
         try {
-            List<Payment> payments = paymentDAO.getPaymentsByDateRange(startDate, endDate);
-
-            long cardCount = payments.stream()
-                    .filter(p -> p.getMethodId() == 1 && p.getAmount() > 0)
-                    .count();
-
-            long cashCount = payments.stream()
-                    .filter(p -> p.getMethodId() == 2 && p.getAmount() > 0)
-                    .count();
-
-            long sbpCount = payments.stream()
-                    .filter(p -> p.getMethodId() == 3 && p.getAmount() > 0)
-                    .count();
-
-            double cardAmount = payments.stream()
-                    .filter(p -> p.getMethodId() == 1 && p.getAmount() > 0)
-                    .mapToDouble(Payment::getAmount)
-                    .sum();
-
-            double cashAmount = payments.stream()
-                    .filter(p -> p.getMethodId() == 2 && p.getAmount() > 0)
-                    .mapToDouble(Payment::getAmount)
-                    .sum();
-
-            double sbpAmount = payments.stream()
-                    .filter(p -> p.getMethodId() == 3 && p.getAmount() > 0)
-                    .mapToDouble(Payment::getAmount)
-                    .sum();
-
-            return String.format(
-                    "Банковская карта: %d операций (%.2f руб.)\n" +
-                            "Наличные: %d операций (%.2f руб.)\n" +
-                            "СБП: %d операций (%.2f руб.)",
-                    cardCount, cardAmount, cashCount, cashAmount, sbpCount, sbpAmount
-            );
+            List<PaymentMethodStats> stats = paymentAggregator.aggregate(startDate, endDate);
+
+            StringBuilder result = new StringBuilder();
+            double netTotal = 0;
+            for (PaymentMethodStats method : stats) {
+                result.append(String.format("%s: %d операций (%.2f руб.)",
+                        method.getMethodName(), method.getPaymentCount(), method.getPaymentAmount()));
+                if (method.getRefundCount() > 0) {
+                    result.append(String.format(", возвратов: %d (%.2f руб.)",
+                            method.getRefundCount(), method.getRefundAmount()));
+                }
+                result.append('\n');
+                netTotal += method.getNetAmount();
+            }
+            result.append(String.format("Итого за вычетом возвратов: %.2f руб.", netTotal));
+
+            return result.toString();
 
         } catch (Exception e) {
             logger.error("Ошибка при получении статистики методов оплаты: {}", e.getMessage());
             return "Не удалось получить статистику";
         }
     }
-
-    /**
-     * Проверка, был ли платеж возвращен
-     */
-    public boolean isTicketRefunded(int ticketId) {
-        try {
-            // Получаем все платежи по билету
-            List<Payment> payments = getPaymentsByPeriod(
-                    LocalDateTime.now().minusYears(1),
-                    LocalDateTime.now()
-            );
-
-            return payments.stream()
-                    .anyMatch(p -> p.getTicketId() == ticketId && p.getAmount() < 0);
-
-        } catch (Exception e) {
-            logger.error("Ошибка при проверке возврата: {}", e.getMessage());
-            return false;
-        }
-    }
 }
@@ -0,0 +1,136 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import com.cinema.cinemamanagementsystem.config.DatabaseConfig;
+import com.cinema.cinemamanagementsystem.dao.ReferenceDataCache;
+import com.cinema.cinemamanagementsystem.dao.ShowtimeDAO;
+import com.cinema.cinemamanagementsystem.models.Hall;
+import com.cinema.cinemamanagementsystem.models.HallLayout;
+import com.cinema.cinemamanagementsystem.models.PriceTable;
+import com.cinema.cinemamanagementsystem.models.SeatCategory;
+import com.cinema.cinemamanagementsystem.models.Showtime;
+import com.cinema.cinemamanagementsystem.models.TimePriceRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Цены билетов.
+ * Базовая цена сеанса, правило цены, тип зала, правила по времени начала и категория места
+ * сводятся для сеанса в PriceTable один раз; дальше цена места или заказа — обращения к массивам без БД.
+ * Таблицы кэшируются по сеансу и перестраиваются по TTL вслед за справочниками: цены сеансов
+ * и коэффициенты в приложении не редактируются, изменения в БД подхватываются в пределах TTL.
+ */
+public class PricingEngine {
+    private static final Logger logger = LoggerFactory.getLogger(PricingEngine.class);
+
+    private static final PricingEngine INSTANCE = new PricingEngine();
+
+    private static final long TABLE_TTL_MS = 10 * 60 * 1000;
+    private static final int MAX_TABLES = 500;
+
+    private final ShowtimeDAO showtimeDAO = new ShowtimeDAO();
+    private final HallLayoutCache layoutCache = HallLayoutCache.getInstance();
+    private final ReferenceDataCache referenceData = ReferenceDataCache.getInstance();
+
+    private final Map<Integer, PriceTable> tables = Collections.synchronizedMap(
+            new LinkedHashMap<Integer, PriceTable>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, PriceTable> eldest) {
+                    return size() > MAX_TABLES;
+                }
+            });
+
+    private PricingEngine() {}
+
+    public static PricingEngine getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Таблица цен сеанса (при первом обращении компилируется, вызывать из фонового потока)
+     */
+    public PriceTable getPriceTable(int showtimeId) {
+        PriceTable table = tables.get(showtimeId);
+        if (table != null && System.currentTimeMillis() - table.getCompiledAt() < TABLE_TTL_MS) {
+            return table;
+        }
+
+        Showtime showtime = showtimeDAO.getShowtimeById(showtimeId);
+        if (showtime == null) {
+            throw new IllegalStateException("Сеанс #" + showtimeId + " не найден");
+        }
+        HallLayout layout = layoutCache.getLayout(showtime.getHallId());
+        if (layout.isEmpty()) {
+            throw new IllegalStateException("Не удалось загрузить схему зала #" + showtime.getHallId());
+        }
+
+        table = compile(showtime, layout);
+        tables.put(showtimeId, table);
+        return table;
+    }
+
+    public double getSeatPrice(int showtimeId, int seatId, boolean booking) {
+        return getPriceTable(showtimeId).getSeatPrice(seatId, booking);
+    }
+
+    // Без справочников коэффициенты молча стали бы 1.0 и клиенту продали бы по базовой цене — таблицу не строим
+    private PriceTable compile(Showtime showtime, HallLayout layout) {
+        Hall hall = referenceData.getHalls().get(showtime.getHallId());
+        if (hall == null) {
+            throw new IllegalStateException("Справочник залов не загружен: нет зала #" + showtime.getHallId());
+        }
+        Map<Integer, SeatCategory> categories = referenceData.getSeatCategories();
+        if (categories.isEmpty()) {
+            throw new IllegalStateException("Справочник категорий мест не загружен");
+        }
+        if (showtime.getRuleId() > 0 && !referenceData.getPriceRules().containsKey(showtime.getRuleId())) {
+            throw new IllegalStateException("Справочник правил цен не загружен: нет правила #" + showtime.getRuleId());
+        }
+
+        // Общий множитель сеанса: правило цены, тип зала и все подходящие правила по времени начала
+        double showtimePrice = showtime.getBasePrice() * referenceData.getPriceCoefficient(showtime.getRuleId());
+        if (hall.getPriceCoefficient() > 0) {
+            showtimePrice *= hall.getPriceCoefficient();
+        }
+
+        LocalTime startTime = showtime.getDateTime().toLocalTime();
+        for (TimePriceRule rule : referenceData.getTimePriceRules()) {
+            if (rule.getCoefficient() > 0 && rule.appliesTo(startTime)) {
+                showtimePrice *= rule.getCoefficient();
+            }
+        }
+
+        int maxCategoryId = 0;
+        for (int categoryId : categories.keySet()) {
+            maxCategoryId = Math.max(maxCategoryId, categoryId);
+        }
+
+        double bookingRate = 1 + DatabaseConfig.BOOKING_SURCHARGE_RATE;
+        double defaultSale = roundToKopecks(showtimePrice);
+        double defaultBooking = roundToKopecks(showtimePrice * bookingRate);
+
+        double[] sale = new double[maxCategoryId + 1];
+        double[] booking = new double[maxCategoryId + 1];
+        Arrays.fill(sale, defaultSale);
+        Arrays.fill(booking, defaultBooking);
+        for (SeatCategory category : categories.values()) {
+            double coefficient = category.getPriceCoefficient() > 0 ? category.getPriceCoefficient() : 1.0;
+            sale[category.getCategoryId()] = roundToKopecks(showtimePrice * coefficient);
+            booking[category.getCategoryId()] = roundToKopecks(showtimePrice * coefficient * bookingRate);
+        }
+
+        PriceTable table = new PriceTable(showtime.getShowtimeId(), layout, sale, booking, defaultSale, defaultBooking);
+        logger.debug("Цены сеанса #{} скомпилированы: {}–{} руб.",
+                showtime.getShowtimeId(), table.getMinPrice(), table.getMaxPrice());
+        return table;
+    }
+
+    private static double roundToKopecks(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+}
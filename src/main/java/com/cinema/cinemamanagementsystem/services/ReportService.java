@@ -1,98 +1,441 @@
 package com.cinema.cinemamanagementsystem.services;
 
 import com.cinema.cinemamanagementsystem.dao.*;
+import com.cinema.cinemamanagementsystem.models.DailySales;
+import com.cinema.cinemamanagementsystem.models.FilmPopularity;
+import com.cinema.cinemamanagementsystem.models.HallOccupancy;
+import com.cinema.cinemamanagementsystem.models.PaymentMethodStats;
+import com.cinema.cinemamanagementsystem.models.Showtime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
 
 public class ReportService {
     private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
 
+    // Рейтинг фильмов за период длиннее — из дневных агрегатов (top-K), а не по билетам
+    private static final int EXACT_FILM_REPORT_MAX_DAYS = 366;
+    private static final int TOP_FILMS = 20;
+
+    // Рекомендации по расписанию: слот с заполняемостью ниже/выше порога и хотя бы MIN_SHOWTIMES_FOR_ADVICE сеансами
+    private static final double LOW_FILL_RATIO = 0.2;
+    private static final double HIGH_FILL_RATIO = 0.85;
+    private static final int MIN_SHOWTIMES_FOR_ADVICE = 3;
+    private static final int MAX_RECOMMENDATIONS = 5;
+
     private final PaymentDAO paymentDAO = new PaymentDAO();
+    private final FilmDAO filmDAO = new FilmDAO();
     private final TicketDAO ticketDAO = new TicketDAO();
     private final ShowtimeDAO showtimeDAO = new ShowtimeDAO();
+    private final SalesRollupDAO rollupDAO = new SalesRollupDAO();
+    private final SalesRollupJob rollupJob = SalesRollupJob.getInstance();
+    private final HallOccupancyEngine occupancyEngine = new HallOccupancyEngine();
 
+    /**
+     * Продажи за период по дневным агрегатам: выручка, билеты, возвраты, методы оплаты и динамика по дням.
+     * Ошибку БД пробрасывает вызывающему, а не возвращает нулевой отчет
+     */
     public Map<String, Object> generateSalesReport(LocalDateTime startDate, LocalDateTime endDate) {
         Map<String, Object> report = new HashMap<>();
 
         try {
-            // Общая выручка
-            double totalRevenue = paymentDAO.getTotalRevenue(startDate, endDate);
-            report.put("totalRevenue", totalRevenue);
+            // Все разделы читаются из дневных агрегатов; перед чтением дочитываем новые платежи
+            rollupJob.start();
+            catchUpRollup();
+
+            LocalDate from = startDate.toLocalDate();
+            LocalDate to = endDate.toLocalDate();
+            List<DailySales> dailySales = rollupDAO.getDailySales(from, to);
+            List<PaymentMethodStats> revenueByMethod = rollupDAO.getPaymentMethodStats(from, to);
+            if (dailySales == null || revenueByMethod == null) {
+                throw new IllegalStateException("Не удалось прочитать агрегаты продаж");
+            }
 
-            // Количество проданных билетов
-            // Здесь нужен запрос для подсчета билетов
-            // report.put("ticketsSold", ...);
+            long ticketsSold = 0;
+            double totalRevenue = 0;
+            double refundAmount = 0;
+            for (DailySales day : dailySales) {
+                ticketsSold += day.getPaymentCount();
+                totalRevenue += day.getPaymentAmount();
+                refundAmount += day.getRefundAmount();
+            }
+
+            // Общая выручка (без учета возвратов) и количество проданных билетов
+            report.put("totalRevenue", totalRevenue);
+            report.put("ticketsSold", ticketsSold);
 
             // Средний чек
-            // report.put("averageTicketPrice", ...);
+            report.put("averageTicketPrice", ticketsSold > 0 ? totalRevenue / ticketsSold : 0.0);
+
+            // Возвраты и выручка за их вычетом
+            report.put("refundAmount", refundAmount);
+            report.put("netRevenue", totalRevenue - refundAmount);
 
             // Выручка по методам оплаты
-            // report.put("revenueByMethod", ...);
+            report.put("revenueByMethod", revenueByMethod);
 
             // Динамика продаж по дням
-            // report.put("dailySales", ...);
+            report.put("dailySales", dailySales);
 
             logger.info("Отчет по продажам сгенерирован за период {} - {}", startDate, endDate);
 
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             logger.error("Ошибка при генерации отчета по продажам: {}", e.getMessage());
+            throw e;
         }
 
         return report;
     }
 
+    /**
+     * Популярность фильмов за период: выручка, билеты, средняя заполняемость и место по выручке.
+     * До EXACT_FILM_REPORT_MAX_DAYS — точный расчет по сеансам периода одним запросом;
+     * для более длинных периодов — первые TOP_FILMS фильмов из дневных агрегатов продаж (без заполняемости).
+     * Ошибку БД в любом режиме пробрасывает вызывающему, а не возвращает пустой отчет
+     */
     public Map<String, Object> generateFilmPopularityReport(LocalDateTime startDate, LocalDateTime endDate) {
         Map<String, Object> report = new HashMap<>();
 
         try {
-            // Здесь будет логика анализа популярности фильмов
-            // - Самые кассовые фильмы
-            // - Самые посещаемые фильмы
-            // - Средняя заполняемость залов
-            // - Рейтинг фильмов по выручке
+            boolean fromRollup = ChronoUnit.DAYS.between(startDate, endDate) > EXACT_FILM_REPORT_MAX_DAYS;
+            double[] totalRevenue = new double[1];
+            long[] totalTickets = new long[1];
+            List<FilmPopularity> films;
 
-            logger.info("Отчет по популярности фильмов сгенерирован");
+            if (fromRollup) {
+                rollupJob.start();
+                catchUpRollup();
+                films = topFilmsFromRollup(startDate.toLocalDate(), endDate.toLocalDate(), TOP_FILMS,
+                        totalRevenue, totalTickets);
+            } else {
+                films = filmDAO.getFilmPopularity(startDate, endDate);
+                if (films == null) {
+                    throw new IllegalStateException("Не удалось рассчитать популярность фильмов");
+                }
+                for (FilmPopularity film : films) {
+                    totalRevenue[0] += film.getRevenue();
+                    totalTickets[0] += film.getTicketsSold();
+                }
+            }
 
-        } catch (Exception e) {
+            // Фильмы по месту в рейтинге выручки; итоги — по всем фильмам периода, в т.ч. не вошедшим в список
+            report.put("films", films);
+            report.put("totalRevenue", totalRevenue[0]);
+            report.put("ticketsSold", totalTickets[0]);
+            report.put("mostPopularFilm", films.isEmpty() ? null : films.get(0));
+            report.put("fromRollup", fromRollup);
+
+            logger.info("Отчет по популярности фильмов сгенерирован за период {} - {}: {} фильмов{}",
+                    startDate, endDate, films.size(), fromRollup ? " (по агрегатам)" : "");
+
+        } catch (RuntimeException e) {
             logger.error("Ошибка при генерации отчета по популярности фильмов: {}", e.getMessage());
+            throw e;
         }
 
         return report;
     }
 
+    // Дочитать новые платежи в агрегаты; без этого отчет молча не учел бы последние продажи
+    private void catchUpRollup() {
+        if (rollupJob.catchUp() < 0) {
+            throw new IllegalStateException("Не удалось обновить агрегаты продаж");
+        }
+    }
+
+    // Первые k фильмов по выручке: min-куча на k элементов, память не зависит от числа фильмов.
+    // Порядок кучи — выручка по убыванию, затем название, как в точном режиме: при равной выручке
+    // на k-м месте в список попадают одни и те же фильмы. Места с равной выручкой делятся, как RANK() в SQL
+    private List<FilmPopularity> topFilmsFromRollup(LocalDate from, LocalDate to, int k,
+                                                    double[] totalRevenue, long[] totalTickets) {
+        Comparator<FilmPopularity> byRank = Comparator.comparingDouble(FilmPopularity::getRevenue).reversed()
+                .thenComparing(FilmPopularity::getTitle);
+        // Вершина кучи — худший из отобранных
+        PriorityQueue<FilmPopularity> heap = new PriorityQueue<>(k + 1, byRank.reversed());
+
+        boolean loaded = rollupDAO.forEachFilmSales(from, to, film -> {
+            totalRevenue[0] += film.getRevenue();
+            totalTickets[0] += film.getTicketsSold();
+            if (heap.size() < k) {
+                heap.add(film);
+            } else if (byRank.compare(film, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(film);
+            }
+        });
+        if (!loaded) {
+            throw new IllegalStateException("Не удалось прочитать продажи по фильмам");
+        }
+
+        List<FilmPopularity> top = new ArrayList<>(heap);
+        top.sort(byRank);
+
+        List<FilmPopularity> ranked = new ArrayList<>(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            boolean tie = i > 0 && top.get(i).getRevenue() == top.get(i - 1).getRevenue();
+            ranked.add(top.get(i).withRank(tie ? ranked.get(i - 1).getRank() : i + 1));
+        }
+        return ranked;
+    }
+
+    /**
+     * Загрузка залов за период: матрица заполняемости зал × день недели × час начала,
+     * самый загруженный зал и рекомендации по расписанию для заметно пустых и переполненных слотов.
+     * Ошибку чтения сеансов или схемы зала пробрасывает вызывающему
+     */
     public Map<String, Object> generateHallOccupancyReport(LocalDateTime startDate, LocalDateTime endDate) {
         Map<String, Object> report = new HashMap<>();
 
         try {
-            // Анализ загрузки залов
-            // - Процент заполняемости по залам
-            // - Самые популярные временные слоты
-            // - Эффективность использования залов
-            // - Рекомендации по расписанию
+            HallOccupancy occupancy = occupancyEngine.compute(startDate, endDate);
+
+            int bestHall = -1;
+            for (int hall = 0; hall < occupancy.getHallCount(); hall++) {
+                if (occupancy.getHallShowtimes(hall) > 0
+                        && (bestHall < 0 || occupancy.getHallFillRatio(hall) > occupancy.getHallFillRatio(bestHall))) {
+                    bestHall = hall;
+                }
+            }
+
+            report.put("occupancy", occupancy);
+            report.put("bestHall", bestHall);
+            report.put("recommendations", recommendSchedule(occupancy));
 
-            logger.info("Отчет по загрузке залов сгенерирован");
+            logger.info("Отчет по загрузке залов сгенерирован за период {} - {}", startDate, endDate);
 
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             logger.error("Ошибка при генерации отчета по загрузке залов: {}", e.getMessage());
+            throw e;
         }
 
         return report;
     }
 
-    public void exportToExcel(Map<String, Object> report, String filePath) {
-        try {
-            // Используем Apache POI для экспорта в Excel
-            // В реальной системе здесь будет реализация экспорта
+    // Слоты (зал, день недели, час) с достаточным числом сеансов: сначала самые пустые, затем самые полные
+    private List<String> recommendSchedule(HallOccupancy occupancy) {
+        List<int[]> low = new ArrayList<>();
+        List<int[]> high = new ArrayList<>();
+        for (int hall = 0; hall < occupancy.getHallCount(); hall++) {
+            for (int day = 0; day < HallOccupancy.DAYS; day++) {
+                for (int slot = 0; slot < HallOccupancy.SLOTS; slot++) {
+                    if (occupancy.getShowtimes(hall, day, slot) < MIN_SHOWTIMES_FOR_ADVICE) {
+                        continue;
+                    }
+                    double fill = occupancy.getFillRatio(hall, day, slot);
+                    if (fill < LOW_FILL_RATIO) {
+                        low.add(new int[]{hall, day, slot});
+                    } else if (fill > HIGH_FILL_RATIO) {
+                        high.add(new int[]{hall, day, slot});
+                    }
+                }
+            }
+        }
+
+        Comparator<int[]> byFill = Comparator.comparingDouble(cell -> occupancy.getFillRatio(cell[0], cell[1], cell[2]));
+        low.sort(byFill);
+        high.sort(byFill.reversed());
 
-            logger.info("Отчет экспортирован в Excel: {}", filePath);
+        List<String> recommendations = new ArrayList<>();
+        for (int i = 0; i < low.size() && i < MAX_RECOMMENDATIONS; i++) {
+            recommendations.add(describeSlot(occupancy, low.get(i)) + ": сократить сеансы");
+        }
+        for (int i = 0; i < high.size() && i < MAX_RECOMMENDATIONS; i++) {
+            recommendations.add(describeSlot(occupancy, high.get(i)) + ": добавить сеансы");
+        }
+        return recommendations;
+    }
+
+    private static String describeSlot(HallOccupancy occupancy, int[] cell) {
+        return String.format("%s, %s %02d:00 — заполняемость %.0f%% на %d сеансах",
+                occupancy.getHallName(cell[0]),
+                DayOfWeek.of(cell[1] + 1).getDisplayName(TextStyle.SHORT, new Locale("ru")),
+                cell[2],
+                occupancy.getFillRatio(cell[0], cell[1], cell[2]) * 100,
+                occupancy.getShowtimes(cell[0], cell[1], cell[2]));
+    }
+
+    /**
+     * Выгрузка платежей и возвратов за период в CSV или XLSX (по расширению файла).
+     * Строки идут из курсора БД прямо в файл, поэтому память не зависит от длины периода.
+     * Отмена — прерыванием потока (UiTaskExecutor.cancel); недописанный файл удаляется
+     */
+    public long exportPayments(LocalDateTime startDate, LocalDateTime endDate, File file,
+                               ExportProgress progress) throws IOException {
+        long total = paymentDAO.countPayments(startDate, endDate);
+
+        try (ExportSink sink = new ExportSink(file, "Платежи", total, progress)) {
+            sink.header("№ платежа", "№ билета", "Время", "Сумма", "Способ оплаты", "Кассир");
+            long read = paymentDAO.forEachPayment(startDate, endDate, payment -> sink.row(
+                    payment.getPaymentId(),
+                    payment.getTicketId(),
+                    payment.getPaymentTime(),
+                    payment.getAmount(),
+                    payment.getMethodName(),
+                    payment.getUserName()));
+            if (read < 0) {
+                throw new IOException("Ошибка чтения платежей из БД");
+            }
+            long rows = sink.complete();
+            logger.info("Выгружено платежей за период {} - {}: {} в {}", startDate, endDate, rows, file);
+            return rows;
+        }
+    }
+
+    /**
+     * Выгрузка билетов, оформленных за период, в CSV или XLSX — так же потоково, как платежи
+     */
+    public long exportTickets(LocalDateTime startDate, LocalDateTime endDate, File file,
+                              ExportProgress progress) throws IOException {
+        long total = ticketDAO.countTickets(startDate, endDate);
+
+        try (ExportSink sink = new ExportSink(file, "Билеты", total, progress)) {
+            sink.header("№ билета", "Оформлен", "Фильм", "Сеанс", "Ряд", "Место", "Категория",
+                    "Клиент", "Статус");
+            long read = ticketDAO.forEachTicket(startDate, endDate, ticket -> sink.row(
+                    ticket.getTicketId(),
+                    ticket.getCreatedAt(),
+                    ticket.getFilmTitle(),
+                    ticket.getShowtimeStart(),
+                    ticket.getSeatRow(),
+                    ticket.getSeatNumber(),
+                    ticket.getSeatCategory(),
+                    ticket.getCustomerName(),
+                    ticket.getStatusName()));
+            if (read < 0) {
+                throw new IOException("Ошибка чтения билетов из БД");
+            }
+            long rows = sink.complete();
+            logger.info("Выгружено билетов за период {} - {}: {} в {}", startDate, endDate, rows, file);
+            return rows;
+        }
+    }
+
+    /**
+     * Выгрузка расписания (уже загруженные сеансы) в CSV или XLSX
+     */
+    public long exportSchedule(List<Showtime> showtimes, File file, ExportProgress progress) throws IOException {
+        try (ExportSink sink = new ExportSink(file, "Расписание", showtimes.size(), progress)) {
+            sink.header("№ сеанса", "Начало", "Фильм", "Зал", "Тип", "Цена");
+            for (Showtime showtime : showtimes) {
+                sink.row(
+                        showtime.getShowtimeId(),
+                        showtime.getDateTime(),
+                        showtime.getFilmTitle(),
+                        showtime.getHallName(),
+                        showtime.getRuleName(),
+                        showtime.getFinalPrice());
+            }
+            long rows = sink.complete();
+            logger.info("Расписание выгружено: {} сеансов в {}", rows, file);
+            return rows;
+        }
+    }
+
+    private static boolean isCsv(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+    }
+
+    /**
+     * Приемник строк выгрузки. Пишет во временный файл рядом с целевым и переносит его
+     * на место только после успешного завершения; при ошибке или отмене временный файл удаляется.
+     * Каждые PROGRESS_STEP строк сообщает прогресс и проверяет, не прерван ли поток
+     */
+    private static final class ExportSink implements Closeable {
+        private static final int PROGRESS_STEP = 1000;
+
+        private final Path target;
+        private final Path partial;
+        private final RowWriter writer;
+        private final long totalRows;
+        private final ExportProgress progress;
+        private long rows;
+        private boolean completed;
+
+        ExportSink(File file, String sheetName, long totalRows, ExportProgress progress) throws IOException {
+            this.target = file.toPath().toAbsolutePath();
+            this.partial = target.resolveSibling(target.getFileName() + ".part");
+            this.totalRows = totalRows;
+            this.progress = progress;
+
+            // FileOutputStream, а не канал NIO: прерывание потока при отмене не должно закрывать файл посреди записи
+            OutputStream out = new FileOutputStream(partial.toFile());
+            try {
+                this.writer = isCsv(target) ? new CsvRowWriter(out) : new XlsxRowWriter(out, sheetName);
+            } catch (IOException e) {
+                out.close();
+                Files.deleteIfExists(partial);
+                throw e;
+            }
+            progress.update(0, totalRows);
+        }
+
+        void header(Object... names) throws IOException {
+            writer.writeRow(names);
+        }
+
+        // Вызывается из обработчика строк DAO, поэтому ошибки записи — непроверяемые
+        void row(Object... values) {
+            try {
+                writer.writeRow(values);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (++rows % PROGRESS_STEP == 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Выгрузка отменена");
+                }
+                progress.update(rows, totalRows);
+            }
+        }
+
+        long complete() throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Выгрузка отменена");
+            }
+            writer.close();
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+            completed = true;
+            progress.update(rows, rows);
+            return rows;
+        }
 
-        } catch (Exception e) {
-            logger.error("Ошибка при экспорте отчета: {}", e.getMessage());
+        @Override
+        public void close() {
+            if (completed) {
+                return;
+            }
+            try {
+                writer.close();
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Ошибка при закрытии недописанной выгрузки: {}", e.getMessage());
+            }
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException e) {
+                logger.warn("Не удалось удалить недописанный файл выгрузки {}: {}", partial, e.getMessage());
+            }
         }
     }
 }
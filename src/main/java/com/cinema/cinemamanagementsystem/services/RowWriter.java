@@ -0,0 +1,14 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Построчная запись табличной выгрузки (CSV или XLSX).
+ * Первая строка — заголовок. Строка уходит в поток сразу и в памяти не копится.
+ * Значения: String, Integer/Long, Double (денежный формат), LocalDate, LocalDateTime; null — пустая ячейка
+ */
+public interface RowWriter extends Closeable {
+
+    void writeRow(Object... values) throws IOException;
+}
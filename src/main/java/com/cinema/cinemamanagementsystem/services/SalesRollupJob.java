@@ -0,0 +1,104 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import com.cinema.cinemamanagementsystem.dao.SalesRollupDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Инкрементальное обновление sales_daily_rollup, одно задание на процесс.
+ * Каждый запуск дочитывает пакетами только платежи новее водяного знака, поэтому стоимость
+ * не зависит от длины истории. Запускается периодически и перед построением отчета по продажам.
+ * Раз в час последние дни пересчитываются целиком: так в агрегаты попадают платежи долгих транзакций,
+ * которые закоммитились уже после того, как водяной знак прошел их ID.
+ */
+public class SalesRollupJob {
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupJob.class);
+
+    private static final SalesRollupJob INSTANCE = new SalesRollupJob();
+
+    private static final int BATCH_SIZE = 5000;
+    private static final long RUN_INTERVAL_MINUTES = 5;
+    // Платежи моложе этого возраста (по часам БД) ждут следующего запуска: заказ с меньшим payment_id мог еще не закоммититься
+    private static final int SETTLE_SECONDS = 30;
+    private static final long REROLL_INTERVAL_MS = 60 * 60 * 1000;
+    // Сегодня и два предыдущих дня — с запасом на часы касс и заказы через полночь
+    private static final int REROLL_DAYS = 2;
+
+    private final SalesRollupDAO rollupDAO = new SalesRollupDAO();
+
+    private ScheduledExecutorService scheduler;
+    private long lastReroll;
+
+    private SalesRollupJob() {}
+
+    public static SalesRollupJob getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sales-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, RUN_INTERVAL_MINUTES, RUN_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    /**
+     * Дочитать все накопившиеся платежи. Возвращает число учтенных платежей, -1 при ошибке БД
+     */
+    public synchronized int catchUp() {
+        int total = 0;
+        while (true) {
+            int processed = rollupDAO.rollUpNextBatch(BATCH_SIZE, SETTLE_SECONDS);
+            if (processed < 0) {
+                return total > 0 ? total : -1;
+            }
+            total += processed;
+            if (processed < BATCH_SIZE) {
+                break;
+            }
+        }
+        if (total > 0) {
+            logger.debug("Агрегаты продаж дочитаны: {} платежей", total);
+        }
+        return total;
+    }
+
+    // Пересчитать последние дни, если подошел срок
+    private synchronized void rerollIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastReroll < REROLL_INTERVAL_MS) {
+            return;
+        }
+        if (rollupDAO.rerollSince(LocalDate.now().minusDays(REROLL_DAYS))) {
+            lastReroll = now;
+            logger.debug("Агрегаты продаж за последние {} дня пересчитаны", REROLL_DAYS + 1);
+        }
+    }
+
+    private void runSafely() {
+        try {
+            catchUp();
+            rerollIfDue();
+        } catch (RuntimeException e) {
+            logger.error("Ошибка задания агрегатов продаж: {}", e.getMessage());
+        }
+    }
+}
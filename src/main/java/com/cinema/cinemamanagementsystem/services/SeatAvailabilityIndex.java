@@ -0,0 +1,234 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import com.cinema.cinemamanagementsystem.dao.ShowtimeDAO;
+import com.cinema.cinemamanagementsystem.models.HallLayout;
+import com.cinema.cinemamanagementsystem.models.Showtime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс занятости мест по сеансам.
+ * Для каждого сеанса хранит битовую карту, индексированную порядковым номером места
+ * в схеме зала из HallLayoutCache.
+ * Загружается из ticket один раз, дальше обновляется путями продажи, бронирования,
+ * подтверждения, возврата и отмены истекших броней.
+ */
+public class SeatAvailabilityIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SeatAvailabilityIndex.class);
+
+    private static final SeatAvailabilityIndex INSTANCE = new SeatAvailabilityIndex();
+
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    private final ShowtimeDAO showtimeDAO = new ShowtimeDAO();
+    private final HallLayoutCache layoutCache = HallLayoutCache.getInstance();
+    private final Map<Integer, Occupancy> occupancyByShowtime = new ConcurrentHashMap<>();
+
+    private SeatAvailabilityIndex() {}
+
+    public static SeatAvailabilityIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Занято ли место (несуществующее в зале место тоже считается недоступным)
+     */
+    public boolean isTaken(int showtimeId, int seatId) {
+        return getOccupancy(showtimeId).isTaken(seatId);
+    }
+
+    public int getFreeSeatCount(int showtimeId) {
+        return getOccupancy(showtimeId).freeCount();
+    }
+
+    public int getTotalSeatCount(int showtimeId) {
+        return getOccupancy(showtimeId).layout.getSeatCount();
+    }
+
+    /**
+     * Схема зала сеанса
+     */
+    public HallLayout getLayout(int showtimeId) {
+        return getOccupancy(showtimeId).layout;
+    }
+
+    /**
+     * Копия битовой карты занятости по порядковым номерам мест схемы
+     */
+    public BitSet getTakenSnapshot(int showtimeId) {
+        return getOccupancy(showtimeId).snapshot();
+    }
+
+    /**
+     * Загружена ли занятость сеанса (обращение к незагруженному сеансу идет в БД)
+     */
+    public boolean isLoaded(int showtimeId) {
+        return occupancyByShowtime.containsKey(showtimeId);
+    }
+
+    public void markTaken(int showtimeId, int seatId) {
+        Occupancy occupancy = occupancyByShowtime.get(showtimeId);
+        if (occupancy != null) {
+            occupancy.set(seatId, true);
+        }
+    }
+
+    public void markFree(int showtimeId, int seatId) {
+        Occupancy occupancy = occupancyByShowtime.get(showtimeId);
+        if (occupancy != null) {
+            occupancy.set(seatId, false);
+        }
+    }
+
+    /**
+     * Перечитать занятые места сеанса из БД (схема зала остается прежней); при ошибке БД карта не трогается
+     */
+    public void refresh(int showtimeId) {
+        Occupancy occupancy = occupancyByShowtime.get(showtimeId);
+        if (occupancy == null) {
+            getOccupancy(showtimeId);
+            return;
+        }
+        List<Integer> taken = showtimeDAO.getTakenSeats(showtimeId);
+        if (taken != null) {
+            occupancy.reset(taken);
+        }
+    }
+
+    /**
+     * Сверить занятость загруженных сеансов с БД одним запросом на пачку сеансов.
+     * Возвращает сеансы, у которых битовая карта разошлась с БД; при ошибке БД карты не трогаются
+     */
+    public Set<Integer> reconcile(Collection<Integer> showtimeIds) {
+        List<Integer> loaded = new ArrayList<>();
+        for (int showtimeId : showtimeIds) {
+            if (occupancyByShowtime.containsKey(showtimeId)) {
+                loaded.add(showtimeId);
+            }
+        }
+
+        Set<Integer> changed = new HashSet<>();
+        for (int from = 0; from < loaded.size(); from += RECONCILE_BATCH_SIZE) {
+            List<Integer> batch = loaded.subList(from, Math.min(from + RECONCILE_BATCH_SIZE, loaded.size()));
+            Map<Integer, List<Integer>> taken = showtimeDAO.getTakenSeats(batch);
+            if (taken == null) {
+                break;
+            }
+            for (int showtimeId : batch) {
+                Occupancy occupancy = occupancyByShowtime.get(showtimeId);
+                if (occupancy != null
+                        && occupancy.reset(taken.getOrDefault(showtimeId, Collections.emptyList()))) {
+                    changed.add(showtimeId);
+                }
+            }
+        }
+        if (!changed.isEmpty()) {
+            logger.info("Занятость {} сеансов расходилась с БД и перечитана", changed.size());
+        }
+        return changed;
+    }
+
+    /**
+     * Сверить с БД все загруженные сеансы
+     */
+    public Set<Integer> reconcileAll() {
+        return reconcile(new ArrayList<>(occupancyByShowtime.keySet()));
+    }
+
+    public void invalidate(int showtimeId) {
+        occupancyByShowtime.remove(showtimeId);
+    }
+
+    public void invalidateAll() {
+        occupancyByShowtime.clear();
+    }
+
+    private Occupancy getOccupancy(int showtimeId) {
+        Occupancy occupancy = occupancyByShowtime.computeIfAbsent(showtimeId, this::load);
+        // Пустую схему (сбой БД или неизвестный сеанс) не кэшируем
+        if (occupancy.layout.isEmpty()) {
+            occupancyByShowtime.remove(showtimeId, occupancy);
+        }
+        return occupancy;
+    }
+
+    private Occupancy load(int showtimeId) {
+        Showtime showtime = showtimeDAO.getShowtimeById(showtimeId);
+        HallLayout layout = showtime != null
+                ? layoutCache.getLayout(showtime.getHallId())
+                : new HallLayout(0, Collections.emptyList());
+        Occupancy occupancy = new Occupancy(layout);
+        if (!layout.isEmpty()) {
+            List<Integer> taken = showtimeDAO.getTakenSeats(showtimeId);
+            if (taken == null) {
+                // Занятость не прочитана: пустая схема (все места недоступны) не кэшируется, следующий запрос повторит загрузку
+                return new Occupancy(new HallLayout(0, Collections.emptyList()));
+            }
+            occupancy.reset(taken);
+        }
+        logger.debug("Загружена занятость сеанса #{}: {} мест", showtimeId, layout.getSeatCount());
+        return occupancy;
+    }
+
+    // Битовая карта одного сеанса поверх схемы зала
+    private static final class Occupancy {
+        private final HallLayout layout;
+        private final BitSet taken;
+
+        Occupancy(HallLayout layout) {
+            this.layout = layout;
+            this.taken = new BitSet(layout.getSeatCount());
+        }
+
+        private int ordinal(int seatId) {
+            return layout.ordinalOf(seatId);
+        }
+
+        synchronized boolean isTaken(int seatId) {
+            int ordinal = ordinal(seatId);
+            return ordinal < 0 || taken.get(ordinal);
+        }
+
+        synchronized void set(int seatId, boolean value) {
+            int ordinal = ordinal(seatId);
+            if (ordinal >= 0) {
+                taken.set(ordinal, value);
+            }
+        }
+
+        // Заменить карту занятыми местами из БД; true — карта изменилась
+        synchronized boolean reset(List<Integer> takenSeatIds) {
+            BitSet fresh = new BitSet(layout.getSeatCount());
+            for (int seatId : takenSeatIds) {
+                int ordinal = ordinal(seatId);
+                if (ordinal >= 0) {
+                    fresh.set(ordinal);
+                }
+            }
+            if (fresh.equals(taken)) {
+                return false;
+            }
+            taken.clear();
+            taken.or(fresh);
+            return true;
+        }
+
+        synchronized int freeCount() {
+            return layout.getSeatCount() - taken.cardinality();
+        }
+
+        synchronized BitSet snapshot() {
+            return (BitSet) taken.clone();
+        }
+    }
+}
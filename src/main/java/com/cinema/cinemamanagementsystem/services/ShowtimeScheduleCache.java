@@ -0,0 +1,157 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import com.cinema.cinemamanagementsystem.dao.ShowtimeDAO;
+import com.cinema.cinemamanagementsystem.models.Showtime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Расписание сеансов, разложенное по дням.
+ * День загружается вместе с соседними (вчера/завтра) одним запросом по диапазону дат,
+ * переключение на уже загруженный день — выборка корзины из карты.
+ * Хранится не больше MAX_DAYS дней, давно не открывавшиеся вытесняются;
+ * день старше TTL перечитывается, чтобы подхватить изменения расписания из админки.
+ * Ошибка БД не кэшируется: вызывающий получает IllegalStateException, следующий запрос повторит загрузку.
+ */
+public class ShowtimeScheduleCache {
+    private static final Logger logger = LoggerFactory.getLogger(ShowtimeScheduleCache.class);
+
+    private static final int MAX_DAYS = 14;
+    private static final int PREFETCH_DAYS = 1;
+    private static final long TTL_MILLIS = 5 * 60 * 1000;
+
+    private final ShowtimeDAO showtimeDAO = new ShowtimeDAO();
+
+    private final Map<LocalDate, Day> days = new LinkedHashMap<>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, Day> eldest) {
+            return size() > MAX_DAYS;
+        }
+    };
+
+    private Set<LocalDate> datesWithShowtimes;
+    private long datesLoadedAt;
+
+    /**
+     * Все сеансы дня, отсортированные по времени
+     */
+    public synchronized List<Showtime> getShowtimes(LocalDate date) {
+        Day day = days.get(date);
+        if (day == null || day.isExpired()) {
+            days.remove(date);
+            loadAround(date);
+            day = days.get(date);
+        }
+        return day != null ? day.showtimes : Collections.emptyList();
+    }
+
+    /**
+     * Сеансы дня, которые еще не начались
+     */
+    public List<Showtime> getUpcomingShowtimes(LocalDate date) {
+        LocalDateTime now = LocalDateTime.now();
+        return getShowtimes(date).stream()
+                .filter(showtime -> showtime.getDateTime().isAfter(now))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Есть ли на дату сеансы (по списку дат, без загрузки самих сеансов)
+     */
+    public boolean hasShowtimesOn(LocalDate date) {
+        return getShowtimeDates().contains(date);
+    }
+
+    /**
+     * Даты с сеансами начиная с сегодняшнего дня
+     */
+    public synchronized Set<LocalDate> getShowtimeDates() {
+        if (datesWithShowtimes == null || System.currentTimeMillis() - datesLoadedAt > TTL_MILLIS) {
+            Set<LocalDate> dates = showtimeDAO.getShowtimeDates(LocalDate.now().atStartOfDay());
+            if (dates == null) {
+                throw new IllegalStateException("Не удалось загрузить даты сеансов");
+            }
+            datesWithShowtimes = Collections.unmodifiableSet(dates);
+            datesLoadedAt = System.currentTimeMillis();
+        }
+        return datesWithShowtimes;
+    }
+
+    public synchronized void invalidate(LocalDate date) {
+        days.remove(date);
+        datesWithShowtimes = null;
+    }
+
+    public synchronized void invalidateAll() {
+        days.clear();
+        datesWithShowtimes = null;
+    }
+
+    // Загружаем день и соседние дни, которых еще нет в кэше, одним запросом
+    private void loadAround(LocalDate date) {
+        LocalDate from = null;
+        LocalDate to = null;
+        for (LocalDate d = date.minusDays(PREFETCH_DAYS); !d.isAfter(date.plusDays(PREFETCH_DAYS)); d = d.plusDays(1)) {
+            Day cached = days.get(d);
+            if (cached == null || cached.isExpired()) {
+                if (from == null) {
+                    from = d;
+                }
+                to = d;
+            }
+        }
+        if (from == null) {
+            return;
+        }
+
+        List<Showtime> showtimes = showtimeDAO.getShowtimesBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        if (showtimes == null) {
+            throw new IllegalStateException("Не удалось загрузить расписание на " + from + " — " + to);
+        }
+
+        Map<LocalDate, List<Showtime>> loaded = new LinkedHashMap<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            loaded.put(d, new ArrayList<>());
+        }
+        for (Showtime showtime : showtimes) {
+            loaded.get(showtime.getDateTime().toLocalDate()).add(showtime);
+        }
+
+        // Запрошенный день кладем последним, чтобы он был самым "свежим" для LRU
+        long now = System.currentTimeMillis();
+        loaded.forEach((d, dayShowtimes) -> {
+            if (!d.equals(date)) {
+                days.put(d, new Day(dayShowtimes, now));
+            }
+        });
+        if (loaded.containsKey(date)) {
+            days.put(date, new Day(loaded.get(date), now));
+        }
+
+        logger.debug("Загружено расписание на {} — {}", from, to);
+    }
+
+    private static final class Day {
+        private final List<Showtime> showtimes;
+        private final long loadedAt;
+
+        Day(List<Showtime> showtimes, long loadedAt) {
+            this.showtimes = Collections.unmodifiableList(showtimes);
+            this.loadedAt = loadedAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - loadedAt > TTL_MILLIS;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import javafx.concurrent.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Фоновое выполнение обращений к БД из контроллеров.
+ * Работа выполняется в JavaFX Task на ограниченном пуле потоков, результат и ошибка
+ * возвращаются в поток JavaFX. Задачи с одинаковым ключом схлопываются: новая задача
+ * отменяет предыдущую, а результат устаревшей задачи в UI не попадает.
+ */
+public class UiTaskExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(UiTaskExecutor.class);
+
+    private static final UiTaskExecutor INSTANCE = new UiTaskExecutor();
+
+    private static final int POOL_SIZE = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE, new DaemonThreadFactory());
+    private final Map<String, Task<?>> latestByKey = new ConcurrentHashMap<>();
+
+    private UiTaskExecutor() {}
+
+    public static UiTaskExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Выполнить работу в фоне; ошибка только логируется
+     */
+    public <T> Task<T> submit(Callable<T> work, Consumer<T> onSuccess) {
+        return submit(null, work, onSuccess, null);
+    }
+
+    public <T> Task<T> submit(Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        return submit(null, work, onSuccess, onError);
+    }
+
+    public <T> Task<T> submit(String key, Callable<T> work, Consumer<T> onSuccess) {
+        return submit(key, work, onSuccess, null);
+    }
+
+    /**
+     * Выполнить работу в фоне. Если key не null, предыдущая задача с тем же ключом отменяется
+     */
+    public <T> Task<T> submit(String key, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            if (isCurrent(key, task) && onSuccess != null) {
+                onSuccess.accept(task.getValue());
+            }
+        });
+        task.setOnFailed(e -> {
+            if (!isCurrent(key, task)) {
+                return;
+            }
+            Throwable error = task.getException();
+            logger.error("Ошибка фоновой задачи{}: {}", key != null ? " '" + key + "'" : "",
+                    error != null ? error.getMessage() : "неизвестная ошибка", error);
+            if (onError != null) {
+                onError.accept(error);
+            }
+        });
+        task.setOnCancelled(e -> isCurrent(key, task));
+
+        if (key != null) {
+            Task<?> previous = latestByKey.put(key, task);
+            if (previous != null) {
+                previous.cancel(true);
+            }
+        }
+
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Отменить задачу с ключом, если она еще выполняется
+     */
+    public void cancel(String key) {
+        Task<?> task = latestByKey.remove(key);
+        if (task != null) {
+            task.cancel(true);
+        }
+    }
+
+    public void shutdown() {
+        latestByKey.values().forEach(task -> task.cancel(true));
+        latestByKey.clear();
+        executor.shutdownNow();
+    }
+
+    // Задача актуальна, если ее не вытеснила более новая с тем же ключом; актуальную снимаем с учета
+    private boolean isCurrent(String key, Task<?> task) {
+        if (key == null) {
+            return true;
+        }
+        if (latestByKey.get(key) != task) {
+            return false;
+        }
+        latestByKey.remove(key, task);
+        return true;
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ui-task-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.cinema.cinemamanagementsystem.services;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Потоковая запись XLSX без сторонних библиотек.
+ * Лист пишется в zip-архив по мере поступления строк: текст — inline-строками (без таблицы общих строк,
+ * которую пришлось бы держать в памяти), числа и даты — числами со стилем. Когда лист заполнен
+ * до предела Excel, начинается следующий с тем же заголовком. Книга, стили и связи пишутся при закрытии
+ */
+public class XlsxRowWriter implements RowWriter {
+
+    private static final int MAX_ROWS_PER_SHEET = 1_048_576;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final LocalDate EXCEL_EPOCH = LocalDate.of(1899, 12, 30);
+
+    // Индексы стилей в cellXfs (styles.xml)
+    private static final int STYLE_DATE_TIME = 1;
+    private static final int STYLE_DATE = 2;
+    private static final int STYLE_MONEY = 3;
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String NS_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private final ZipOutputStream zip;
+    private final Writer xml;
+    private final String sheetName;
+    private final List<String> columnNames = new ArrayList<>();
+
+    private Object[] header;
+    private int sheetCount;
+    private int rowsInSheet;
+
+    public XlsxRowWriter(OutputStream out, String sheetName) {
+        this.zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        this.xml = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.sheetName = sheetName;
+    }
+
+    @Override
+    public void writeRow(Object... values) throws IOException {
+        if (sheetCount == 0) {
+            startSheet();
+            header = values.clone();
+        } else if (rowsInSheet == MAX_ROWS_PER_SHEET) {
+            endSheet();
+            startSheet();
+            appendRow(header);
+        }
+        appendRow(values);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (sheetCount == 0) {
+            startSheet();
+        }
+        endSheet();
+
+        writeEntry("[Content_Types].xml", contentTypes());
+        writeEntry("_rels/.rels", XML_HEADER +
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                "<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/officeDocument\" Target=\"xl/workbook.xml\"/>" +
+                "</Relationships>");
+        writeEntry("xl/workbook.xml", workbook());
+        writeEntry("xl/_rels/workbook.xml.rels", workbookRels());
+        writeEntry("xl/styles.xml", styles());
+        xml.close();
+    }
+
+    private void startSheet() throws IOException {
+        sheetCount++;
+        rowsInSheet = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetCount + ".xml"));
+        xml.write(XML_HEADER);
+        xml.write("<worksheet xmlns=\"" + NS_MAIN + "\"><sheetData>");
+    }
+
+    private void endSheet() throws IOException {
+        xml.write("</sheetData></worksheet>");
+        xml.flush();
+        zip.closeEntry();
+    }
+
+    private void appendRow(Object[] values) throws IOException {
+        String rowNumber = Integer.toString(++rowsInSheet);
+        xml.write("<row r=\"");
+        xml.write(rowNumber);
+        xml.write("\">");
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                appendCell(columnName(i), rowNumber, values[i]);
+            }
+        }
+        xml.write("</row>");
+    }
+
+    private void appendCell(String column, String row, Object value) throws IOException {
+        if (value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                appendText(column, row, value.toString());
+            } else {
+                appendNumber(column, row, BigDecimal.valueOf(number).toPlainString(), STYLE_MONEY);
+            }
+        } else if (value instanceof Number) {
+            appendNumber(column, row, value.toString(), 0);
+        } else if (value instanceof LocalDateTime) {
+            LocalDateTime dateTime = (LocalDateTime) value;
+            double serial = ChronoUnit.DAYS.between(EXCEL_EPOCH, dateTime.toLocalDate())
+                    + dateTime.toLocalTime().toSecondOfDay() / 86400.0;
+            appendNumber(column, row, Double.toString(serial), STYLE_DATE_TIME);
+        } else if (value instanceof LocalDate) {
+            appendNumber(column, row, Long.toString(ChronoUnit.DAYS.between(EXCEL_EPOCH, (LocalDate) value)), STYLE_DATE);
+        } else if (value instanceof Boolean) {
+            xml.write("<c r=\"" + column + row + "\" t=\"b\"><v>" + (((Boolean) value) ? 1 : 0) + "</v></c>");
+        } else {
+            appendText(column, row, value.toString());
+        }
+    }
+
+    private void appendNumber(String column, String row, String number, int style) throws IOException {
+        xml.write("<c r=\"");
+        xml.write(column);
+        xml.write(row);
+        if (style != 0) {
+            xml.write("\" s=\"");
+            xml.write(Integer.toString(style));
+        }
+        xml.write("\"><v>");
+        xml.write(number);
+        xml.write("</v></c>");
+    }
+
+    private void appendText(String column, String row, String text) throws IOException {
+        xml.write("<c r=\"");
+        xml.write(column);
+        xml.write(row);
+        xml.write("\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+        writeEscaped(text);
+        xml.write("</t></is></c>");
+    }
+
+    // Экранирование XML; символы, недопустимые в XML 1.0, отбрасываются
+    private void writeEscaped(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '&': xml.write("&amp;"); break;
+                case '<': xml.write("&lt;"); break;
+                case '>': xml.write("&gt;"); break;
+                case '"': xml.write("&quot;"); break;
+                default:
+                    if (ch >= 0x20 || ch == '\t' || ch == '\n' || ch == '\r') {
+                        if (ch != 0xFFFE && ch != 0xFFFF) {
+                            xml.write(ch);
+                        }
+                    }
+            }
+        }
+    }
+
+    // Буквенное имя колонки: A..Z, AA..; имена запоминаются, чтобы не собирать их на каждой ячейке
+    private String columnName(int index) {
+        while (columnNames.size() <= index) {
+            int n = columnNames.size() + 1;
+            StringBuilder name = new StringBuilder();
+            while (n > 0) {
+                int rem = (n - 1) % 26;
+                name.insert(0, (char) ('A' + rem));
+                n = (n - 1) / 26;
+            }
+            columnNames.add(name.toString());
+        }
+        return columnNames.get(index);
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        xml.write(content);
+        xml.flush();
+        zip.closeEntry();
+    }
+
+    // Имя листа без символов, запрещенных Excel, экранированное для атрибута
+    private String sheetTitle(int sheet) {
+        String title = sheet == 1 ? sheetName : sheetName + " (" + sheet + ")";
+        return title.replaceAll("[\\[\\]:*?/\\\\]", "")
+                .replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;");
+    }
+
+    private String contentTypes() {
+        StringBuilder types = new StringBuilder(XML_HEADER)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheetCount; i++) {
+            types.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return types.append("</Types>").toString();
+    }
+
+    private String workbook() {
+        StringBuilder workbook = new StringBuilder(XML_HEADER)
+                .append("<workbook xmlns=\"").append(NS_MAIN).append("\" xmlns:r=\"").append(NS_REL).append("\"><sheets>");
+        for (int i = 1; i <= sheetCount; i++) {
+            workbook.append("<sheet name=\"").append(sheetTitle(i)).append("\" sheetId=\"").append(i)
+                    .append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return workbook.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRels() {
+        StringBuilder rels = new StringBuilder(XML_HEADER)
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheetCount; i++) {
+            rels.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(NS_REL)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        rels.append("<Relationship Id=\"rId").append(sheetCount + 1).append("\" Type=\"").append(NS_REL)
+                .append("/styles\" Target=\"styles.xml\"/>");
+        return rels.append("</Relationships>").toString();
+    }
+
+    // Встроенные форматы Excel: 22 — дата и время, 14 — дата, 4 — #,##0.00
+    private static String styles() {
+        return XML_HEADER +
+                "<styleSheet xmlns=\"" + NS_MAIN + "\">" +
+                "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>" +
+                "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>" +
+                "<fill><patternFill patternType=\"gray125\"/></fill></fills>" +
+                "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>" +
+                "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>" +
+                "<cellXfs count=\"4\">" +
+                "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>" +
+                "<xf numFmtId=\"22\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>" +
+                "<xf numFmtId=\"14\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>" +
+                "<xf numFmtId=\"4\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>" +
+                "</cellXfs>" +
+                "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>" +
+                "</styleSheet>";
+    }
+}
@@ -0,0 +1,25 @@
+-- Коэффициенты цены для PricingEngine: итоговая цена места =
+--   base_price * price_rule.coefficient * hall.price_coefficient * (правила по времени) * seat_category.price_coefficient,
+-- для брони дополнительно * (1 + BOOKING_SURCHARGE_RATE). Цена округляется до копеек.
+-- По умолчанию все новые коэффициенты равны 1.00, поэтому после миграции цены не меняются,
+-- пока наценки не заданы явно, например:
+--   UPDATE hall SET price_coefficient = 1.30 WHERE name LIKE '%IMAX%';
+--   UPDATE seat_category SET price_coefficient = 1.50 WHERE name = 'VIP';
+--   INSERT INTO price_time_rule (name, start_time, end_time, coefficient) VALUES ('Утренний', '06:00', '12:00', 0.80);
+
+ALTER TABLE seat_category
+    ADD COLUMN price_coefficient DECIMAL(4,2) NOT NULL DEFAULT 1.00;
+
+ALTER TABLE hall
+    ADD COLUMN price_coefficient DECIMAL(4,2) NOT NULL DEFAULT 1.00;
+
+-- Интервал [start_time, end_time) по времени начала сеанса; end_time <= start_time — интервал через полночь.
+-- Если подходят несколько правил, их коэффициенты перемножаются.
+CREATE TABLE price_time_rule (
+    time_rule_id INT          NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    name         VARCHAR(100) NOT NULL,
+    start_time   TIME         NOT NULL,
+    end_time     TIME         NOT NULL,
+    coefficient  DECIMAL(4,2) NOT NULL,
+    active       BOOLEAN      NOT NULL DEFAULT TRUE
+);
@@ -0,0 +1,26 @@
+-- Дневные агрегаты продаж для отчетов вместо сканирования payment/ticket за весь период.
+-- Ключ — день платежа, фильм, зал и метод оплаты; возвраты учитываются днем возврата,
+-- refund_amount хранится по модулю.
+-- Заполняется инкрементально SalesRollupJob: обрабатываются только платежи с payment_id больше
+-- водяного знака из rollup_watermark, знак сдвигается в той же транзакции.
+-- Пересчет с нуля: SalesRollupDAO.resetRollup (запуск приложения с --rebuild-sales-rollup),
+-- после чего задание дочитает все платежи.
+
+CREATE TABLE sales_daily_rollup (
+    sale_date      DATE          NOT NULL,
+    film_id        INT           NOT NULL,
+    hall_id        INT           NOT NULL,
+    method_id      INT           NOT NULL,
+    payment_count  INT           NOT NULL DEFAULT 0,
+    payment_amount DECIMAL(14,2) NOT NULL DEFAULT 0,
+    refund_count   INT           NOT NULL DEFAULT 0,
+    refund_amount  DECIMAL(14,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (sale_date, film_id, hall_id, method_id)
+);
+
+CREATE TABLE rollup_watermark (
+    rollup_name     VARCHAR(50) NOT NULL PRIMARY KEY,
+    last_payment_id INT         NOT NULL DEFAULT 0
+);
+
+INSERT INTO rollup_watermark (rollup_name, last_payment_id) VALUES ('sales_daily', 0);
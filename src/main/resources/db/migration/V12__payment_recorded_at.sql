@@ -0,0 +1,5 @@
+-- Момент записи платежа по часам БД. payment_time ставит касса своими часами, поэтому
+-- SalesRollupJob выдерживает свежие платежи по recorded_at и NOW() одного сервера.
+-- Для уже существующих платежей значение не важно: они давно старше выдержки.
+
+ALTER TABLE payment ADD COLUMN recorded_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
@@ -0,0 +1,12 @@
+-- Атомарный захват места на уровне БД.
+-- На одно место сеанса допускается не более одного активного билета (1 — оплачен, 2 — забронирован).
+-- Для возвратов (3) active_seat = NULL, а NULL в уникальном ключе не конфликтует,
+-- поэтому история возвратов по месту ограничение не нарушает.
+--
+-- Перед применением убедитесь, что в ticket нет дублей активных мест:
+--   SELECT showtime_id, seat_id, COUNT(*) FROM ticket
+--   WHERE status_id IN (1, 2) GROUP BY showtime_id, seat_id HAVING COUNT(*) > 1;
+
+ALTER TABLE ticket
+    ADD COLUMN active_seat TINYINT AS (IF(status_id IN (1, 2), 1, NULL)) STORED,
+    ADD UNIQUE KEY uq_ticket_active_seat (showtime_id, seat_id, active_seat);
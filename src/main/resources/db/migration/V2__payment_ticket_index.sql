@@ -0,0 +1,4 @@
+-- Платежи по билету: проверка возврата и история оплаты читают только строки своего билета.
+-- amount во втором столбце позволяет проверить наличие возврата (amount < 0) по одному индексу.
+
+CREATE INDEX idx_payment_ticket ON payment (ticket_id, amount);
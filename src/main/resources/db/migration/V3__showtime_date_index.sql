@@ -0,0 +1,3 @@
+-- Выборка расписания по диапазону дат (касса, сводка заполненности за день).
+
+CREATE INDEX idx_showtime_date_time ON showtime (date_time);
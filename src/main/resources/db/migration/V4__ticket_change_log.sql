@@ -0,0 +1,32 @@
+-- Журнал изменений занятости мест для синхронизации касс.
+-- Триггеры пишут строку при появлении, снятии или удалении активного билета (1 — оплачен, 2 — забронирован).
+-- Кассы читают журнал по возрастанию change_id от своего водяного знака: WHERE change_id > ?.
+-- Старые записи удаляет сам опрашивающий сервис (OccupancyFeed), хранится около суток.
+
+CREATE TABLE ticket_change_log (
+    change_id   BIGINT AUTO_INCREMENT PRIMARY KEY,
+    ticket_id   INT       NOT NULL,
+    showtime_id INT       NOT NULL,
+    seat_id     INT       NOT NULL,
+    active      TINYINT   NOT NULL,
+    changed_at  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    KEY idx_ticket_change_log_time (changed_at)
+);
+
+CREATE TRIGGER trg_ticket_change_insert AFTER INSERT ON ticket FOR EACH ROW
+    INSERT INTO ticket_change_log (ticket_id, showtime_id, seat_id, active)
+    SELECT NEW.ticket_id, NEW.showtime_id, NEW.seat_id, 1
+    FROM DUAL
+    WHERE NEW.status_id IN (1, 2);
+
+CREATE TRIGGER trg_ticket_change_update AFTER UPDATE ON ticket FOR EACH ROW
+    INSERT INTO ticket_change_log (ticket_id, showtime_id, seat_id, active)
+    SELECT NEW.ticket_id, NEW.showtime_id, NEW.seat_id, IF(NEW.status_id IN (1, 2), 1, 0)
+    FROM DUAL
+    WHERE (OLD.status_id IN (1, 2)) <> (NEW.status_id IN (1, 2));
+
+CREATE TRIGGER trg_ticket_change_delete AFTER DELETE ON ticket FOR EACH ROW
+    INSERT INTO ticket_change_log (ticket_id, showtime_id, seat_id, active)
+    SELECT OLD.ticket_id, OLD.showtime_id, OLD.seat_id, 0
+    FROM DUAL
+    WHERE OLD.status_id IN (1, 2);
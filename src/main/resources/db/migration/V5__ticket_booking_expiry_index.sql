@@ -0,0 +1,4 @@
+-- Поиск броней для планировщика истечения (BookingExpiryScheduler):
+-- WHERE status_id = 2 AND created_at < ? ORDER BY created_at — диапазон по индексу вместо полного скана ticket.
+
+CREATE INDEX idx_ticket_status_created ON ticket (status_id, created_at);
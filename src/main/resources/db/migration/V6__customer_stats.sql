@@ -0,0 +1,25 @@
+-- Агрегаты по клиенту для вкладки "Клиенты" вместо двух коррелированных подзапросов на строку.
+-- visit_count — число оплаченных билетов (status_id = 1), total_spent — сумма всех платежей клиента,
+-- включая возвраты (отрицательные суммы).
+-- Поддерживается BookingService в тех же транзакциях, что продажа, подтверждение брони и возврат.
+-- Пересчет с нуля: CustomerDAO.rebuildCustomerStats (запуск приложения с --rebuild-customer-stats).
+
+CREATE TABLE customer_stats (
+    customer_id INT           NOT NULL PRIMARY KEY,
+    visit_count INT           NOT NULL DEFAULT 0,
+    total_spent DECIMAL(12,2) NOT NULL DEFAULT 0,
+    CONSTRAINT fk_customer_stats_customer FOREIGN KEY (customer_id)
+        REFERENCES customer (customer_id) ON DELETE CASCADE
+);
+
+INSERT INTO customer_stats (customer_id, visit_count, total_spent)
+SELECT c.customer_id, COALESCE(v.visit_count, 0), COALESCE(p.total_spent, 0)
+FROM customer c
+LEFT JOIN (SELECT customer_id, COUNT(*) AS visit_count
+           FROM ticket
+           WHERE status_id = 1
+           GROUP BY customer_id) v ON v.customer_id = c.customer_id
+LEFT JOIN (SELECT t.customer_id, SUM(pay.amount) AS total_spent
+           FROM payment pay
+           JOIN ticket t ON pay.ticket_id = t.ticket_id
+           GROUP BY t.customer_id) p ON p.customer_id = c.customer_id;
@@ -0,0 +1,4 @@
+-- Постраничная загрузка клиентов (CustomerDAO.pageCustomers): ORDER BY created_at DESC, customer_id DESC
+-- с продолжением после последней строки страницы читает индекс с нужного места, без OFFSET и сортировки.
+
+CREATE INDEX idx_customer_created ON customer (created_at, customer_id);
@@ -0,0 +1,24 @@
+-- Поиск клиентов на кассе по началу телефона или email (LIKE 'префикс%') по индексу вместо LIKE '%текст%'.
+-- phone_normalized — только цифры, ведущая 8 российского номера заменена на 7 (CustomerDAO.normalizePhone);
+-- email_normalized — email в нижнем регистре без пробелов по краям (CustomerDAO.normalizeEmail).
+-- Колонки заполняет CustomerDAO при записи клиента, здесь — разовое заполнение существующих строк.
+-- updated_at позволяет индексу имен (CustomerSearchIndex) дочитывать только измененных клиентов.
+
+ALTER TABLE customer
+    ADD COLUMN phone_normalized VARCHAR(20),
+    ADD COLUMN email_normalized VARCHAR(255),
+    ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP;
+
+UPDATE customer
+SET phone_normalized = NULLIF(CASE
+        WHEN REGEXP_REPLACE(phone, '[^0-9]', '') LIKE '8%'
+             AND CHAR_LENGTH(REGEXP_REPLACE(phone, '[^0-9]', '')) <= 11
+            THEN CONCAT('7', SUBSTRING(REGEXP_REPLACE(phone, '[^0-9]', ''), 2))
+        ELSE REGEXP_REPLACE(phone, '[^0-9]', '')
+    END, ''),
+    email_normalized = NULLIF(LOWER(TRIM(email)), ''),
+    updated_at = created_at;
+
+CREATE INDEX idx_customer_phone_normalized ON customer (phone_normalized);
+CREATE INDEX idx_customer_email_normalized ON customer (email_normalized);
+CREATE INDEX idx_customer_updated ON customer (updated_at);
@@ -0,0 +1,34 @@
+-- Один клиент на номер телефона: CustomerDAO.findOrCreateCustomer делает атомарный upsert
+-- по уникальному ключу phone_normalized, и две кассы больше не создают дубликаты.
+-- Существующие дубликаты сливаются в клиента с наименьшим customer_id:
+-- билеты переносятся на него, агрегаты customer_stats суммируются, лишние строки удаляются.
+
+CREATE TEMPORARY TABLE customer_duplicate AS
+SELECT c.customer_id AS duplicate_id, k.keep_id
+FROM customer c
+JOIN (SELECT phone_normalized, MIN(customer_id) AS keep_id
+      FROM customer
+      WHERE phone_normalized IS NOT NULL
+      GROUP BY phone_normalized
+      HAVING COUNT(*) > 1) k
+    ON c.phone_normalized = k.phone_normalized AND c.customer_id <> k.keep_id;
+
+UPDATE ticket t
+JOIN customer_duplicate d ON t.customer_id = d.duplicate_id
+SET t.customer_id = d.keep_id;
+
+UPDATE customer_stats s
+JOIN (SELECT d.keep_id, SUM(cs.visit_count) AS visit_count, SUM(cs.total_spent) AS total_spent
+      FROM customer_duplicate d
+      JOIN customer_stats cs ON cs.customer_id = d.duplicate_id
+      GROUP BY d.keep_id) merged ON s.customer_id = merged.keep_id
+SET s.visit_count = s.visit_count + merged.visit_count,
+    s.total_spent = s.total_spent + merged.total_spent;
+
+DELETE c FROM customer c
+JOIN customer_duplicate d ON c.customer_id = d.duplicate_id;
+
+DROP TEMPORARY TABLE customer_duplicate;
+
+DROP INDEX idx_customer_phone_normalized ON customer;
+CREATE UNIQUE INDEX uk_customer_phone_normalized ON customer (phone_normalized);